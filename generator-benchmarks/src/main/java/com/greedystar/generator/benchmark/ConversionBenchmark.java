@@ -0,0 +1,57 @@
+package com.greedystar.generator.benchmark;
+
+import com.greedystar.generator.utils.ConvertorUtil;
+import com.greedystar.generator.utils.StringUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.JDBCType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列名、列类型转换的开销，每次调用转换一张表的所有列
+ *
+ * @author GreedyStar
+ * @since 2021/5/15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int columns;
+
+    private String[] columnNames;
+
+    private JDBCType[] columnTypes;
+
+    @Setup
+    public void setup() {
+        Fixtures.configure();
+        columnNames = Fixtures.columnNames(columns);
+        JDBCType[] types = JDBCType.values();
+        columnTypes = new JDBCType[columns];
+        for (int i = 0; i < columns; i++) {
+            columnTypes[i] = types[i % types.length];
+        }
+    }
+
+    @Benchmark
+    public void columnName2PropertyName(Blackhole blackhole) {
+        for (String columnName : columnNames) {
+            blackhole.consume(StringUtil.columnName2PropertyName(columnName));
+        }
+    }
+
+    @Benchmark
+    public void parseTypeFormSqlType(Blackhole blackhole) {
+        for (JDBCType columnType : columnTypes) {
+            blackhole.consume(ConvertorUtil.parseTypeFormSqlType(columnType));
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.greedystar.generator.benchmark;
+
+import com.greedystar.generator.entity.Mode;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.EntityTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体类代码段的生成开销
+ *
+ * @author GreedyStar
+ * @since 2021/5/15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityTaskBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int columns;
+
+    private AbstractInvoker invoker;
+
+    private EntityTask task;
+
+    @Setup
+    public void setup() {
+        Fixtures.configure();
+        invoker = Fixtures.invoker("benchmark_table", columns);
+        task = new EntityTask(Mode.ENTITY_MAIN, invoker);
+    }
+
+    @Benchmark
+    public String entityProperties() {
+        return task.entityProperties();
+    }
+
+    @Benchmark
+    public String entityMethods() {
+        return task.entityMethods();
+    }
+
+}
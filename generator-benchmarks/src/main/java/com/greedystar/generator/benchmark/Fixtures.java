@@ -0,0 +1,89 @@
+package com.greedystar.generator.benchmark;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.invoker.SingleInvoker;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.ConfigUtil;
+
+import java.sql.JDBCType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的合成数据，不依赖数据库和generator.yaml
+ *
+ * @author GreedyStar
+ * @since 2021/5/15
+ */
+public class Fixtures {
+    /**
+     * 合成列依次使用的数据类型
+     */
+    private final static JDBCType[] TYPES = {JDBCType.VARCHAR, JDBCType.INTEGER, JDBCType.TIMESTAMP, JDBCType.DECIMAL,
+            JDBCType.BIT, JDBCType.DATE, JDBCType.CHAR, JDBCType.DOUBLE, JDBCType.LONGVARCHAR, JDBCType.SMALLINT};
+
+    private Fixtures() {
+    }
+
+    /**
+     * 设置代码配置，元数据快照只用于跳过数据库配置检查，基准测试不会读取该文件
+     */
+    public static void configure() {
+        Configuration configuration = new Configuration();
+        configuration.setAuthor("GreedyStar");
+        configuration.setPackageName("com.greedystar.benchmark");
+        configuration.setSnapshot("benchmark.snapshot");
+        configuration.setPath(new Configuration.Path("controller", "service", "", "dao", "entity", "mapper"));
+        ConfigUtil.setConfiguration(configuration);
+    }
+
+    /**
+     * 合成列名，形如 column_name_12
+     *
+     * @param columns 列数
+     * @return 列名
+     */
+    public static String[] columnNames(int columns) {
+        String[] names = new String[columns];
+        names[0] = "id";
+        for (int i = 1; i < columns; i++) {
+            names[i] = "column_name_" + i;
+        }
+        return names;
+    }
+
+    /**
+     * 合成表结构，第一列为主键，其余列轮流使用常见的数据类型
+     *
+     * @param tableName 表名
+     * @param columns   列数
+     * @return 表结构
+     */
+    public static TableInfo tableInfo(String tableName, int columns) {
+        String[] names = columnNames(columns);
+        List<ColumnInfo> columnInfos = new ArrayList<>(columns);
+        columnInfos.add(new ColumnInfo(names[0], JDBCType.BIGINT.getVendorTypeNumber(), "主键", true));
+        for (int i = 1; i < columns; i++) {
+            columnInfos.add(new ColumnInfo(names[i], TYPES[i % TYPES.length].getVendorTypeNumber(), "第" + i + "列", false));
+        }
+        return new TableInfo(tableName, "基准测试表", columnInfos);
+    }
+
+    /**
+     * 已填充表结构的单表执行器
+     *
+     * @param tableName 表名
+     * @param columns   列数
+     * @return 执行器
+     */
+    public static AbstractInvoker invoker(String tableName, int columns) {
+        AbstractInvoker invoker = (AbstractInvoker) new SingleInvoker.Builder()
+                .setTableName(tableName)
+                .build();
+        invoker.setTableInfo(tableInfo(tableName, columns));
+        return invoker;
+    }
+
+}
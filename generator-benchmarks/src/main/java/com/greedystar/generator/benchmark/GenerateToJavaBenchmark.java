@@ -0,0 +1,92 @@
+package com.greedystar.generator.benchmark;
+
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.entity.Mode;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.EntityTask;
+import com.greedystar.generator.task.MapperTask;
+import com.greedystar.generator.task.base.Artifact;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.FileUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渲染并写入单个文件的开销，输出目录为临时目录
+ * <p>
+ * 第一次调用之后文件内容不再变化，测得的是重新生成时渲染模板并比较文件内容的开销
+ *
+ * @author GreedyStar
+ * @since 2021/5/15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateToJavaBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int columns;
+
+    private File outputDir;
+
+    private GenerationContext.DataModel entityModel;
+
+    private GenerationContext.DataModel mapperModel;
+
+    private Artifact entity;
+
+    private Artifact mapper;
+
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() throws IOException {
+        Fixtures.configure();
+        outputDir = Files.createTempDirectory("generator-benchmark").toFile();
+        AbstractInvoker invoker = Fixtures.invoker("benchmark_table", columns);
+        GenerationContext context = new GenerationContext(ConfigUtil.getConfiguration());
+        entity = new EntityTask(Mode.ENTITY_MAIN, invoker).prepareArtifact();
+        mapper = new MapperTask(invoker).prepareArtifact();
+        entityModel = context.getDataModel(invoker, entity.getData());
+        mapperModel = context.getDataModel(invoker, mapper.getData());
+        // 屏蔽每次写入时打印的日志
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+        File[] files = outputDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        outputDir.delete();
+    }
+
+    @Benchmark
+    public void entity() throws Exception {
+        FileUtil.generateToJava(entity.getType(), entityModel, outputDir.getPath() + File.separator, entity.getFileName());
+    }
+
+    @Benchmark
+    public void mapper() throws Exception {
+        FileUtil.generateToJava(mapper.getType(), mapperModel, outputDir.getPath() + File.separator, mapper.getFileName());
+    }
+
+}
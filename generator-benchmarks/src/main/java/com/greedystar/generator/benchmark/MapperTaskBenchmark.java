@@ -0,0 +1,53 @@
+package com.greedystar.generator.benchmark;
+
+import com.greedystar.generator.task.MapperTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper代码段的生成开销
+ *
+ * @author GreedyStar
+ * @since 2021/5/15
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperTaskBenchmark {
+
+    @Param({"10", "100", "500", "2000"})
+    private int columns;
+
+    private MapperTask task;
+
+    @Setup
+    public void setup() {
+        Fixtures.configure();
+        task = new MapperTask(Fixtures.invoker("benchmark_table", columns));
+    }
+
+    @Benchmark
+    public String columnMap() {
+        return task.columnMap();
+    }
+
+    @Benchmark
+    public String resultMap() {
+        return task.resultMap();
+    }
+
+    @Benchmark
+    public String insertBatchValues() {
+        return task.insertBatchValues();
+    }
+
+    @Benchmark
+    public String updateProperties() {
+        return task.updateProperties();
+    }
+
+}
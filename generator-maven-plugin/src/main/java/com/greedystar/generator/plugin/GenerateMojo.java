@@ -0,0 +1,391 @@
+package com.greedystar.generator.plugin;
+
+import com.greedystar.generator.db.DataBaseFactory;
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.engine.GenerationEngine;
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.TemplateScope;
+import com.greedystar.generator.invoker.BatchInvoker;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.listener.GenerationListener;
+import com.greedystar.generator.output.FileSink;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.FreemarkerConfigUtil;
+import com.greedystar.generator.utils.GenerationCache;
+import com.greedystar.generator.utils.StringUtil;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在generate-sources阶段批量生成单表代码，并将生成目录加入项目的源码目录和资源目录
+ * <p>
+ * 配置文件、模板、插件版本以及每张表的元数据都作为输入计算摘要，与上次生成时记录的摘要比较：全部未变化时跳过生成，
+ * 配置或模板发生变化时重新生成所有表，否则只重新生成元数据发生变化的表，并删除已不存在的表生成的文件；
+ * 配置了作用范围为schema的模板时，该文件汇总所有表，任一表发生变化都重新生成所有表
+ * <p>
+ * 配置文件中的snapshot、ddl、report、templateDirectory等相对路径以项目根目录为基准，archive配置被忽略，生成的文件总是写入outputDirectory
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+    /**
+     * 生成器的配置信息和生成引擎在进程内共享，并行构建时多个模块依次生成
+     */
+    private final static Object LOCK = new Object();
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+    /**
+     * 配置文件，格式与generator.yaml相同
+     */
+    @Parameter(property = "generator.configFile", defaultValue = "${project.basedir}/src/main/resources/generator.yaml")
+    private File configFile;
+    /**
+     * 元数据快照文件，配置后覆盖配置文件中的snapshot
+     */
+    @Parameter(property = "generator.snapshot")
+    private File snapshot;
+    /**
+     * 表名匹配模式
+     */
+    @Parameter(property = "generator.tableNamePattern", defaultValue = "%")
+    private String tableNamePattern;
+    /**
+     * 需要生成的表，为空则生成所有匹配的表
+     */
+    @Parameter
+    private List<String> includeTables;
+    /**
+     * 需要排除的表
+     */
+    @Parameter
+    private List<String> excludeTables;
+    /**
+     * 源码输出目录
+     */
+    @Parameter(property = "generator.outputDirectory", defaultValue = "${project.build.directory}/generated-sources/generator")
+    private File outputDirectory;
+    /**
+     * 资源文件（如Mapper映射文件）输出目录
+     */
+    @Parameter(property = "generator.resourceOutputDirectory", defaultValue = "${project.build.directory}/generated-resources/generator")
+    private File resourceOutputDirectory;
+    /**
+     * 状态文件，记录上次生成时的输入摘要和生成的文件
+     */
+    @Parameter(defaultValue = "${project.build.directory}/generator-maven-plugin/state.properties")
+    private File stateFile;
+    /**
+     * 跳过代码生成
+     */
+    @Parameter(property = "generator.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping code generation");
+            return;
+        }
+        synchronized (LOCK) {
+            generate();
+        }
+        project.addCompileSourceRoot(outputDirectory.getPath());
+        Resource resource = new Resource();
+        resource.setDirectory(resourceOutputDirectory.getPath());
+        project.addResource(resource);
+    }
+
+    private void generate() throws MojoExecutionException, MojoFailureException {
+        if (!configFile.isFile()) {
+            throw new MojoExecutionException("Can not find configuration file " + configFile.getPath());
+        }
+        List<TableInfo> tableInfos;
+        GenerationState state;
+        String inputs;
+        try {
+            // setConfiguration在配置有误时会退出JVM，插件运行在Maven的JVM中，需要以构建失败的形式报告
+            ConfigUtil.setCheckedConfiguration(loadConfiguration());
+        } catch (Exception e) {
+            throw new MojoExecutionException("Invalid configuration in " + configFile.getPath() + ": " + e.getMessage(), e);
+        }
+        try {
+            tableInfos = new ArrayList<>();
+            for (TableInfo info : DataBaseFactory.getMetadataSource().getTableInfos(tableNamePattern)) {
+                if ((includeTables == null || includeTables.isEmpty() || includeTables.contains(info.getTableName()))
+                        && (excludeTables == null || !excludeTables.contains(info.getTableName()))) {
+                    tableInfos.add(info);
+                }
+            }
+            state = GenerationState.load(stateFile);
+            inputs = GenerationCache.fingerprint(Arrays.asList(pluginVersion, ConfigUtil.getConfiguration(), readTemplates(ConfigUtil.getConfiguration())));
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to prepare code generation: " + e.getMessage(), e);
+        }
+        // 配置或模板发生变化时所有表都需要重新生成
+        boolean inputsChanged = !inputs.equals(state.getInputs());
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        List<String> changedTables = new ArrayList<>();
+        for (TableInfo info : tableInfos) {
+            String fingerprint = GenerationCache.fingerprint(info);
+            fingerprints.put(info.getTableName(), fingerprint);
+            if (inputsChanged || !fingerprint.equals(state.getFingerprint(info.getTableName()))
+                    || !outputsExist(state.getFiles(info.getTableName()))) {
+                changedTables.add(info.getTableName());
+            }
+        }
+        Set<String> removedTables = new TreeSet<>(state.getTables());
+        removedTables.removeAll(fingerprints.keySet());
+        if (changedTables.isEmpty() && removedTables.isEmpty()) {
+            getLog().info(String.format("All %d tables are up to date", tableInfos.size()));
+            return;
+        }
+        for (String table : removedTables) {
+            deleteOutputs(state.getFiles(table));
+            state.remove(table);
+        }
+        if (changedTables.size() < tableInfos.size() && hasSchemaTemplates(ConfigUtil.getConfiguration())) {
+            // 只按部分表生成会使作用范围为schema的文件丢失其他表
+            changedTables.clear();
+            tableInfos.forEach(info -> changedTables.add(info.getTableName()));
+        }
+        GenerationReport report = null;
+        if (!changedTables.isEmpty()) {
+            getLog().info(String.format("Generating %d of %d tables", changedTables.size(), tableInfos.size()));
+            report = generate(tableInfos, changedTables, fingerprints, state);
+        }
+        state.setInputs(inputs);
+        try {
+            state.save(stateFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to save generation state to " + stateFile.getPath(), e);
+        }
+        if (report != null && !report.getFailures().isEmpty()) {
+            report.getFailures().forEach((table, throwables) -> throwables.forEach(e -> getLog().error(table, e)));
+            throw new MojoFailureException("Code generation failed for tables " + report.getFailures().keySet());
+        }
+    }
+
+    /**
+     * 生成指定的表，并更新这些表的状态
+     *
+     * @param tableInfos    所有表的元数据
+     * @param changedTables 需要生成的表
+     * @param fingerprints  表名 -> 元数据摘要
+     * @param state         状态
+     * @return 执行报告
+     */
+    private GenerationReport generate(List<TableInfo> tableInfos, List<String> changedTables, Map<String, String> fingerprints,
+                                      GenerationState state) {
+        AbstractInvoker invoker = (AbstractInvoker) new BatchInvoker.Builder()
+                .setTableNamePattern(tableNamePattern)
+                .setIncludeTables(changedTables.toArray(new String[0]))
+                .build();
+        invoker.setMetadataSource(new PrefetchedMetadataSource(tableInfos));
+        // 记录每张表生成的文件，用于之后删除过期的文件
+        Map<String, Set<String>> outputs = new ConcurrentHashMap<>();
+        GenerationListener listener = new GenerationListener() {
+            @Override
+            public void onWritten(AbstractTask task, Artifact artifact, long nanos) {
+                outputs.computeIfAbsent(task.getInvoker().getTableName(), k -> ConcurrentHashMap.newKeySet())
+                        .add(artifact.getRoot() + ":" + artifact.getPath());
+            }
+        };
+        FileSink sink = new FileSink(outputDirectory.getPath() + File.separator, resourceOutputDirectory.getPath() + File.separator);
+        GenerationEngine.getInstance().addListener(listener);
+        GenerationReport report;
+        try {
+            report = GenerationEngine.getInstance().submit(sink, null, invoker).join();
+        } finally {
+            GenerationEngine.getInstance().removeListener(listener);
+        }
+        // 合并生成的文件（如作用范围为schema的文件）只记录在其中一张表下，各次生成记录的表可能不同，不能因此删除
+        Set<String> written = new HashSet<>();
+        outputs.values().forEach(written::addAll);
+        for (String table : changedTables) {
+            Set<String> previous = new TreeSet<>(state.getFiles(table));
+            if (report.getFailures().containsKey(table)) { // 失败的表下次重新生成
+                state.remove(table);
+                continue;
+            }
+            Set<String> current = outputs.getOrDefault(table, Collections.emptySet());
+            previous.removeAll(written);
+            deleteOutputs(previous);
+            state.put(table, fingerprints.get(table), current);
+        }
+        return report;
+    }
+
+    private static boolean hasSchemaTemplates(Configuration configuration) {
+        for (Configuration.Template template : configuration.getTemplates()) {
+            if (template.getScope() == TemplateScope.SCHEMA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取配置文件，并将其中的相对路径转换为以项目根目录为基准的绝对路径
+     *
+     * @return 配置信息
+     * @throws IOException 文件读写异常
+     */
+    private Configuration loadConfiguration() throws IOException {
+        Configuration configuration = ConfigUtil.loadConfiguration(configFile);
+        if (snapshot != null) {
+            configuration.setSnapshot(snapshot.getPath());
+        }
+        configuration.setSnapshot(resolve(configuration.getSnapshot()));
+        configuration.setDdl(resolve(configuration.getDdl()));
+        configuration.setReport(resolve(configuration.getReport()));
+        configuration.setTemplateDirectory(resolve(configuration.getTemplateDirectory()));
+        // 生成目录完全由插件管理
+        configuration.setArchive(null);
+        configuration.setFileOverride(true);
+        return configuration;
+    }
+
+    private String resolve(String path) {
+        if (StringUtil.isEmpty(path) || new File(path).isAbsolute()) {
+            return path;
+        }
+        return new File(project.getBasedir(), path).getPath();
+    }
+
+    /**
+     * 读取参与摘要计算的模板内容：自定义模板目录中的所有文件（包括被其他模板引用的公共模板），以及内置模板和配置的额外模板
+     *
+     * @param configuration 配置信息
+     * @return 模板名 -> 模板内容
+     * @throws IOException 文件读写异常
+     */
+    private static Map<String, String> readTemplates(Configuration configuration) throws IOException {
+        Map<String, String> templates = new TreeMap<>();
+        if (!StringUtil.isEmpty(configuration.getTemplateDirectory())) {
+            readDirectory(new File(configuration.getTemplateDirectory()), "", templates);
+        }
+        List<String> names = new ArrayList<>(FreemarkerConfigUtil.getTemplateNames());
+        configuration.getTemplates().forEach(template -> names.add(template.getTemplate()));
+        for (String name : names) {
+            if (templates.containsKey(name)) { // 自定义模板目录中的模板优先
+                continue;
+            }
+            try (InputStream is = FreemarkerConfigUtil.class.getClassLoader().getResourceAsStream("ftls/" + name)) {
+                if (is == null) {
+                    continue;
+                }
+                templates.put(name, read(is));
+            }
+        }
+        return templates;
+    }
+
+    private static void readDirectory(File directory, String prefix, Map<String, String> templates) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                readDirectory(file, prefix + file.getName() + "/", templates);
+            } else {
+                try (InputStream is = new FileInputStream(file)) {
+                    templates.put(prefix + file.getName(), read(is));
+                }
+            }
+        }
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] bytes = new byte[8192];
+        int len;
+        while ((len = is.read(bytes)) != -1) {
+            os.write(bytes, 0, len);
+        }
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private boolean outputsExist(Set<String> outputs) {
+        if (outputs.isEmpty()) {
+            return false;
+        }
+        for (String output : outputs) {
+            if (!toFile(output).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void deleteOutputs(Set<String> outputs) {
+        for (String output : outputs) {
+            File file = toFile(output);
+            if (file.isFile() && file.delete()) {
+                getLog().info("Deleted " + file.getPath());
+            }
+        }
+    }
+
+    /**
+     * 将状态中记录的文件转换为输出目录下的文件
+     *
+     * @param output 输出根目录:相对路径
+     * @return 文件
+     */
+    private File toFile(String output) {
+        int index = output.indexOf(':');
+        File root = Artifact.Root.RESOURCE.name().equals(output.substring(0, index)) ? resourceOutputDirectory : outputDirectory;
+        return new File(root, output.substring(index + 1));
+    }
+
+    /**
+     * 已读取的元数据，避免生成时再次读取
+     */
+    private static class PrefetchedMetadataSource implements MetadataSource {
+        private final Map<String, TableInfo> tableInfos = new LinkedHashMap<>();
+
+        PrefetchedMetadataSource(List<TableInfo> tableInfos) {
+            tableInfos.forEach(info -> this.tableInfos.put(info.getTableName(), info));
+        }
+
+        @Override
+        public TableInfo getTableInfo(String tableName) throws Exception {
+            TableInfo tableInfo = tableInfos.get(tableName);
+            if (tableInfo == null) {
+                throw new Exception("Can not find column information from table:" + tableName);
+            }
+            return tableInfo;
+        }
+
+        @Override
+        public List<TableInfo> getTableInfos(String tableNamePattern) {
+            return new ArrayList<>(tableInfos.values());
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.greedystar.generator.plugin;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * 上次生成时记录的状态，包括输入摘要、每张表的元数据摘要以及每张表生成的文件，用于判断哪些表需要重新生成
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+class GenerationState {
+    private final static String INPUTS = "inputs";
+    private final static String TABLE_PREFIX = "table.";
+    private final static String FILES_PREFIX = "files.";
+    /**
+     * 配置、模板和插件版本的摘要
+     */
+    private String inputs;
+    /**
+     * 表名 -> 元数据摘要
+     */
+    private final Map<String, String> fingerprints = new TreeMap<>();
+    /**
+     * 表名 -> 生成的文件，格式为 输出根目录:相对路径
+     */
+    private final Map<String, Set<String>> files = new TreeMap<>();
+
+    /**
+     * 读取状态文件，文件不存在时返回空状态
+     *
+     * @param file 状态文件
+     * @return 状态
+     * @throws IOException 文件读写异常
+     */
+    static GenerationState load(File file) throws IOException {
+        GenerationState state = new GenerationState();
+        if (!file.isFile()) {
+            return state;
+        }
+        Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(file)) {
+            properties.load(is);
+        }
+        state.inputs = properties.getProperty(INPUTS);
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (key.startsWith(TABLE_PREFIX)) {
+                state.fingerprints.put(key.substring(TABLE_PREFIX.length()), value);
+            } else if (key.startsWith(FILES_PREFIX) && !value.isEmpty()) {
+                state.files.put(key.substring(FILES_PREFIX.length()), new TreeSet<>(Arrays.asList(value.split(","))));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 写入状态文件
+     *
+     * @param file 状态文件
+     * @throws IOException 文件读写异常
+     */
+    void save(File file) throws IOException {
+        Properties properties = new Properties();
+        if (inputs != null) {
+            properties.setProperty(INPUTS, inputs);
+        }
+        fingerprints.forEach((table, fingerprint) -> properties.setProperty(TABLE_PREFIX + table, fingerprint));
+        files.forEach((table, paths) -> properties.setProperty(FILES_PREFIX + table, String.join(",", paths)));
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        try (OutputStream os = new FileOutputStream(file)) {
+            properties.store(os, "generator-maven-plugin state, do not edit");
+        }
+    }
+
+    String getInputs() {
+        return inputs;
+    }
+
+    void setInputs(String inputs) {
+        this.inputs = inputs;
+    }
+
+    Set<String> getTables() {
+        return fingerprints.keySet();
+    }
+
+    String getFingerprint(String table) {
+        return fingerprints.get(table);
+    }
+
+    Set<String> getFiles(String table) {
+        return files.getOrDefault(table, Collections.emptySet());
+    }
+
+    /**
+     * 记录一张表的生成结果
+     *
+     * @param table       表名
+     * @param fingerprint 元数据摘要
+     * @param paths       生成的文件
+     */
+    void put(String table, String fingerprint, Set<String> paths) {
+        fingerprints.put(table, fingerprint);
+        files.put(table, new TreeSet<>(paths));
+    }
+
+    /**
+     * 移除一张表的记录
+     *
+     * @param table 表名
+     */
+    void remove(String table) {
+        fingerprints.remove(table);
+        files.remove(table);
+    }
+
+}
@@ -1,19 +1,41 @@
 package com.greedystar.generator.application;
 
+import com.greedystar.generator.db.ConnectionUtil;
+import com.greedystar.generator.db.SchemaSnapshot;
+import com.greedystar.generator.engine.GenerationDaemon;
+import com.greedystar.generator.engine.GenerationEngine;
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.engine.GenerationResult;
+import com.greedystar.generator.invoker.BatchInvoker;
+import com.greedystar.generator.invoker.DiffInvoker;
 import com.greedystar.generator.invoker.Many2ManyInvoker;
 import com.greedystar.generator.invoker.Many2OneInvoker;
 import com.greedystar.generator.invoker.One2ManyInvoker;
+import com.greedystar.generator.invoker.SchemaInvoker;
 import com.greedystar.generator.invoker.SingleInvoker;
 import com.greedystar.generator.invoker.base.Invoker;
 
+import java.io.File;
+
 /**
  * @author GreedyStar
  * @since 2018/9/5
  */
 public class Main {
 
-    public static void main(String[] args) {
-
+    /**
+     * 命令行入口，导出元数据快照：export-snapshot &lt;快照文件&gt; [表名匹配模式，默认为%]
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "export-snapshot".equals(args[0])) {
+            if (args.length < 2) {
+                System.err.println("Usage: export-snapshot <snapshot file> [table name pattern]");
+                System.exit(1);
+            }
+            exportSnapshot(args[1], args.length > 2 ? args[2] : "%");
+        }
     }
 
     public static void many2many() {
@@ -59,4 +81,64 @@ public class Main {
         invoker.execute();
     }
 
+    public static void batch() {
+        Invoker invoker = new BatchInvoker.Builder()
+                .setTableNamePattern("%")
+                .setExcludeTables("flyway_schema_history")
+                .build();
+        invoker.execute();
+    }
+
+    public static void schema() {
+        // 根据外键自动规划多对一、一对多和多对多关系，关系表不单独生成代码
+        Invoker invoker = new SchemaInvoker.Builder()
+                .setTableNamePattern("%")
+                .setExcludeTables("flyway_schema_history")
+                .build();
+        invoker.execute();
+    }
+
+    public static void engine() {
+        Invoker user = new SingleInvoker.Builder()
+                .setTableName("user")
+                .build();
+        Invoker office = new SingleInvoker.Builder()
+                .setTableName("office")
+                .build();
+        GenerationReport report = GenerationEngine.getInstance()
+                .submit((completed, total) -> System.out.printf("%d/%d \n", completed, total), user, office)
+                .join();
+        System.out.println(report);
+    }
+
+    public static void inMemory() {
+        Invoker user = new SingleInvoker.Builder()
+                .setTableName("user")
+                .build();
+        // 生成结果保存在内存中，不写入源码目录
+        GenerationResult result = GenerationEngine.getInstance().generate(user);
+        result.getFiles().forEach((path, content) -> System.out.printf("%s: %d chars \n", path, content.length()));
+    }
+
+    public static void watch() {
+        // 常驻运行，表结构或模板修改后只重新生成受影响的文件，调用close()停止
+        GenerationDaemon daemon = new GenerationDaemon("%", "flyway_schema_history");
+        daemon.start();
+    }
+
+    public static void diff() {
+        // 与上一次导出的快照比较，只重新生成受列级变化影响的文件，如只修改列注释时只重新生成实体类
+        Invoker invoker = new DiffInvoker.Builder()
+                .setBaselineSnapshot("schema.snapshot")
+                .setTableNamePattern("%")
+                .setExcludeTables("flyway_schema_history")
+                .build();
+        invoker.execute();
+    }
+
+    public static void exportSnapshot(String file, String tableNamePattern) throws Exception {
+        // 导出后在generator.yaml中配置 snapshot: <快照文件> 即可离线生成代码
+        SchemaSnapshot.export(new ConnectionUtil(), tableNamePattern, new File(file));
+    }
+
 }
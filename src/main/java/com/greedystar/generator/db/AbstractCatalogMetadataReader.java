@@ -0,0 +1,187 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 直接查询数据库系统目录的元数据读取器，一条查询即可读取整个schema的列、主键以及表和列的注释
+ * <p>
+ * 子类提供的查询需要返回TABLE_NAME、TABLE_REMARKS、COLUMN_NAME、TYPE_NAME、COLUMN_REMARKS、PRIMARY_KEY六列，
+ * 按表名和列的定义顺序排序，两个参数依次为schema和表名（或表名匹配模式）
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public abstract class AbstractCatalogMetadataReader implements MetadataReader {
+
+    @Override
+    public TableInfo readTable(Connection connection, String tableName) throws Exception {
+        List<TableInfo> tableInfos = query(connection, "= ?", tableName);
+        if (tableInfos.isEmpty()) {
+            throw new Exception("Can not find column information from table:" + tableName);
+        }
+        return tableInfos.get(0);
+    }
+
+    @Override
+    public List<TableInfo> readTables(Connection connection, String tableNamePattern) throws Exception {
+        return query(connection, getLikeCondition(), tableNamePattern);
+    }
+
+    @Override
+    public Map<String, String> readTableStamps(Connection connection, String tableNamePattern) throws Exception {
+        String sql = getStampsSql(getLikeCondition());
+        if (sql == null) {
+            return null;
+        }
+        Map<String, String> stamps = new TreeMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, DataBaseFactory.getSchema(connection));
+            statement.setString(2, tableNamePattern);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    stamps.put(resultSet.getString("TABLE_NAME"), String.valueOf(resultSet.getString("STAMP")));
+                }
+            }
+        }
+        return stamps;
+    }
+
+    @Override
+    public List<ForeignKeyInfo> readForeignKeys(Connection connection, String tableNamePattern) throws Exception {
+        String sql = getForeignKeysSql(getLikeCondition());
+        if (sql == null) {
+            return MetadataReader.super.readForeignKeys(connection, tableNamePattern);
+        }
+        List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, DataBaseFactory.getSchema(connection));
+            statement.setString(2, tableNamePattern);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    foreignKeys.add(new ForeignKeyInfo(resultSet.getString("FK_NAME"), resultSet.getString("TABLE_NAME"),
+                            resultSet.getString("COLUMN_NAME"), resultSet.getString("REFERENCED_TABLE_NAME"),
+                            resultSet.getString("REFERENCED_COLUMN_NAME"), resultSet.getInt("KEY_SEQ")));
+                }
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * 获取查询整个schema外键的SQL，返回FK_NAME、TABLE_NAME、COLUMN_NAME、REFERENCED_TABLE_NAME、REFERENCED_COLUMN_NAME、
+     * KEY_SEQ六列，按表名、外键名和序号排序，参数与{@link #getColumnsSql(String)}相同
+     *
+     * @param tableCondition 表名条件
+     * @return SQL，返回null时逐表调用DatabaseMetaData.getImportedKeys
+     */
+    protected String getForeignKeysSql(String tableCondition) {
+        return null;
+    }
+
+    /**
+     * 获取查询各表变更标识的SQL，返回TABLE_NAME、STAMP两列，参数与{@link #getColumnsSql(String)}相同
+     *
+     * @param tableCondition 表名条件
+     * @return SQL，不支持时返回null
+     */
+    protected String getStampsSql(String tableCondition) {
+        return null;
+    }
+
+    /**
+     * 获取查询整个schema列信息的SQL
+     *
+     * @param tableCondition 表名条件，如 "= ?"、"LIKE ?"
+     * @return SQL
+     */
+    protected abstract String getColumnsSql(String tableCondition);
+
+    /**
+     * 将数据库的类型名转换为JDBC类型，与对应JDBC驱动的getColumns返回的DATA_TYPE保持一致
+     *
+     * @param typeName 类型名
+     * @return JDBC类型
+     */
+    protected abstract JDBCType getJdbcType(String typeName);
+
+    /**
+     * 获取表名匹配条件，默认以反斜杠作为转义字符，与DatabaseMetaData的匹配模式一致
+     *
+     * @return 表名匹配条件
+     */
+    protected String getLikeCondition() {
+        return "LIKE ? ESCAPE '\\'";
+    }
+
+    /**
+     * 表注释为空时使用的默认值
+     *
+     * @param tableName 表名
+     * @return 默认表注释
+     */
+    protected String getDefaultTableRemark(String tableName) {
+        return "Unknown";
+    }
+
+    /**
+     * 列注释为空时使用的默认值
+     *
+     * @param columnName 列名
+     * @return 默认列注释
+     */
+    protected String getDefaultColumnRemark(String columnName) {
+        return columnName;
+    }
+
+    /**
+     * 执行查询并按表汇总
+     *
+     * @param connection     数据库连接
+     * @param tableCondition 表名条件
+     * @param tableName      表名或表名匹配模式
+     * @return 表结构数据列表，按表名排序
+     * @throws SQLException SQLException
+     */
+    private List<TableInfo> query(Connection connection, String tableCondition, String tableName) throws SQLException {
+        Map<String, TableInfo> tableInfos = new TreeMap<>();
+        Map<String, SortedSet<String>> primaryKeys = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(getColumnsSql(tableCondition))) {
+            statement.setString(1, DataBaseFactory.getSchema(connection));
+            statement.setString(2, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String table = resultSet.getString("TABLE_NAME");
+                    TableInfo tableInfo = tableInfos.get(table);
+                    if (tableInfo == null) {
+                        String tableRemark = resultSet.getString("TABLE_REMARKS");
+                        tableInfo = new TableInfo(table, StringUtil.isEmpty(tableRemark) ? getDefaultTableRemark(table) : tableRemark,
+                                new ArrayList<>());
+                        tableInfos.put(table, tableInfo);
+                    }
+                    String columnName = resultSet.getString("COLUMN_NAME");
+                    String columnRemark = resultSet.getString("COLUMN_REMARKS");
+                    tableInfo.getColumnsInfo().add(new ColumnInfo(columnName,
+                            getJdbcType(resultSet.getString("TYPE_NAME")).getVendorTypeNumber(),
+                            StringUtil.isEmpty(columnRemark) ? getDefaultColumnRemark(columnName) : columnRemark, false));
+                    if (resultSet.getInt("PRIMARY_KEY") == 1) {
+                        primaryKeys.computeIfAbsent(table, k -> new TreeSet<>()).add(columnName);
+                    }
+                }
+            }
+        }
+        // 与DatabaseMetaData.getPrimaryKeys的读取方式保持一致，联合主键只标记按列名排序的第一列
+        primaryKeys.forEach((table, columns) -> {
+            for (ColumnInfo info : tableInfos.get(table).getColumnsInfo()) {
+                info.setPrimaryKey(info.getColumnName().equals(columns.first()));
+            }
+        });
+        return new ArrayList<>(tableInfos.values());
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.utils.ConfigUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 元数据连接池，复用已建立的数据库连接，并限制同时打开的连接数，可通过{@link #setDataSource(Configuration.Db, DataSource)}接入外部数据源
+ * <p>
+ * 每个数据库（url和用户名相同）对应一个连接池，同一JVM中按不同配置生成代码时互不影响，外部数据源也只作用于对应的连接池；
+ * 最大连接数通过db.max-connections配置，未配置时为{@link #DEFAULT_MAX_SIZE}
+ *
+ * @author GreedyStar
+ * @since 2021/5/8
+ */
+public class ConnectionPool {
+    /**
+     * 默认最大连接数
+     */
+    public final static int DEFAULT_MAX_SIZE = 8;
+
+    /**
+     * 数据库 -> 连接池
+     */
+    private final static Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> POOLS.values().forEach(ConnectionPool::close)));
+    }
+    /**
+     * 外部数据源，为null时使用DriverManager创建连接
+     */
+    private volatile DataSource dataSource;
+    /**
+     * 空闲连接
+     */
+    private final LinkedBlockingDeque<Connection> idleConnections = new LinkedBlockingDeque<>();
+    /**
+     * 连接许可，保证同时借出的连接数不超过最大连接数
+     */
+    private final Semaphore permits;
+    /**
+     * 最大连接数
+     */
+    private final int maxSize;
+    /**
+     * 数据库连接配置
+     */
+    private final Configuration.Db db;
+    /**
+     * 驱动是否已加载
+     */
+    private volatile boolean driverLoaded;
+    /**
+     * 并发获取元数据的线程池，线程数与最大连接数一致，延迟创建
+     */
+    private volatile ExecutorService executor;
+
+    private ConnectionPool(Configuration.Db db) {
+        this.db = db;
+        this.maxSize = null == db || db.getMaxConnections() <= 0 ? DEFAULT_MAX_SIZE : db.getMaxConnections();
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * 获取全局配置的数据库对应的连接池
+     *
+     * @return 连接池
+     */
+    public static ConnectionPool getInstance() {
+        return getInstance(ConfigUtil.getConfiguration().getDb());
+    }
+
+    /**
+     * 获取数据库对应的连接池，url和用户名相同的配置共用一个连接池，最大连接数以首次获取时的配置为准
+     *
+     * @param db 数据库连接配置
+     * @return 连接池
+     */
+    public static ConnectionPool getInstance(Configuration.Db db) {
+        return POOLS.computeIfAbsent(getKey(db), k -> new ConnectionPool(db));
+    }
+
+    /**
+     * 获取最大连接数
+     *
+     * @return 最大连接数
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * 获取并发获取元数据的线程池，每个连接池一个，线程数与其最大连接数一致，空闲时回收线程
+     *
+     * @return 线程池
+     */
+    public ExecutorService getExecutor() {
+        if (null == executor) {
+            synchronized (this) {
+                if (null == executor) {
+                    AtomicInteger index = new AtomicInteger();
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(maxSize, maxSize, 30L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "generator-metadata-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 为全局配置的数据库设置外部数据源，见{@link #setDataSource(Configuration.Db, DataSource)}
+     *
+     * @param dataSource 数据源
+     */
+    public static void setDataSource(DataSource dataSource) {
+        setDataSource(ConfigUtil.getConfiguration().getDb(), dataSource);
+    }
+
+    /**
+     * 为数据库设置外部数据源，设置后对应的连接池不再自行创建连接，其他数据库的连接池不受影响
+     *
+     * @param db         数据库连接配置，url和用户名相同的配置共用同一个数据源
+     * @param dataSource 数据源，为null时恢复使用DriverManager创建连接
+     */
+    public static void setDataSource(Configuration.Db db, DataSource dataSource) {
+        ConnectionPool pool = getInstance(db);
+        pool.dataSource = dataSource;
+        pool.close();
+    }
+
+    /**
+     * 连接池的标识，由url和用户名组成
+     *
+     * @param db 数据库连接配置
+     * @return 标识
+     */
+    private static String getKey(Configuration.Db db) {
+        return null == db ? "" : db.getUrl() + "|" + db.getUsername();
+    }
+
+    /**
+     * 借出一个连接，连接数达到上限时阻塞等待，使用完毕后必须调用{@link #release(Connection)}归还
+     *
+     * @return 数据库连接
+     * @throws SQLException 创建连接失败
+     */
+    public Connection getConnection() throws SQLException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        try {
+            Connection connection;
+            while ((connection = idleConnections.pollFirst()) != null) {
+                if (!connection.isClosed()) {
+                    return connection;
+                }
+            }
+            return newConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接
+     *
+     * @param connection 数据库连接
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (null != dataSource) { // 外部数据源自行管理连接的复用
+                connection.close();
+            } else if (!connection.isClosed()) {
+                idleConnections.offerFirst(connection);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 关闭所有空闲连接
+     */
+    public void close() {
+        Connection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 创建新的数据库连接
+     *
+     * @return 数据库连接
+     * @throws SQLException SQLException
+     */
+    private Connection newConnection() throws SQLException {
+        if (null != dataSource) {
+            return dataSource.getConnection();
+        }
+        if (!driverLoaded) {
+            String driver = DataBaseFactory.getDriver(db.getUrl());
+            try {
+                if (driver != null) { // 未识别的数据库交由JDBC4的驱动自动加载机制处理
+                    Class.forName(driver);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Can not load driver for url:" + db.getUrl(), e);
+            }
+            driverLoaded = true;
+        }
+        Properties properties = new Properties();
+        properties.put("user", db.getUsername());
+        properties.put("password", db.getPassword() == null ? "" : db.getPassword());
+        properties.setProperty("remarks", "true");
+        properties.setProperty("useInformationSchema", "true");
+        properties.setProperty("nullCatalogMeansCurrent", "true");
+        return DriverManager.getConnection(db.getUrl(), properties);
+    }
+
+}
@@ -1,54 +1,67 @@
 package com.greedystar.generator.db;
 
-
-import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.ForeignKeyInfo;
 import com.greedystar.generator.invoker.base.TableInfo;
 import com.greedystar.generator.utils.ConfigUtil;
-import com.greedystar.generator.utils.StringUtil;
 
-import java.sql.*;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Properties;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
- * 数据库连接工具类
+ * 数据库连接工具类，连接从{@link ConnectionPool}中借出，用完即归还，因此可以被多个线程同时使用
+ * <p>
+ * 获取多张表的元数据时，各表的查询在独立的连接上并发执行，并发数不超过连接池的最大连接数；
+ * 具体的查询由{@link DataBaseFactory#getMetadataReader(String)}根据数据库类型选择的{@link MetadataReader}完成
  *
  * @author GreedyStar
  * @since 2018/4/19
  */
-public class ConnectionUtil {
+public class ConnectionUtil implements MetadataSource {
+    /**
+     * 数据库连接配置，为null时使用全局配置
+     */
+    private final Configuration.Db db;
+
+    public ConnectionUtil() {
+        this(null);
+    }
+
     /**
-     * 数据库连接
+     * @param db 数据库连接配置，为null时使用全局配置
      */
-    private Connection connection;
+    public ConnectionUtil(Configuration.Db db) {
+        this.db = db;
+    }
+
+    /**
+     * 获取数据库对应的连接池
+     *
+     * @return 连接池
+     */
+    private ConnectionPool getPool() {
+        return null == db ? ConnectionPool.getInstance() : ConnectionPool.getInstance(db);
+    }
 
     /**
-     * 初始化数据库连接
+     * 从连接池中获取数据库连接
      *
-     * @return 连接是否建立成功
+     * @return 数据库连接
+     * @throws Exception 连接建立失败
      */
-    public boolean initConnection() {
+    private Connection getConnection() throws Exception {
         try {
-            Class.forName(DataBaseFactory.getDriver(ConfigUtil.getConfiguration().getDb().getUrl()));
-            String url = ConfigUtil.getConfiguration().getDb().getUrl();
-            String username = ConfigUtil.getConfiguration().getDb().getUsername();
-            String password = ConfigUtil.getConfiguration().getDb().getPassword();
-            Properties properties = new Properties();
-            properties.put("user", username);
-            properties.put("password", password == null ? "" : password);
-            properties.setProperty("remarks", "true");
-            properties.setProperty("useInformationSchema", "true");
-            properties.setProperty("nullCatalogMeansCurrent", "true");
-            connection = DriverManager.getConnection(url, properties);
-            return true;
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            return getPool().getConnection();
         } catch (SQLException e) {
-            e.printStackTrace();
+            String url = (null == db ? ConfigUtil.getConfiguration().getDb() : db).getUrl();
+            throw new Exception("Failed to connect to database at url:" + url, e);
         }
-        return false;
     }
 
     /**
@@ -58,158 +71,164 @@ public class ConnectionUtil {
      * @return 包含表结构数据的列表
      * @throws Exception Exception
      */
+    @Override
     public TableInfo getTableInfo(String tableName) throws Exception {
-        if (!initConnection()) {
-            throw new Exception("Failed to connect to database at url:" + ConfigUtil.getConfiguration().getDb().getUrl());
+        Connection connection = getConnection();
+        try {
+            return getMetadataReader(connection).readTable(connection, tableName);
+        } finally {
+            getPool().release(connection);
         }
-        // 获取主键
-        String primaryKey = getPrimaryKey(tableName);
-        String tableRemark = getTableRemark(tableName);
-        // 获取列信息
-        List<ColumnInfo> columnsInfo = getColumnsInfo(tableName, primaryKey);
-        closeConnection();
-        return new TableInfo(tableName, tableRemark, columnsInfo);
     }
 
     /**
-     * 获取主键
+     * 获取多张表的表结构数据，每张表在独立的连接上并发获取
      *
-     * @param tableName 表名
-     * @return 主键名称
-     * @throws SQLException SQLException
+     * @param tableNames 表名列表
+     * @return 表结构数据列表，与表名列表一一对应
+     * @throws Exception Exception
      */
-    private String getPrimaryKey(String tableName) throws SQLException {
-        // 获取主键
-        ResultSet keyResultSet = connection.getMetaData().getPrimaryKeys(DataBaseFactory.getCatalog(connection),
-                DataBaseFactory.getSchema(connection), tableName);
-        String primaryKey = null;
-        if (keyResultSet.next()) {
-            primaryKey = keyResultSet.getObject(4).toString();
+    @Override
+    public List<TableInfo> getTableInfos(List<String> tableNames) throws Exception {
+        List<Callable<TableInfo>> calls = new ArrayList<>();
+        for (String tableName : tableNames) {
+            calls.add(() -> getTableInfo(tableName));
         }
-        keyResultSet.close();
-        return primaryKey;
+        return invokeAll(calls, getPool());
     }
 
     /**
-     * 获取表注释
+     * 批量获取表结构数据，在同一个连接中以尽量少的查询读取整个schema的元数据，
+     * 需要逐表补全的数据（如通用读取器的主键）再分摊到多个连接上并发获取
      *
-     * @param tableName 表名
-     * @return 表注释
-     * @throws SQLException SQLException
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 表结构数据列表，按表名排序
+     * @throws Exception Exception
      */
-    public String getTableRemark(String tableName) throws SQLException {
-        // 获取表注释
-        String tableRemark = null;
-        if (connection.getMetaData().getURL().contains("sqlserver")) { // SQLServer
-            tableRemark = parseSqlServerTableRemarks(tableName);
-        } else { // Oracle & MySQL
-            ResultSet tableResultSet = connection.getMetaData().getTables(DataBaseFactory.getCatalog(connection),
-                    DataBaseFactory.getSchema(connection), tableName, new String[]{"TABLE"});
-            if (tableResultSet.next()) {
-                tableRemark = StringUtil.isEmpty(tableResultSet.getString("REMARKS")) ?
-                        "Unknown" : tableResultSet.getString("REMARKS");
-            }
-            tableResultSet.close();
+    @Override
+    public List<TableInfo> getTableInfos(String tableNamePattern) throws Exception {
+        MetadataReader reader;
+        List<TableInfo> tableInfos;
+        Connection connection = getConnection();
+        try {
+            reader = getMetadataReader(connection);
+            tableInfos = reader.readTables(connection, tableNamePattern);
+        } finally {
+            getPool().release(connection);
         }
-        return tableRemark;
+        if (!reader.requiresCompletion() || tableInfos.isEmpty()) {
+            return tableInfos;
+        }
+        // 按连接数将表分组，每组复用同一个连接
+        int groups = Math.min(getPool().getMaxSize(), tableInfos.size());
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            int first = group;
+            calls.add(() -> {
+                Connection groupConnection = getConnection();
+                try {
+                    for (int index = first; index < tableInfos.size(); index += groups) {
+                        reader.completeTable(groupConnection, tableInfos.get(index));
+                    }
+                } finally {
+                    getPool().release(groupConnection);
+                }
+                return null;
+            });
+        }
+        invokeAll(calls, getPool());
+        return tableInfos;
     }
 
     /**
-     * 获取列信息
+     * 获取各表的变更标识，由对应数据库的元数据读取器通过一次系统目录查询获取
      *
-     * @param tableName 表名
-     * @param primaryKey 主键列名
-     * @return 列信息
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 表名 -> 变更标识，不支持时返回null
      * @throws Exception Exception
      */
-    private List<ColumnInfo> getColumnsInfo(String tableName, String primaryKey) throws Exception {
-        // 获取列信息
-        List<ColumnInfo> columnsInfo = new ArrayList<>();
-        ResultSet columnResultSet = connection.getMetaData().getColumns(DataBaseFactory.getCatalog(connection),
-                DataBaseFactory.getSchema(connection), tableName, "%");
-        while (columnResultSet.next()) {
-            boolean isPrimaryKey;
-            String columnName = columnResultSet.getString("COLUMN_NAME");
-            if (columnName.equals(primaryKey)) {
-                isPrimaryKey = true;
-            } else {
-                isPrimaryKey = false;
-            }
-            ColumnInfo info = new ColumnInfo(columnName, columnResultSet.getInt("DATA_TYPE"),
-                    StringUtil.isEmpty(columnResultSet.getString("REMARKS")) ? columnName : columnResultSet.getString("REMARKS"),
-                    isPrimaryKey);
-            columnsInfo.add(info);
-        }
-        columnResultSet.close();
-        if (columnsInfo.size() == 0) {
-            closeConnection();
-            throw new Exception("Can not find column information from table:" + tableName);
-        }
-        // SQLServer需要单独处理列REMARKS
-        if (connection.getMetaData().getURL().contains("sqlserver")) {
-            parseSqlServerColumnRemarks(tableName, columnsInfo);
+    @Override
+    public Map<String, String> getTableStamps(String tableNamePattern) throws Exception {
+        Connection connection = getConnection();
+        try {
+            return getMetadataReader(connection).readTableStamps(connection, tableNamePattern);
+        } finally {
+            getPool().release(connection);
         }
-        return columnsInfo;
     }
 
     /**
-     * 主动查询SqlServer指定表的注释
+     * 在一个连接上读取整个schema的外键
      *
-     * @param tableName 表名
-     * @return 表注释
-     * @throws SQLException SQLException
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 外键列表
+     * @throws Exception Exception
      */
-    private String parseSqlServerTableRemarks(String tableName) throws SQLException {
-        String tableRemarks = null;
-        String sql = "SELECT CAST(ISNULL(p.value, '') AS nvarchar(25)) AS REMARKS FROM sys.tables t " +
-                "LEFT JOIN sys.extended_properties p ON p.major_id=t.object_id AND p.minor_id=0 AND p.class=1 " +
-                "WHERE t.name = ?";
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        preparedStatement.setString(1, tableName);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while (resultSet.next()) {
-            tableRemarks = StringUtil.isEmpty(resultSet.getString("REMARKS")) ? tableName : resultSet.getString("REMARKS");
+    @Override
+    public List<ForeignKeyInfo> getForeignKeys(String tableNamePattern) throws Exception {
+        Connection connection = getConnection();
+        try {
+            return getMetadataReader(connection).readForeignKeys(connection, tableNamePattern);
+        } finally {
+            getPool().release(connection);
         }
-        resultSet.close();
-        preparedStatement.close();
-        return tableRemarks;
     }
 
     /**
-     * 主动查询SqlServer指定表的数据列的注释
+     * 使用同一个连接池的实例视为同一个元数据来源
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o != null && o.getClass() == getClass() && getPool() == ((ConnectionUtil) o).getPool();
+    }
+
+    @Override
+    public int hashCode() {
+        return getPool().hashCode();
+    }
+
+    /**
+     * 获取连接对应数据库的元数据读取器
      *
-     * @param tableName 表名
+     * @param connection 数据库连接
+     * @return 元数据读取器
      * @throws SQLException SQLException
      */
-    private void parseSqlServerColumnRemarks(String tableName, List<ColumnInfo> columnInfos) throws SQLException {
-        HashMap<String, String> map = new HashMap<>();
-        String sql = "SELECT c.name AS COLUMN_NAME, CAST(ISNULL(p.value, '') AS nvarchar(25)) AS REMARKS " +
-                "FROM sys.tables t " +
-                "INNER JOIN sys.columns c ON c.object_id = t.object_id " +
-                "LEFT JOIN sys.extended_properties p ON p.major_id = c.object_id AND p.minor_id = c.column_id " +
-                "WHERE t.name = ?";
-        PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        preparedStatement.setString(1, tableName);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        while (resultSet.next()) {
-            map.put(resultSet.getString("COLUMN_NAME"), StringUtil.isEmpty(resultSet.getString("REMARKS")) ?
-                    "Unknown" : resultSet.getString("REMARKS"));
-        }
-        for (ColumnInfo columnInfo : columnInfos) {
-            columnInfo.setRemarks(map.get(columnInfo.getColumnName()));
-        }
-        resultSet.close();
-        preparedStatement.close();
+    private MetadataReader getMetadataReader(Connection connection) throws SQLException {
+        return DataBaseFactory.getMetadataReader(DataBaseFactory.getUrl(connection));
     }
 
     /**
-     * 关闭数据库连接
-     * @throws SQLException SQLException
+     * 在元数据线程池中并发执行查询，只有一个查询时直接在当前线程执行
+     *
+     * @param calls          查询
+     * @param connectionPool 连接池，查询在其线程池中执行
+     * @param <T>            查询结果类型
+     * @return 查询结果，与查询一一对应
+     * @throws Exception 任一查询失败则抛出其异常
      */
-    public void closeConnection() throws SQLException {
-        if (!connection.isClosed()) {
-            connection.close();
+    private static <T> List<T> invokeAll(List<Callable<T>> calls, ConnectionPool connectionPool) throws Exception {
+        List<T> results = new ArrayList<>();
+        if (calls.size() <= 1) {
+            for (Callable<T> call : calls) {
+                results.add(call.call());
+            }
+            return results;
+        }
+        try {
+            for (Future<T> future : connectionPool.getExecutor().invokeAll(calls)) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("Interrupted while fetching metadata.", e);
         }
+        return results;
     }
 
 }
@@ -1,7 +1,16 @@
 package com.greedystar.generator.db;
 
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.FileUtil;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * 数据库驱动工厂类
@@ -14,6 +23,10 @@ public class DataBaseFactory {
     private final static String DRIVER_MYSQL_UPER = "com.mysql.cj.jdbc.Driver";
     private final static String DRIVER_ORACLE = "oracle.jdbc.driver.OracleDriver";
     private final static String DRIVER_SQLSERVER = "com.microsoft.sqlserver.jdbc.SQLServerDriver";
+    /**
+     * 每个连接解析出的url、catalog和schema，连接池中的连接会被反复使用，避免每次查询都重新解析
+     */
+    private final static Map<Connection, ConnectionMeta> CONNECTION_META = Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * 根据数据库连接url获取数据库驱动
@@ -38,6 +51,77 @@ public class DataBaseFactory {
         return null;
     }
 
+    /**
+     * 根据数据库连接url获取元数据读取器，MySQL、Oracle、SQLServer直接查询系统目录，其他数据库使用JDBC标准接口
+     *
+     * @param url 数据库url
+     * @return 元数据读取器
+     */
+    public static MetadataReader getMetadataReader(String url) {
+        if (url.contains("mysql")) {
+            return new MySqlMetadataReader();
+        }
+        if (url.contains("oracle")) {
+            return new OracleMetadataReader();
+        }
+        if (url.contains("sqlserver")) {
+            return new SqlServerMetadataReader();
+        }
+        return new GenericMetadataReader();
+    }
+
+    /**
+     * 根据全局配置获取元数据来源
+     *
+     * @return 元数据来源
+     */
+    public static MetadataSource getMetadataSource() {
+        return getMetadataSource(ConfigUtil.getConfiguration());
+    }
+
+    /**
+     * 根据配置获取元数据来源，配置了元数据快照时从快照读取，配置了DDL脚本时从脚本解析，否则连接数据库读取
+     *
+     * @param configuration 配置信息
+     * @return 元数据来源
+     */
+    public static MetadataSource getMetadataSource(Configuration configuration) {
+        String snapshot = configuration.getSnapshot();
+        if (!StringUtil.isEmpty(snapshot)) {
+            return new SnapshotMetadataSource(resolve(snapshot));
+        }
+        String ddl = configuration.getDdl();
+        if (!StringUtil.isEmpty(ddl)) {
+            return new DdlMetadataSource(resolve(ddl));
+        }
+        return new ConnectionUtil(configuration.getDb());
+    }
+
+    /**
+     * 解析配置的文件路径，相对路径以项目根目录为基准
+     *
+     * @param path 文件路径
+     * @return 文件
+     */
+    private static File resolve(String path) {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            file = new File(FileUtil.getProjectPath(), path);
+        }
+        return file;
+    }
+
+    /**
+     * 获取连接的url
+     *
+     * @param connection 数据库连接
+     * @return url
+     * @throws SQLException SQLException
+     */
+    public static String getUrl(Connection connection) throws SQLException {
+        return getConnectionMeta(connection).url;
+    }
+
     /**
      * 获取catalog
      *
@@ -46,7 +130,44 @@ public class DataBaseFactory {
      * @throws SQLException SQLException
      */
     public static String getCatalog(Connection connection) throws SQLException {
-        String url = connection.getMetaData().getURL();
+        return getConnectionMeta(connection).catalog;
+    }
+
+    /**
+     * 获取schema
+     *
+     * @param connection 数据库连接
+     * @return schema
+     * @throws SQLException SQLException
+     */
+    public static String getSchema(Connection connection) throws SQLException {
+        return getConnectionMeta(connection).schema;
+    }
+
+    /**
+     * 获取连接的元信息，同一连接只解析一次
+     *
+     * @param connection 数据库连接
+     * @return 连接元信息
+     * @throws SQLException SQLException
+     */
+    private static ConnectionMeta getConnectionMeta(Connection connection) throws SQLException {
+        ConnectionMeta meta = CONNECTION_META.get(connection);
+        if (meta == null) {
+            String url = connection.getMetaData().getURL();
+            meta = new ConnectionMeta(url, parseCatalog(url), parseSchema(connection, url));
+            CONNECTION_META.put(connection, meta);
+        }
+        return meta;
+    }
+
+    /**
+     * 解析catalog
+     *
+     * @param url 数据库url
+     * @return catalog
+     */
+    private static String parseCatalog(String url) {
         if (url.contains("mysql")) {
             return null;
         } else if (url.contains("oracle")) {
@@ -58,14 +179,14 @@ public class DataBaseFactory {
     }
 
     /**
-     * 获取schema
+     * 解析schema
      *
      * @param connection 数据库连接
+     * @param url        数据库url
      * @return schema
      * @throws SQLException SQLException
      */
-    public static String getSchema(Connection connection) throws SQLException {
-        String url = connection.getMetaData().getURL();
+    private static String parseSchema(Connection connection, String url) throws SQLException {
         if (url.contains("mysql")) {
             if (url.contains("?")) {
                 url = url.replace("jdbc:mysql://", "");
@@ -81,4 +202,19 @@ public class DataBaseFactory {
         return null;
     }
 
+    /**
+     * 连接元信息
+     */
+    private static class ConnectionMeta {
+        private final String url;
+        private final String catalog;
+        private final String schema;
+
+        ConnectionMeta(String url, String catalog, String schema) {
+            this.url = url;
+            this.catalog = catalog;
+            this.schema = schema;
+        }
+    }
+
 }
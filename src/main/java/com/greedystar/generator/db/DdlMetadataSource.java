@@ -0,0 +1,197 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从DDL脚本中读取表结构，无需连接数据库，目前支持MySQL方言
+ * <p>
+ * 可以指定单个SQL文件，也可以指定Flyway、Liquibase等工具的迁移脚本目录，目录下的所有.sql文件（包括子目录）
+ * 按版本号顺序依次解析，后面的脚本中重新创建或删除的表会覆盖前面的定义
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class DdlMetadataSource implements MetadataSource {
+    /**
+     * 已解析的脚本，多个执行器共享同一份解析结果，脚本修改后重新解析
+     */
+    private final static Map<String, LoadedScripts> SCRIPTS = new ConcurrentHashMap<>();
+    /**
+     * Flyway版本化脚本的文件名，如V1__init.sql、V1_1__add_column.sql、V2.1__x.sql
+     */
+    private final static Pattern VERSIONED = Pattern.compile("[Vv](\\d+(?:[._]\\d+)*)__");
+    /**
+     * 脚本文件或目录
+     */
+    private final File file;
+
+    public DdlMetadataSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public TableInfo getTableInfo(String tableName) throws Exception {
+        Map<String, TableInfo> tables = load().tables;
+        TableInfo tableInfo = tables.get(tableName);
+        if (tableInfo == null) { // MySQL在部分平台上表名不区分大小写
+            for (Map.Entry<String, TableInfo> entry : tables.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(tableName)) {
+                    return entry.getValue();
+                }
+            }
+            throw new Exception(String.format("Can not find table %s in DDL scripts %s", tableName, file.getPath()));
+        }
+        return tableInfo;
+    }
+
+    @Override
+    public List<TableInfo> getTableInfos(String tableNamePattern) throws Exception {
+        Pattern pattern = SnapshotMetadataSource.toRegex(tableNamePattern);
+        List<TableInfo> tableInfos = new ArrayList<>();
+        for (TableInfo tableInfo : load().tables.values()) {
+            if (pattern.matcher(tableInfo.getTableName()).matches()) {
+                tableInfos.add(tableInfo);
+            }
+        }
+        return tableInfos;
+    }
+
+    @Override
+    public List<ForeignKeyInfo> getForeignKeys(String tableNamePattern) throws Exception {
+        Pattern pattern = SnapshotMetadataSource.toRegex(tableNamePattern);
+        List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
+        for (Map.Entry<String, List<ForeignKeyInfo>> entry : load().foreignKeys.entrySet()) {
+            if (pattern.matcher(entry.getKey()).matches()) {
+                List<ForeignKeyInfo> tableForeignKeys = new ArrayList<>(entry.getValue());
+                tableForeignKeys.sort(Comparator.comparing(ForeignKeyInfo::getName).thenComparingInt(ForeignKeyInfo::getSequence));
+                foreignKeys.addAll(tableForeignKeys);
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * 指向同一脚本文件或目录的实例视为同一个元数据来源
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DdlMetadataSource && ((DdlMetadataSource) o).file.getAbsoluteFile().equals(file.getAbsoluteFile());
+    }
+
+    @Override
+    public int hashCode() {
+        return file.getAbsoluteFile().hashCode();
+    }
+
+    /**
+     * 加载并解析脚本，脚本未发生变化时直接返回上次的解析结果
+     *
+     * @return 解析结果
+     * @throws IOException 文件读写异常
+     */
+    private LoadedScripts load() throws IOException {
+        if (!file.exists()) {
+            throw new IOException("Can not find DDL scripts at " + file.getPath());
+        }
+        List<File> scripts = new ArrayList<>();
+        collectScripts(file, scripts);
+        scripts.sort(Comparator.comparing(File::getName, DdlMetadataSource::compareVersion).thenComparing(File::getPath));
+        // 以所有脚本的路径、大小和修改时间作为版本标识
+        StringBuilder stamp = new StringBuilder();
+        for (File script : scripts) {
+            stamp.append(script.getPath()).append(':').append(script.length()).append(':').append(script.lastModified()).append('\n');
+        }
+        String path = file.getCanonicalPath();
+        LoadedScripts loaded = SCRIPTS.get(path);
+        if (loaded == null || !loaded.stamp.equals(stamp.toString())) {
+            MySqlDdlParser parser = new MySqlDdlParser();
+            for (File script : scripts) {
+                parser.parse(new String(Files.readAllBytes(script.toPath()), StandardCharsets.UTF_8));
+            }
+            loaded = new LoadedScripts(stamp.toString(), parser.getTables(), parser.getForeignKeys());
+            SCRIPTS.put(path, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 递归查找所有.sql文件
+     *
+     * @param file    文件或目录
+     * @param scripts 查找结果
+     */
+    private static void collectScripts(File file, List<File> scripts) {
+        if (file.isFile()) {
+            scripts.add(file);
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectScripts(child, scripts);
+            } else if (child.getName().toLowerCase(Locale.ROOT).endsWith(".sql")) {
+                scripts.add(child);
+            }
+        }
+    }
+
+    /**
+     * 比较脚本文件名，Flyway风格的版本化脚本（如V1__init.sql、V1_1__add.sql、V10__x.sql）按版本号排序并排在其他脚本之前，
+     * 其他脚本按文件名排序
+     *
+     * @param a 文件名
+     * @param b 文件名
+     * @return 比较结果
+     */
+    private static int compareVersion(String a, String b) {
+        Matcher matcherA = VERSIONED.matcher(a);
+        Matcher matcherB = VERSIONED.matcher(b);
+        boolean versionedA = matcherA.lookingAt();
+        boolean versionedB = matcherB.lookingAt();
+        if (versionedA != versionedB) {
+            return versionedA ? -1 : 1;
+        }
+        if (!versionedA) {
+            return a.compareTo(b);
+        }
+        String[] partsA = matcherA.group(1).split("[._]");
+        String[] partsB = matcherB.group(1).split("[._]");
+        for (int i = 0; i < Math.min(partsA.length, partsB.length); i++) {
+            int result = new BigInteger(partsA[i]).compareTo(new BigInteger(partsB[i]));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return partsA.length != partsB.length ? Integer.compare(partsA.length, partsB.length) : a.compareTo(b);
+    }
+
+    /**
+     * 已解析的脚本
+     */
+    private static class LoadedScripts {
+        private final String stamp;
+        private final Map<String, TableInfo> tables;
+        private final Map<String, List<ForeignKeyInfo>> foreignKeys;
+
+        LoadedScripts(String stamp, Map<String, TableInfo> tables, Map<String, List<ForeignKeyInfo>> foreignKeys) {
+            this.stamp = stamp;
+            this.tables = tables;
+            this.foreignKeys = foreignKeys;
+        }
+    }
+
+}
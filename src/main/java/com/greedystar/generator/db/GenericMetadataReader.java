@@ -0,0 +1,149 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 通过JDBC标准的{@link java.sql.DatabaseMetaData}读取表元数据，用于没有专门实现的数据库
+ * <p>
+ * 批量读取时通过一次getTables和一次getColumns读取整个schema，主键只能逐表获取
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public class GenericMetadataReader implements MetadataReader {
+
+    @Override
+    public TableInfo readTable(Connection connection, String tableName) throws Exception {
+        // 获取主键
+        String primaryKey = getPrimaryKey(connection, tableName);
+        String tableRemark = getTableRemark(connection, tableName);
+        // 获取列信息
+        List<ColumnInfo> columnsInfo = getColumnsInfo(connection, tableName, primaryKey);
+        return new TableInfo(tableName, tableRemark, columnsInfo);
+    }
+
+    @Override
+    public List<TableInfo> readTables(Connection connection, String tableNamePattern) throws Exception {
+        String catalog = DataBaseFactory.getCatalog(connection);
+        String schema = DataBaseFactory.getSchema(connection);
+        // 获取表及表注释
+        Map<String, String> tableRemarks = new TreeMap<>();
+        ResultSet tableResultSet = connection.getMetaData().getTables(catalog, schema, tableNamePattern, new String[]{"TABLE"});
+        while (tableResultSet.next()) {
+            tableRemarks.put(tableResultSet.getString("TABLE_NAME"), StringUtil.isEmpty(tableResultSet.getString("REMARKS")) ?
+                    "Unknown" : tableResultSet.getString("REMARKS"));
+        }
+        tableResultSet.close();
+        // 一次性获取所有表的列信息
+        Map<String, List<ColumnInfo>> tableColumns = new HashMap<>();
+        ResultSet columnResultSet = connection.getMetaData().getColumns(catalog, schema, tableNamePattern, "%");
+        while (columnResultSet.next()) {
+            String tableName = columnResultSet.getString("TABLE_NAME");
+            if (!tableRemarks.containsKey(tableName)) { // 忽略视图等非业务表
+                continue;
+            }
+            String columnName = columnResultSet.getString("COLUMN_NAME");
+            ColumnInfo info = new ColumnInfo(columnName, columnResultSet.getInt("DATA_TYPE"),
+                    StringUtil.isEmpty(columnResultSet.getString("REMARKS")) ? columnName : columnResultSet.getString("REMARKS"),
+                    false);
+            tableColumns.computeIfAbsent(tableName, k -> new ArrayList<>()).add(info);
+        }
+        columnResultSet.close();
+        List<TableInfo> tableInfos = new ArrayList<>();
+        for (Map.Entry<String, String> entry : tableRemarks.entrySet()) {
+            List<ColumnInfo> columnsInfo = tableColumns.get(entry.getKey());
+            if (columnsInfo != null) {
+                tableInfos.add(new TableInfo(entry.getKey(), entry.getValue(), columnsInfo));
+            }
+        }
+        return tableInfos;
+    }
+
+    @Override
+    public boolean requiresCompletion() {
+        return true;
+    }
+
+    @Override
+    public void completeTable(Connection connection, TableInfo tableInfo) throws Exception {
+        String primaryKey = getPrimaryKey(connection, tableInfo.getTableName());
+        for (ColumnInfo info : tableInfo.getColumnsInfo()) {
+            info.setPrimaryKey(info.getColumnName().equals(primaryKey));
+        }
+    }
+
+    /**
+     * 获取主键
+     *
+     * @param connection 数据库连接
+     * @param tableName  表名
+     * @return 主键名称
+     * @throws SQLException SQLException
+     */
+    private String getPrimaryKey(Connection connection, String tableName) throws SQLException {
+        // 获取主键
+        ResultSet keyResultSet = connection.getMetaData().getPrimaryKeys(DataBaseFactory.getCatalog(connection),
+                DataBaseFactory.getSchema(connection), tableName);
+        String primaryKey = null;
+        if (keyResultSet.next()) {
+            primaryKey = keyResultSet.getObject(4).toString();
+        }
+        keyResultSet.close();
+        return primaryKey;
+    }
+
+    /**
+     * 获取表注释
+     *
+     * @param connection 数据库连接
+     * @param tableName  表名
+     * @return 表注释
+     * @throws SQLException SQLException
+     */
+    private String getTableRemark(Connection connection, String tableName) throws SQLException {
+        String tableRemark = null;
+        ResultSet tableResultSet = connection.getMetaData().getTables(DataBaseFactory.getCatalog(connection),
+                DataBaseFactory.getSchema(connection), tableName, new String[]{"TABLE"});
+        if (tableResultSet.next()) {
+            tableRemark = StringUtil.isEmpty(tableResultSet.getString("REMARKS")) ?
+                    "Unknown" : tableResultSet.getString("REMARKS");
+        }
+        tableResultSet.close();
+        return tableRemark;
+    }
+
+    /**
+     * 获取列信息
+     *
+     * @param connection 数据库连接
+     * @param tableName  表名
+     * @param primaryKey 主键列名
+     * @return 列信息
+     * @throws Exception Exception
+     */
+    private List<ColumnInfo> getColumnsInfo(Connection connection, String tableName, String primaryKey) throws Exception {
+        List<ColumnInfo> columnsInfo = new ArrayList<>();
+        ResultSet columnResultSet = connection.getMetaData().getColumns(DataBaseFactory.getCatalog(connection),
+                DataBaseFactory.getSchema(connection), tableName, "%");
+        while (columnResultSet.next()) {
+            String columnName = columnResultSet.getString("COLUMN_NAME");
+            ColumnInfo info = new ColumnInfo(columnName, columnResultSet.getInt("DATA_TYPE"),
+                    StringUtil.isEmpty(columnResultSet.getString("REMARKS")) ? columnName : columnResultSet.getString("REMARKS"),
+                    columnName.equals(primaryKey));
+            columnsInfo.add(info);
+        }
+        columnResultSet.close();
+        if (columnsInfo.size() == 0) {
+            throw new Exception("Can not find column information from table:" + tableName);
+        }
+        return columnsInfo;
+    }
+
+}
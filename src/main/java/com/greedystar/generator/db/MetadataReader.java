@@ -0,0 +1,107 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.*;
+
+/**
+ * 在给定连接上读取表元数据，不同数据库由{@link DataBaseFactory#getMetadataReader(String)}选择对应的实现
+ * <p>
+ * 连接的借出和归还、多表并发读取由{@link ConnectionUtil}负责，实现类本身不保存状态
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public interface MetadataReader {
+
+    /**
+     * 读取单张表的表结构数据
+     *
+     * @param connection 数据库连接
+     * @param tableName  表名
+     * @return 表结构数据
+     * @throws Exception 读取失败或表不存在则抛出异常
+     */
+    TableInfo readTable(Connection connection, String tableName) throws Exception;
+
+    /**
+     * 批量读取表结构数据，尽量以少量查询读取整个schema
+     *
+     * @param connection       数据库连接
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 表结构数据列表，按表名排序
+     * @throws Exception 读取失败则抛出异常
+     */
+    List<TableInfo> readTables(Connection connection, String tableNamePattern) throws Exception;
+
+    /**
+     * 批量读取后是否还需要逐表调用{@link #completeTable(Connection, TableInfo)}补全数据
+     *
+     * @return 是否需要逐表补全
+     */
+    default boolean requiresCompletion() {
+        return false;
+    }
+
+    /**
+     * 补全批量读取时无法一次获取的数据，如主键
+     *
+     * @param connection 数据库连接
+     * @param tableInfo  批量读取得到的表结构数据
+     * @throws Exception 读取失败则抛出异常
+     */
+    default void completeTable(Connection connection, TableInfo tableInfo) throws Exception {
+    }
+
+    /**
+     * 读取各表的变更标识，见{@link MetadataSource#getTableStamps(String)}
+     *
+     * @param connection       数据库连接
+     * @param tableNamePattern 表名匹配模式
+     * @return 表名 -> 变更标识，不支持时返回null
+     * @throws Exception 读取失败则抛出异常
+     */
+    default Map<String, String> readTableStamps(Connection connection, String tableNamePattern) throws Exception {
+        return null;
+    }
+
+    /**
+     * 读取外键，默认通过一次getTables列出所有表，再在同一连接上逐表调用getImportedKeys
+     *
+     * @param connection       数据库连接
+     * @param tableNamePattern 表名匹配模式
+     * @return 外键列表，按表名、外键名和列序号排序
+     * @throws Exception 读取失败则抛出异常
+     */
+    default List<ForeignKeyInfo> readForeignKeys(Connection connection, String tableNamePattern) throws Exception {
+        String catalog = DataBaseFactory.getCatalog(connection);
+        String schema = DataBaseFactory.getSchema(connection);
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> tableNames = new TreeSet<>();
+        try (ResultSet resultSet = metaData.getTables(catalog, schema, tableNamePattern, new String[]{"TABLE"})) {
+            while (resultSet.next()) {
+                tableNames.add(resultSet.getString("TABLE_NAME"));
+            }
+        }
+        List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
+        for (String tableName : tableNames) {
+            List<ForeignKeyInfo> importedKeys = new ArrayList<>();
+            try (ResultSet resultSet = metaData.getImportedKeys(catalog, schema, tableName)) {
+                while (resultSet.next()) {
+                    String name = resultSet.getString("FK_NAME");
+                    importedKeys.add(new ForeignKeyInfo(name == null ? tableName + "_fk_" + resultSet.getString("PKTABLE_NAME") : name,
+                            tableName, resultSet.getString("FKCOLUMN_NAME"), resultSet.getString("PKTABLE_NAME"),
+                            resultSet.getString("PKCOLUMN_NAME"), resultSet.getInt("KEY_SEQ")));
+                }
+            }
+            importedKeys.sort(Comparator.comparing(ForeignKeyInfo::getName).thenComparingInt(ForeignKeyInfo::getSequence));
+            foreignKeys.addAll(importedKeys);
+        }
+        return foreignKeys;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表元数据来源，可以是数据库连接，也可以是离线的元数据快照
+ *
+ * @author GreedyStar
+ * @since 2021/5/10
+ */
+public interface MetadataSource {
+
+    /**
+     * 获取表结构数据
+     *
+     * @param tableName 表名
+     * @return 表结构数据
+     * @throws Exception 获取元数据失败则抛出异常
+     */
+    TableInfo getTableInfo(String tableName) throws Exception;
+
+    /**
+     * 批量获取表结构数据
+     *
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 表结构数据列表，按表名排序
+     * @throws Exception 获取元数据失败则抛出异常
+     */
+    List<TableInfo> getTableInfos(String tableNamePattern) throws Exception;
+
+    /**
+     * 获取多张表的表结构数据，默认逐表获取，数据库来源会并发获取
+     *
+     * @param tableNames 表名列表
+     * @return 表结构数据列表，与表名列表一一对应
+     * @throws Exception 获取元数据失败则抛出异常
+     */
+    default List<TableInfo> getTableInfos(List<String> tableNames) throws Exception {
+        List<TableInfo> tableInfos = new ArrayList<>();
+        for (String tableName : tableNames) {
+            tableInfos.add(getTableInfo(tableName));
+        }
+        return tableInfos;
+    }
+
+    /**
+     * 获取各表的变更标识（如数据库记录的表创建、修改时间），标识发生变化的表才需要重新读取表结构，用于监听模式下低开销地发现表结构变化
+     *
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @return 表名 -> 变更标识，不支持时返回null，此时需要读取所有表的表结构进行比较
+     * @throws Exception 获取失败则抛出异常
+     */
+    default Map<String, String> getTableStamps(String tableNamePattern) throws Exception {
+        return null;
+    }
+
+    /**
+     * 批量获取外键，用于根据外键自动发现表之间的关系
+     *
+     * @param tableNamePattern 表名匹配模式，只返回匹配的表上定义的外键
+     * @return 外键列表，按表名、外键名和列序号排序，不支持时返回空列表
+     * @throws Exception 获取失败则抛出异常
+     */
+    default List<ForeignKeyInfo> getForeignKeys(String tableNamePattern) throws Exception {
+        return Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,907 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * MySQL方言的DDL解析器，从SQL脚本的CREATE TABLE语句中解析出表结构
+ * <p>
+ * 支持列定义及其COMMENT、列级和表级的PRIMARY KEY、表级的FOREIGN KEY、表的COMMENT选项、CREATE TABLE ... LIKE、DROP TABLE、
+ * RENAME TABLE，以及ALTER TABLE中的ADD/DROP/MODIFY/CHANGE/RENAME COLUMN（包括FIRST、AFTER指定的位置）、ADD/DROP PRIMARY KEY、
+ * ADD/DROP FOREIGN KEY、RENAME TO和COMMENT，因此可以按顺序解析迁移脚本；KEY、INDEX、CHECK等不影响表结构的定义会被跳过，
+ * 无法识别的ALTER TABLE子句输出警告后忽略；脚本中的其他语句（INSERT等）均被忽略。
+ * 与MySQL一致，列定义中的REFERENCES不会创建外键，未命名的外键按 表名_ibfk_序号 命名
+ * <p>
+ * 解析结果与{@link MySqlMetadataReader}从数据库中读取的结果保持一致：类型映射相同，
+ * 列注释为空时使用列名，表注释为空时使用Unknown，联合主键只标记按列名排序的第一列
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class MySqlDdlParser {
+    /**
+     * 复用MySQL元数据读取器的类型映射
+     */
+    private final static MySqlMetadataReader TYPE_MAPPING = new MySqlMetadataReader();
+    /**
+     * 不影响表结构的ALTER TABLE子句（表选项、索引、默认值等），解析时直接跳过
+     */
+    private final static Set<String> IGNORED_ALTERS = new HashSet<>(Arrays.asList("ALTER", "ALGORITHM", "LOCK", "ENGINE",
+            "DEFAULT", "CHARACTER", "CHARSET", "COLLATE", "AUTO_INCREMENT", "ROW_FORMAT", "CONVERT", "FORCE", "ORDER",
+            "ENABLE", "DISABLE", "KEY_BLOCK_SIZE", "STATS_PERSISTENT", "STATS_AUTO_RECALC", "STATS_SAMPLE_PAGES",
+            "AVG_ROW_LENGTH", "MAX_ROWS", "MIN_ROWS", "PACK_KEYS", "CHECKSUM", "COMPRESSION", "ENCRYPTION",
+            "INSERT_METHOD", "TABLESPACE", "WITH", "WITHOUT", "VALIDATION"));
+    /**
+     * 已解析的表，表名 -> 表结构数据，后面的脚本中重复定义的表覆盖前面的定义
+     */
+    private final Map<String, TableInfo> tables = new TreeMap<>();
+    /**
+     * 已解析的外键，表名 -> 该表上定义的外键
+     */
+    private final Map<String, List<ForeignKeyInfo>> foreignKeys = new TreeMap<>();
+    /**
+     * 各表的所有主键列，表名 -> 主键列，ALTER TABLE修改主键后据此重新标记主键
+     */
+    private final Map<String, SortedSet<String>> primaryKeys = new HashMap<>();
+
+    /**
+     * 解析一个SQL脚本
+     *
+     * @param sql 脚本内容
+     */
+    public void parse(String sql) {
+        List<Token> statement = new ArrayList<>();
+        for (Token token : new Lexer(sql).tokenize()) {
+            if (token.type == TokenType.DELIMITER) {
+                parseStatement(statement);
+                statement.clear();
+            } else {
+                statement.add(token);
+            }
+        }
+        parseStatement(statement);
+    }
+
+    /**
+     * 获取解析结果
+     *
+     * @return 表名 -> 表结构数据，按表名排序
+     */
+    public Map<String, TableInfo> getTables() {
+        return tables;
+    }
+
+    /**
+     * 获取解析得到的外键
+     *
+     * @return 表名 -> 该表上定义的外键，按表名排序
+     */
+    public Map<String, List<ForeignKeyInfo>> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    private void parseStatement(List<Token> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Cursor cursor = new Cursor(tokens);
+        if (cursor.acceptKeyword("CREATE")) {
+            cursor.acceptKeyword("TEMPORARY");
+            if (cursor.acceptKeyword("TABLE")) {
+                parseCreateTable(cursor);
+            }
+        } else if (cursor.acceptKeyword("DROP")) {
+            cursor.acceptKeyword("TEMPORARY");
+            if (cursor.acceptKeyword("TABLE")) {
+                if (cursor.acceptKeyword("IF")) {
+                    cursor.acceptKeyword("EXISTS");
+                }
+                do {
+                    String tableName = parseTableName(cursor);
+                    tables.remove(tableName);
+                    foreignKeys.remove(tableName);
+                    primaryKeys.remove(tableName);
+                } while (cursor.accept(","));
+            }
+        } else if (cursor.acceptKeyword("RENAME")) {
+            if (cursor.acceptKeyword("TABLE") || cursor.acceptKeyword("TABLES")) {
+                do {
+                    String tableName = parseTableName(cursor);
+                    if (cursor.acceptKeyword("TO")) {
+                        renameTable(tableName, parseTableName(cursor));
+                    }
+                } while (cursor.accept(","));
+            }
+        } else if (cursor.acceptKeyword("ALTER")) {
+            cursor.acceptKeyword("ONLINE");
+            cursor.acceptKeyword("IGNORE");
+            if (cursor.acceptKeyword("TABLE")) {
+                parseAlterTable(cursor);
+            }
+        }
+    }
+
+    /**
+     * 解析ALTER TABLE，各子句依次作用于表结构
+     *
+     * @param cursor 游标
+     */
+    private void parseAlterTable(Cursor cursor) {
+        String tableName = parseTableName(cursor);
+        if (tableName == null || !tables.containsKey(tableName)) {
+            return;
+        }
+        for (List<Token> clause : cursor.splitRemaining()) {
+            if (!clause.isEmpty()) {
+                tableName = parseAlterClause(clause, tableName);
+            }
+        }
+    }
+
+    /**
+     * 解析ALTER TABLE的一个子句
+     *
+     * @param clause    子句的所有token
+     * @param tableName 表名
+     * @return 执行子句后的表名，RENAME TO会修改表名
+     */
+    private String parseAlterClause(List<Token> clause, String tableName) {
+        String position = null;
+        if (isKeyword(clause.get(0), "ADD") || isKeyword(clause.get(0), "MODIFY") || isKeyword(clause.get(0), "CHANGE")) {
+            position = parsePosition(clause);
+        }
+        Cursor cursor = new Cursor(clause);
+        List<ColumnInfo> columns = tables.get(tableName).getColumnsInfo();
+        SortedSet<String> tablePrimaryKeys = primaryKeys.computeIfAbsent(tableName, k -> new TreeSet<>());
+        List<ForeignKeyInfo> tableForeignKeys = foreignKeys.computeIfAbsent(tableName, k -> new ArrayList<>());
+        if (cursor.acceptKeyword("ADD")) {
+            boolean column = cursor.acceptKeyword("COLUMN");
+            List<ColumnInfo> added = new ArrayList<>();
+            if (cursor.accept("(")) { // ADD [COLUMN] (列定义, ...)
+                for (List<Token> definition : cursor.splitUntilClose()) {
+                    parseDefinition(new Cursor(definition), tableName, null, added, tablePrimaryKeys, tableForeignKeys);
+                }
+            } else if (column) {
+                parseColumn(cursor, added, tablePrimaryKeys);
+            } else {
+                parseDefinition(cursor, tableName, null, added, tablePrimaryKeys, tableForeignKeys);
+            }
+            for (ColumnInfo info : added) {
+                if (indexOf(columns, info.getColumnName()) < 0) {
+                    insert(columns, info, position);
+                    position = position == null ? null : info.getColumnName(); // 多个列依次排在指定位置之后
+                }
+            }
+        } else if (cursor.peekKeyword(0, "MODIFY") || cursor.peekKeyword(0, "CHANGE")) {
+            boolean change = cursor.next().text.equalsIgnoreCase("CHANGE");
+            cursor.acceptKeyword("COLUMN");
+            String oldName = change && cursor.hasNext() ? cursor.next().text : null; // CHANGE 原列名 新列定义
+            List<ColumnInfo> changed = new ArrayList<>();
+            parseColumn(cursor, changed, tablePrimaryKeys);
+            if (changed.isEmpty()) {
+                return tableName;
+            }
+            ColumnInfo info = changed.get(0);
+            int index = indexOf(columns, oldName == null ? info.getColumnName() : oldName);
+            if (index < 0) {
+                warn(tableName, clause);
+                return tableName;
+            }
+            // MODIFY和CHANGE以新的定义替换整列，未指定位置时保持原位置
+            ColumnInfo previous = columns.remove(index);
+            if (position == null) {
+                columns.add(index, info);
+            } else {
+                insert(columns, info, position);
+            }
+            renameColumn(tableName, previous.getColumnName(), info.getColumnName());
+        } else if (cursor.acceptKeyword("DROP")) {
+            if (cursor.acceptKeyword("PRIMARY")) {
+                tablePrimaryKeys.clear();
+            } else if (cursor.acceptKeyword("FOREIGN") || cursor.acceptKeyword("CONSTRAINT")) {
+                cursor.acceptKeyword("KEY");
+                if (cursor.hasNext()) {
+                    String name = cursor.next().text;
+                    tableForeignKeys.removeIf(foreignKey -> foreignKey.getName().equalsIgnoreCase(name));
+                }
+            } else if (!cursor.acceptKeyword("INDEX") && !cursor.acceptKeyword("KEY") && !cursor.acceptKeyword("CHECK")) {
+                cursor.acceptKeyword("COLUMN");
+                int index = cursor.hasNext() ? indexOf(columns, cursor.peek().text) : -1;
+                if (index < 0) {
+                    warn(tableName, clause);
+                    return tableName;
+                }
+                String columnName = columns.remove(index).getColumnName();
+                tablePrimaryKeys.removeIf(name -> name.equalsIgnoreCase(columnName));
+                tableForeignKeys.removeIf(foreignKey -> foreignKey.getColumnName().equalsIgnoreCase(columnName));
+            }
+        } else if (cursor.acceptKeyword("RENAME")) {
+            if (cursor.acceptKeyword("COLUMN")) {
+                int index = cursor.hasNext() ? indexOf(columns, cursor.next().text) : -1;
+                if (index < 0 || !cursor.acceptKeyword("TO") || !cursor.hasNext()) {
+                    warn(tableName, clause);
+                    return tableName;
+                }
+                ColumnInfo previous = columns.get(index);
+                String columnName = cursor.next().text;
+                // 未设置注释的列以列名作为注释，改名后随之修改
+                String remarks = previous.getRemarks().equals(previous.getColumnName()) ? columnName : previous.getRemarks();
+                ColumnInfo info = new ColumnInfo(columnName, previous.getColumnType().getVendorTypeNumber(), remarks, false);
+                columns.set(index, info);
+                renameColumn(tableName, previous.getColumnName(), info.getColumnName());
+            } else if (!cursor.acceptKeyword("INDEX") && !cursor.acceptKeyword("KEY")) {
+                if (!cursor.acceptKeyword("TO")) {
+                    cursor.acceptKeyword("AS");
+                }
+                String newName = parseTableName(cursor);
+                if (newName != null) {
+                    markPrimaryKey(columns, tablePrimaryKeys);
+                    renameTable(tableName, newName);
+                    return newName;
+                }
+            }
+        } else if (cursor.acceptKeyword("COMMENT")) {
+            cursor.accept("=");
+            if (cursor.peekType() == TokenType.STRING) {
+                String tableRemark = cursor.next().text;
+                tables.get(tableName).setTableRemark(StringUtil.isEmpty(tableRemark) ? "Unknown" : tableRemark);
+            }
+        } else if (cursor.peekType() != TokenType.WORD || !IGNORED_ALTERS.contains(cursor.peek().text.toUpperCase(Locale.ROOT))) {
+            warn(tableName, clause);
+        }
+        markPrimaryKey(columns, tablePrimaryKeys);
+        if (tableForeignKeys.isEmpty()) {
+            foreignKeys.remove(tableName);
+        }
+        return tableName;
+    }
+
+    /**
+     * 解析并去除子句末尾的FIRST或AFTER 列名
+     *
+     * @param clause 子句的所有token
+     * @return 空字符串表示FIRST，其他为AFTER的列名，未指定位置时返回null
+     */
+    private String parsePosition(List<Token> clause) {
+        int size = clause.size();
+        if (size > 2 && isKeyword(clause.get(size - 1), "FIRST")) {
+            clause.remove(size - 1);
+            return "";
+        }
+        if (size > 3 && isKeyword(clause.get(size - 2), "AFTER")) {
+            String after = clause.get(size - 1).text;
+            clause.subList(size - 2, size).clear();
+            return after;
+        }
+        return null;
+    }
+
+    /**
+     * 按位置插入列
+     *
+     * @param columns  表的所有列
+     * @param info     列
+     * @param position 空字符串表示第一列，其他为AFTER的列名，为null时添加到末尾
+     */
+    private void insert(List<ColumnInfo> columns, ColumnInfo info, String position) {
+        if (position == null) {
+            columns.add(info);
+        } else if (position.isEmpty()) {
+            columns.add(0, info);
+        } else {
+            columns.add(indexOf(columns, position) + 1, info); // AFTER的列不存在时插入到第一列
+        }
+    }
+
+    /**
+     * 查找列，与MySQL一致，列名不区分大小写
+     *
+     * @param columns    表的所有列
+     * @param columnName 列名
+     * @return 列的位置，不存在时返回-1
+     */
+    private int indexOf(List<ColumnInfo> columns, String columnName) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getColumnName().equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 列名修改后同步修改主键和外键
+     *
+     * @param tableName 表名
+     * @param oldName   原列名
+     * @param newName   新列名
+     */
+    private void renameColumn(String tableName, String oldName, String newName) {
+        if (oldName.equals(newName)) {
+            return;
+        }
+        SortedSet<String> tablePrimaryKeys = primaryKeys.get(tableName);
+        if (tablePrimaryKeys != null && tablePrimaryKeys.removeIf(name -> name.equalsIgnoreCase(oldName))) {
+            tablePrimaryKeys.add(newName);
+        }
+        replaceForeignKeys(foreignKey -> new ForeignKeyInfo(foreignKey.getName(), foreignKey.getTableName(),
+                foreignKey.getTableName().equals(tableName) && foreignKey.getColumnName().equalsIgnoreCase(oldName)
+                        ? newName : foreignKey.getColumnName(),
+                foreignKey.getReferencedTableName(),
+                foreignKey.getReferencedTableName().equals(tableName) && foreignKey.getReferencedColumnName().equalsIgnoreCase(oldName)
+                        ? newName : foreignKey.getReferencedColumnName(),
+                foreignKey.getSequence()));
+    }
+
+    /**
+     * 修改表名，与MySQL一致，其他表引用该表的外键随之修改
+     *
+     * @param oldName 原表名
+     * @param newName 新表名
+     */
+    private void renameTable(String oldName, String newName) {
+        TableInfo tableInfo = oldName == null || newName == null ? null : tables.remove(oldName);
+        if (tableInfo == null) {
+            return;
+        }
+        tableInfo.setTableName(newName);
+        tables.put(newName, tableInfo);
+        SortedSet<String> tablePrimaryKeys = primaryKeys.remove(oldName);
+        if (tablePrimaryKeys != null) {
+            primaryKeys.put(newName, tablePrimaryKeys);
+        }
+        List<ForeignKeyInfo> tableForeignKeys = foreignKeys.remove(oldName);
+        if (tableForeignKeys != null) {
+            foreignKeys.put(newName, tableForeignKeys);
+        }
+        replaceForeignKeys(foreignKey -> new ForeignKeyInfo(foreignKey.getName(),
+                foreignKey.getTableName().equals(oldName) ? newName : foreignKey.getTableName(), foreignKey.getColumnName(),
+                foreignKey.getReferencedTableName().equals(oldName) ? newName : foreignKey.getReferencedTableName(),
+                foreignKey.getReferencedColumnName(), foreignKey.getSequence()));
+    }
+
+    /**
+     * 替换所有表的外键
+     *
+     * @param mapper 外键 -> 替换后的外键
+     */
+    private void replaceForeignKeys(UnaryOperator<ForeignKeyInfo> mapper) {
+        for (List<ForeignKeyInfo> tableForeignKeys : foreignKeys.values()) {
+            tableForeignKeys.replaceAll(mapper);
+        }
+    }
+
+    /**
+     * 按主键列重新标记主键，与{@link MySqlMetadataReader}一致，联合主键只标记按列名排序的第一列
+     *
+     * @param columns     表的所有列
+     * @param primaryKeys 主键列
+     */
+    private void markPrimaryKey(List<ColumnInfo> columns, SortedSet<String> primaryKeys) {
+        for (ColumnInfo info : columns) {
+            info.setPrimaryKey(!primaryKeys.isEmpty() && info.getColumnName().equals(primaryKeys.first()));
+        }
+    }
+
+    private void warn(String tableName, List<Token> clause) {
+        StringJoiner joiner = new StringJoiner(" ");
+        clause.forEach(token -> joiner.add(token.text));
+        System.err.printf("Unsupported ALTER TABLE clause on %s ignored: %s \n", tableName, joiner);
+    }
+
+    private static boolean isKeyword(Token token, String keyword) {
+        return token.type == TokenType.WORD && token.text.equalsIgnoreCase(keyword);
+    }
+
+    /**
+     * 在已读取FOREIGN关键字的前提下解析外键定义：KEY [索引名] (列, ...) REFERENCES 表 (列, ...)，ON DELETE等选项留给调用方跳过
+     *
+     * @param cursor           游标
+     * @param tableName        外键所在的表
+     * @param name             外键名，为null时自动命名
+     * @param tableForeignKeys 该表已有的外键
+     */
+    private void parseForeignKey(Cursor cursor, String tableName, String name, List<ForeignKeyInfo> tableForeignKeys) {
+        cursor.acceptKeyword("KEY");
+        while (cursor.hasNext() && !cursor.peekIs("(")) { // 跳过索引名
+            cursor.next();
+        }
+        if (!cursor.accept("(")) {
+            return;
+        }
+        List<String> columns = parseColumnList(cursor);
+        if (!cursor.acceptKeyword("REFERENCES")) {
+            return;
+        }
+        String referencedTable = parseTableName(cursor);
+        if (referencedTable == null || !cursor.accept("(")) {
+            return;
+        }
+        List<String> referencedColumns = parseColumnList(cursor);
+        if (columns.size() != referencedColumns.size()) {
+            return;
+        }
+        if (name == null) {
+            Set<String> names = new HashSet<>();
+            tableForeignKeys.forEach(foreignKey -> names.add(foreignKey.getName()));
+            name = tableName + "_ibfk_" + (names.size() + 1);
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            tableForeignKeys.add(new ForeignKeyInfo(name, tableName, columns.get(i), referencedTable, referencedColumns.get(i), i + 1));
+        }
+    }
+
+    /**
+     * 在已读取左括号的前提下解析列名列表
+     *
+     * @param cursor 游标
+     * @return 列名
+     */
+    private List<String> parseColumnList(Cursor cursor) {
+        List<String> columns = new ArrayList<>();
+        for (List<Token> part : cursor.splitUntilClose()) {
+            if (!part.isEmpty()) {
+                columns.add(part.get(0).text);
+            }
+        }
+        return columns;
+    }
+
+    private void parseCreateTable(Cursor cursor) {
+        if (cursor.acceptKeyword("IF")) {
+            cursor.acceptKeyword("NOT");
+            cursor.acceptKeyword("EXISTS");
+        }
+        String tableName = parseTableName(cursor);
+        if (tableName == null) {
+            return;
+        }
+        // CREATE TABLE t LIKE s 或 CREATE TABLE t (LIKE s)
+        boolean parenthesized = cursor.peekIs("(") && cursor.peekKeyword(1, "LIKE");
+        if (parenthesized) {
+            cursor.next();
+        }
+        if (cursor.acceptKeyword("LIKE")) {
+            TableInfo source = tables.get(parseTableName(cursor));
+            if (source != null) {
+                List<ColumnInfo> columns = new ArrayList<>();
+                for (ColumnInfo info : source.getColumnsInfo()) {
+                    ColumnInfo copy = new ColumnInfo(info.getColumnName(), info.getColumnType().getVendorTypeNumber(),
+                            info.getRemarks(), info.isPrimaryKey());
+                    columns.add(copy);
+                }
+                tables.put(tableName, new TableInfo(tableName, source.getTableRemark(), columns));
+                primaryKeys.put(tableName, new TreeSet<>(primaryKeys.getOrDefault(source.getTableName(), new TreeSet<>())));
+                foreignKeys.remove(tableName); // 与MySQL一致，LIKE不复制外键
+            }
+            return;
+        }
+        if (!cursor.accept("(")) { // CREATE TABLE ... AS SELECT，无法得到列定义
+            return;
+        }
+        List<ColumnInfo> columns = new ArrayList<>();
+        SortedSet<String> tablePrimaryKeys = new TreeSet<>();
+        List<ForeignKeyInfo> tableForeignKeys = new ArrayList<>();
+        for (List<Token> definition : cursor.splitUntilClose()) {
+            parseDefinition(new Cursor(definition), tableName, null, columns, tablePrimaryKeys, tableForeignKeys);
+        }
+        String tableRemark = null;
+        // 表选项，只关心COMMENT
+        while (cursor.hasNext()) {
+            if (cursor.acceptKeyword("COMMENT")) {
+                cursor.accept("=");
+                if (cursor.peekType() == TokenType.STRING) {
+                    tableRemark = cursor.next().text;
+                }
+            } else {
+                cursor.next();
+            }
+        }
+        if (columns.isEmpty()) {
+            return;
+        }
+        markPrimaryKey(columns, tablePrimaryKeys);
+        tables.put(tableName, new TableInfo(tableName, StringUtil.isEmpty(tableRemark) ? "Unknown" : tableRemark, columns));
+        primaryKeys.put(tableName, tablePrimaryKeys);
+        if (tableForeignKeys.isEmpty()) {
+            foreignKeys.remove(tableName);
+        } else {
+            foreignKeys.put(tableName, tableForeignKeys);
+        }
+    }
+
+    /**
+     * 解析一个列定义或表级约束
+     *
+     * @param cursor           定义的所有token
+     * @param tableName        表名
+     * @param constraintName   CONSTRAINT指定的约束名
+     * @param columns          列信息
+     * @param primaryKeys      主键列
+     * @param tableForeignKeys 外键
+     */
+    private void parseDefinition(Cursor cursor, String tableName, String constraintName, List<ColumnInfo> columns,
+                                 Set<String> primaryKeys, List<ForeignKeyInfo> tableForeignKeys) {
+        if (!cursor.hasNext()) {
+            return;
+        }
+        Token first = cursor.peek();
+        if (first.type == TokenType.WORD) {
+            String keyword = first.text.toUpperCase(Locale.ROOT);
+            if (keyword.equals("CONSTRAINT")) {
+                cursor.next();
+                String name = null;
+                if (!cursor.peekKeyword(0, "PRIMARY") && !cursor.peekKeyword(0, "FOREIGN")
+                        && !cursor.peekKeyword(0, "UNIQUE") && !cursor.peekKeyword(0, "CHECK")) {
+                    name = cursor.next().text; // 约束名
+                }
+                parseDefinition(cursor, tableName, name, columns, primaryKeys, tableForeignKeys);
+                return;
+            }
+            if (keyword.equals("PRIMARY")) {
+                cursor.next();
+                cursor.acceptKeyword("KEY");
+                while (cursor.hasNext() && !cursor.peekIs("(")) { // 跳过索引名、USING BTREE等
+                    cursor.next();
+                }
+                if (cursor.accept("(")) {
+                    for (List<Token> part : cursor.splitUntilClose()) {
+                        if (!part.isEmpty()) {
+                            primaryKeys.add(part.get(0).text);
+                        }
+                    }
+                }
+                return;
+            }
+            if (keyword.equals("FOREIGN")) {
+                cursor.next();
+                parseForeignKey(cursor, tableName, constraintName, tableForeignKeys);
+                return;
+            }
+            if (keyword.equals("KEY") || keyword.equals("INDEX") || keyword.equals("UNIQUE") || keyword.equals("FULLTEXT")
+                    || keyword.equals("SPATIAL") || keyword.equals("CHECK")) {
+                return;
+            }
+        }
+        parseColumn(cursor, columns, primaryKeys);
+    }
+
+    /**
+     * 解析列定义：列名 类型[(参数)] [UNSIGNED] [ZEROFILL] 属性...
+     *
+     * @param cursor      定义的所有token
+     * @param columns     列信息，解析出的列添加到末尾
+     * @param primaryKeys 主键列，列属性中声明了主键时添加该列
+     */
+    private void parseColumn(Cursor cursor, List<ColumnInfo> columns, Set<String> primaryKeys) {
+        if (!cursor.hasNext()) {
+            return;
+        }
+        String columnName = cursor.next().text;
+        if (!cursor.hasNext()) {
+            return;
+        }
+        StringBuilder type = new StringBuilder(cursor.next().text.toLowerCase(Locale.ROOT));
+        if (cursor.accept("(")) {
+            type.append('(');
+            String separator = "";
+            for (List<Token> argument : cursor.splitUntilClose()) {
+                type.append(separator);
+                for (Token token : argument) {
+                    type.append(token.text);
+                }
+                separator = ",";
+            }
+            type.append(')');
+        }
+        String remarks = null;
+        boolean unique = false;
+        while (cursor.hasNext()) {
+            if (cursor.acceptKeyword("UNSIGNED")) {
+                type.append(" unsigned");
+            } else if (cursor.acceptKeyword("ZEROFILL")) {
+                type.append(" zerofill");
+            } else if (cursor.acceptKeyword("COMMENT")) {
+                if (cursor.peekType() == TokenType.STRING) {
+                    remarks = cursor.next().text;
+                }
+            } else if (cursor.acceptKeyword("UNIQUE")) {
+                unique = true;
+                cursor.acceptKeyword("KEY");
+            } else if (cursor.acceptKeyword("PRIMARY")) {
+                cursor.acceptKeyword("KEY");
+                primaryKeys.add(columnName);
+            } else if (cursor.acceptKeyword("KEY")) { // 列属性中单独的KEY表示主键
+                if (!unique) {
+                    primaryKeys.add(columnName);
+                }
+            } else if (cursor.accept("(")) { // 默认值表达式、生成列表达式等
+                cursor.splitUntilClose();
+            } else {
+                cursor.next();
+            }
+        }
+        columns.add(new ColumnInfo(columnName, TYPE_MAPPING.getJdbcType(type.toString()).getVendorTypeNumber(),
+                StringUtil.isEmpty(remarks) ? columnName : remarks, false));
+    }
+
+    /**
+     * 解析表名，带schema前缀时只保留表名
+     *
+     * @param cursor 游标
+     * @return 表名
+     */
+    private String parseTableName(Cursor cursor) {
+        if (!cursor.hasNext() || cursor.peekIs("(")) {
+            return null;
+        }
+        String name = cursor.next().text;
+        while (cursor.accept(".")) {
+            if (cursor.hasNext()) {
+                name = cursor.next().text;
+            }
+        }
+        return name;
+    }
+
+    private enum TokenType {
+        /**
+         * 关键字或未加引号的标识符
+         */
+        WORD,
+        /**
+         * 反引号引用的标识符
+         */
+        QUOTED,
+        /**
+         * 字符串字面量
+         */
+        STRING,
+        /**
+         * 标点符号
+         */
+        SYMBOL,
+        /**
+         * 语句分隔符
+         */
+        DELIMITER
+    }
+
+    private static class Token {
+        private final TokenType type;
+        private final String text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 词法分析，跳过注释，支持mysql客户端的DELIMITER命令
+     */
+    private static class Lexer {
+        private final String sql;
+        private int position;
+        private String delimiter = ";";
+        private final List<Token> tokens = new ArrayList<>();
+
+        Lexer(String sql) {
+            this.sql = sql;
+        }
+
+        List<Token> tokenize() {
+            while (position < sql.length()) {
+                char c = sql.charAt(position);
+                if (Character.isWhitespace(c)) {
+                    position++;
+                } else if (sql.startsWith(delimiter, position)) {
+                    tokens.add(new Token(TokenType.DELIMITER, delimiter));
+                    position += delimiter.length();
+                } else if (c == '#' || (sql.startsWith("--", position)
+                        && (position + 2 == sql.length() || Character.isWhitespace(sql.charAt(position + 2))))) {
+                    skipLine();
+                } else if (sql.startsWith("/*", position)) {
+                    int end = sql.indexOf("*/", position + 2);
+                    position = end < 0 ? sql.length() : end + 2;
+                } else if (c == '\'' || c == '"') {
+                    tokens.add(new Token(TokenType.STRING, readQuoted(c)));
+                } else if (c == '`') {
+                    tokens.add(new Token(TokenType.QUOTED, readQuoted(c)));
+                } else if (isWordPart(c)) {
+                    int start = position;
+                    // 分隔符可能由单词字符组成（如$$），紧跟在单词之后时同样结束语句，如 END$$
+                    while (position < sql.length() && isWordPart(sql.charAt(position)) && !sql.startsWith(delimiter, position)) {
+                        position++;
+                    }
+                    String word = sql.substring(start, position);
+                    if (word.equalsIgnoreCase("DELIMITER") && isStatementStart()) {
+                        int end = sql.indexOf('\n', position);
+                        String newDelimiter = sql.substring(position, end < 0 ? sql.length() : end).trim();
+                        position = end < 0 ? sql.length() : end;
+                        if (!newDelimiter.isEmpty()) {
+                            delimiter = newDelimiter;
+                        }
+                    } else {
+                        tokens.add(new Token(TokenType.WORD, word));
+                    }
+                } else {
+                    tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+                    position++;
+                }
+            }
+            return tokens;
+        }
+
+        private boolean isStatementStart() {
+            return tokens.isEmpty() || tokens.get(tokens.size() - 1).type == TokenType.DELIMITER;
+        }
+
+        private void skipLine() {
+            int end = sql.indexOf('\n', position);
+            position = end < 0 ? sql.length() : end + 1;
+        }
+
+        /**
+         * 读取引号内的内容，支持重复引号和反斜杠转义
+         *
+         * @param quote 引号
+         * @return 内容
+         */
+        private String readQuoted(char quote) {
+            StringBuilder sb = new StringBuilder();
+            position++;
+            while (position < sql.length()) {
+                char c = sql.charAt(position++);
+                if (c == quote) {
+                    if (position < sql.length() && sql.charAt(position) == quote) {
+                        sb.append(quote);
+                        position++;
+                    } else {
+                        break;
+                    }
+                } else if (c == '\\' && quote != '`' && position < sql.length()) {
+                    char escaped = sql.charAt(position++);
+                    switch (escaped) {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case '0':
+                            sb.append('\0');
+                            break;
+                        default:
+                            sb.append(escaped);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        private static boolean isWordPart(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c > 0x7F;
+        }
+    }
+
+    /**
+     * 语句内的token游标
+     */
+    private static class Cursor {
+        private final List<Token> tokens;
+        private int index;
+
+        Cursor(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean hasNext() {
+            return index < tokens.size();
+        }
+
+        Token peek() {
+            return tokens.get(index);
+        }
+
+        TokenType peekType() {
+            return hasNext() ? peek().type : null;
+        }
+
+        Token next() {
+            return tokens.get(index++);
+        }
+
+        boolean peekIs(String symbol) {
+            return hasNext() && peek().type == TokenType.SYMBOL && peek().text.equals(symbol);
+        }
+
+        boolean peekKeyword(int offset, String keyword) {
+            int i = index + offset;
+            return i < tokens.size() && tokens.get(i).type == TokenType.WORD && tokens.get(i).text.equalsIgnoreCase(keyword);
+        }
+
+        boolean accept(String symbol) {
+            if (peekIs(symbol)) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean acceptKeyword(String keyword) {
+            if (peekKeyword(0, keyword)) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 将剩余的token按最外层的逗号拆分，用于逐个处理ALTER TABLE的各个子句
+         *
+         * @return 拆分后的各部分
+         */
+        List<List<Token>> splitRemaining() {
+            List<List<Token>> parts = new ArrayList<>();
+            List<Token> part = new ArrayList<>();
+            int depth = 0;
+            while (hasNext()) {
+                Token token = next();
+                if (token.type == TokenType.SYMBOL) {
+                    if (token.text.equals("(")) {
+                        depth++;
+                    } else if (token.text.equals(")")) {
+                        depth--;
+                    } else if (token.text.equals(",") && depth == 0) {
+                        parts.add(part);
+                        part = new ArrayList<>();
+                        continue;
+                    }
+                }
+                part.add(token);
+            }
+            parts.add(part);
+            return parts;
+        }
+
+        /**
+         * 在已读取左括号的前提下，读取到匹配的右括号为止，按最外层的逗号拆分
+         *
+         * @return 拆分后的各部分
+         */
+        List<List<Token>> splitUntilClose() {
+            List<List<Token>> parts = new ArrayList<>();
+            List<Token> part = new ArrayList<>();
+            int depth = 1;
+            while (hasNext()) {
+                Token token = next();
+                if (token.type == TokenType.SYMBOL) {
+                    if (token.text.equals("(")) {
+                        depth++;
+                    } else if (token.text.equals(")") && --depth == 0) {
+                        break;
+                    } else if (token.text.equals(",") && depth == 1) {
+                        parts.add(part);
+                        part = new ArrayList<>();
+                        continue;
+                    }
+                }
+                part.add(token);
+            }
+            parts.add(part);
+            return parts;
+        }
+    }
+
+}
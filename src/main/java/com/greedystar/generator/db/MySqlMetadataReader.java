@@ -0,0 +1,125 @@
+package com.greedystar.generator.db;
+
+import java.sql.JDBCType;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MySQL元数据读取器，通过information_schema一次读取整个schema的列、主键和注释
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public class MySqlMetadataReader extends AbstractCatalogMetadataReader {
+    /**
+     * 类型名 -> JDBC类型，与MySQL Connector/J的类型映射一致
+     */
+    private final static Map<String, JDBCType> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put("bit", JDBCType.BIT);
+        TYPES.put("bool", JDBCType.BIT);
+        TYPES.put("boolean", JDBCType.BIT);
+        TYPES.put("tinyint", JDBCType.TINYINT);
+        TYPES.put("smallint", JDBCType.SMALLINT);
+        TYPES.put("mediumint", JDBCType.INTEGER);
+        TYPES.put("int", JDBCType.INTEGER);
+        TYPES.put("integer", JDBCType.INTEGER);
+        TYPES.put("bigint", JDBCType.BIGINT);
+        TYPES.put("float", JDBCType.REAL);
+        TYPES.put("double", JDBCType.DOUBLE);
+        TYPES.put("real", JDBCType.DOUBLE);
+        TYPES.put("decimal", JDBCType.DECIMAL);
+        TYPES.put("numeric", JDBCType.DECIMAL);
+        TYPES.put("date", JDBCType.DATE);
+        TYPES.put("year", JDBCType.DATE);
+        TYPES.put("time", JDBCType.TIME);
+        TYPES.put("datetime", JDBCType.TIMESTAMP);
+        TYPES.put("timestamp", JDBCType.TIMESTAMP);
+        TYPES.put("char", JDBCType.CHAR);
+        TYPES.put("enum", JDBCType.CHAR);
+        TYPES.put("set", JDBCType.CHAR);
+        TYPES.put("varchar", JDBCType.VARCHAR);
+        TYPES.put("tinytext", JDBCType.VARCHAR);
+        TYPES.put("text", JDBCType.LONGVARCHAR);
+        TYPES.put("mediumtext", JDBCType.LONGVARCHAR);
+        TYPES.put("longtext", JDBCType.LONGVARCHAR);
+        TYPES.put("json", JDBCType.LONGVARCHAR);
+        TYPES.put("binary", JDBCType.BINARY);
+        TYPES.put("varbinary", JDBCType.VARBINARY);
+        TYPES.put("tinyblob", JDBCType.VARBINARY);
+        TYPES.put("blob", JDBCType.LONGVARBINARY);
+        TYPES.put("mediumblob", JDBCType.LONGVARBINARY);
+        TYPES.put("longblob", JDBCType.LONGVARBINARY);
+        TYPES.put("geometry", JDBCType.BINARY);
+    }
+
+    @Override
+    protected String getColumnsSql(String tableCondition) {
+        return "SELECT c.TABLE_NAME, t.TABLE_COMMENT AS TABLE_REMARKS, c.COLUMN_NAME, c.COLUMN_TYPE AS TYPE_NAME, " +
+                "c.COLUMN_COMMENT AS COLUMN_REMARKS, CASE WHEN c.COLUMN_KEY = 'PRI' THEN 1 ELSE 0 END AS PRIMARY_KEY " +
+                "FROM information_schema.COLUMNS c " +
+                "INNER JOIN information_schema.TABLES t ON t.TABLE_SCHEMA = c.TABLE_SCHEMA AND t.TABLE_NAME = c.TABLE_NAME " +
+                "WHERE c.TABLE_SCHEMA = COALESCE(?, DATABASE()) AND t.TABLE_TYPE = 'BASE TABLE' AND c.TABLE_NAME " + tableCondition +
+                " ORDER BY c.TABLE_NAME, c.ORDINAL_POSITION";
+    }
+
+    @Override
+    protected String getForeignKeysSql(String tableCondition) {
+        return "SELECT CONSTRAINT_NAME AS FK_NAME, TABLE_NAME, COLUMN_NAME, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME, " +
+                "ORDINAL_POSITION AS KEY_SEQ " +
+                "FROM information_schema.KEY_COLUMN_USAGE " +
+                "WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND REFERENCED_TABLE_SCHEMA = TABLE_SCHEMA " +
+                "AND REFERENCED_TABLE_NAME IS NOT NULL AND TABLE_NAME " + tableCondition + " " +
+                "ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION";
+    }
+
+    /**
+     * 由各列的位置、列名、类型、键和注释计算摘要，不使用TABLES的CREATE_TIME/UPDATE_TIME：MySQL 8中二者是缓存的统计信息
+     * （information_schema_stats_expiry，默认86400秒），修改列注释、INSTANT ADD COLUMN等只修改元数据的DDL也可能不更新；
+     * 不使用GROUP_CONCAT以免超过group_concat_max_len被截断。索引变化同样会改变COLUMN_KEY，只会导致多读取一次表结构
+     */
+    @Override
+    protected String getStampsSql(String tableCondition) {
+        return "SELECT c.TABLE_NAME, CONCAT_WS('/', COUNT(*), SUM(CRC32(CONCAT_WS(':', c.ORDINAL_POSITION, c.COLUMN_NAME, " +
+                "c.COLUMN_TYPE, c.COLUMN_KEY, c.COLUMN_COMMENT))), SUM(CRC32(CONCAT_WS(':', c.COLUMN_COMMENT, c.COLUMN_KEY, " +
+                "c.COLUMN_TYPE, c.COLUMN_NAME, c.ORDINAL_POSITION))), t.TABLE_COMMENT) AS STAMP " +
+                "FROM information_schema.COLUMNS c " +
+                "INNER JOIN information_schema.TABLES t ON t.TABLE_SCHEMA = c.TABLE_SCHEMA AND t.TABLE_NAME = c.TABLE_NAME " +
+                "WHERE c.TABLE_SCHEMA = COALESCE(?, DATABASE()) AND t.TABLE_TYPE = 'BASE TABLE' AND c.TABLE_NAME " + tableCondition +
+                " GROUP BY c.TABLE_NAME, t.TABLE_COMMENT";
+    }
+
+    /**
+     * MySQL的字符串默认以反斜杠转义，LIKE无需再声明转义字符
+     *
+     * @return 表名匹配条件
+     */
+    @Override
+    protected String getLikeCondition() {
+        return "LIKE ?";
+    }
+
+    /**
+     * 根据COLUMN_TYPE（如 int(11) unsigned、tinyint(1)）确定JDBC类型，驱动默认将tinyint(1)视为BIT
+     *
+     * @param typeName 列类型
+     * @return JDBC类型
+     */
+    @Override
+    protected JDBCType getJdbcType(String typeName) {
+        String type = typeName.toLowerCase(Locale.ROOT).trim();
+        if (type.startsWith("tinyint(1)")) {
+            return JDBCType.BIT;
+        }
+        int end = type.length();
+        for (char c : new char[]{'(', ' '}) {
+            if (type.indexOf(c) >= 0) {
+                end = Math.min(end, type.indexOf(c));
+            }
+        }
+        return TYPES.getOrDefault(type.substring(0, end), JDBCType.OTHER);
+    }
+
+}
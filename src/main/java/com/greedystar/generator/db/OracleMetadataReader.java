@@ -0,0 +1,92 @@
+package com.greedystar.generator.db;
+
+import java.sql.JDBCType;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Oracle元数据读取器，通过ALL_TAB_COLUMNS、ALL_COL_COMMENTS等数据字典视图一次读取整个schema的列、主键和注释，
+ * 避免Oracle驱动在开启remarks时逐表读取注释的性能问题
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public class OracleMetadataReader extends AbstractCatalogMetadataReader {
+    /**
+     * 类型名 -> JDBC类型，与Oracle驱动getColumns返回的DATA_TYPE一致
+     */
+    private final static Map<String, JDBCType> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put("CHAR", JDBCType.CHAR);
+        TYPES.put("NCHAR", JDBCType.NCHAR);
+        TYPES.put("VARCHAR2", JDBCType.VARCHAR);
+        TYPES.put("VARCHAR", JDBCType.VARCHAR);
+        TYPES.put("NVARCHAR2", JDBCType.NVARCHAR);
+        TYPES.put("LONG", JDBCType.LONGVARCHAR);
+        TYPES.put("NUMBER", JDBCType.DECIMAL);
+        TYPES.put("FLOAT", JDBCType.FLOAT);
+        TYPES.put("BINARY_FLOAT", JDBCType.REAL);
+        TYPES.put("BINARY_DOUBLE", JDBCType.DOUBLE);
+        TYPES.put("DATE", JDBCType.TIMESTAMP);
+        TYPES.put("RAW", JDBCType.VARBINARY);
+        TYPES.put("LONG RAW", JDBCType.LONGVARBINARY);
+        TYPES.put("BLOB", JDBCType.BLOB);
+        TYPES.put("CLOB", JDBCType.CLOB);
+        TYPES.put("NCLOB", JDBCType.NCLOB);
+        TYPES.put("ROWID", JDBCType.ROWID);
+        TYPES.put("XMLTYPE", JDBCType.SQLXML);
+    }
+
+    @Override
+    protected String getColumnsSql(String tableCondition) {
+        return "SELECT c.TABLE_NAME, tc.COMMENTS AS TABLE_REMARKS, c.COLUMN_NAME, c.DATA_TYPE AS TYPE_NAME, " +
+                "cc.COMMENTS AS COLUMN_REMARKS, CASE WHEN pk.COLUMN_NAME IS NULL THEN 0 ELSE 1 END AS PRIMARY_KEY " +
+                "FROM ALL_TAB_COLUMNS c " +
+                "INNER JOIN ALL_TABLES t ON t.OWNER = c.OWNER AND t.TABLE_NAME = c.TABLE_NAME " +
+                "LEFT JOIN ALL_TAB_COMMENTS tc ON tc.OWNER = c.OWNER AND tc.TABLE_NAME = c.TABLE_NAME " +
+                "LEFT JOIN ALL_COL_COMMENTS cc ON cc.OWNER = c.OWNER AND cc.TABLE_NAME = c.TABLE_NAME AND cc.COLUMN_NAME = c.COLUMN_NAME " +
+                "LEFT JOIN (SELECT acc.OWNER, acc.TABLE_NAME, acc.COLUMN_NAME FROM ALL_CONSTRAINTS ac " +
+                "INNER JOIN ALL_CONS_COLUMNS acc ON acc.OWNER = ac.OWNER AND acc.CONSTRAINT_NAME = ac.CONSTRAINT_NAME " +
+                "WHERE ac.CONSTRAINT_TYPE = 'P') pk " +
+                "ON pk.OWNER = c.OWNER AND pk.TABLE_NAME = c.TABLE_NAME AND pk.COLUMN_NAME = c.COLUMN_NAME " +
+                "WHERE c.OWNER = ? AND c.TABLE_NAME " + tableCondition +
+                " ORDER BY c.TABLE_NAME, c.COLUMN_ID";
+    }
+
+    @Override
+    protected String getForeignKeysSql(String tableCondition) {
+        return "SELECT c.CONSTRAINT_NAME AS FK_NAME, c.TABLE_NAME, cc.COLUMN_NAME, r.TABLE_NAME AS REFERENCED_TABLE_NAME, " +
+                "rc.COLUMN_NAME AS REFERENCED_COLUMN_NAME, cc.POSITION AS KEY_SEQ " +
+                "FROM ALL_CONSTRAINTS c " +
+                "INNER JOIN ALL_CONS_COLUMNS cc ON cc.OWNER = c.OWNER AND cc.CONSTRAINT_NAME = c.CONSTRAINT_NAME " +
+                "INNER JOIN ALL_CONSTRAINTS r ON r.OWNER = c.R_OWNER AND r.CONSTRAINT_NAME = c.R_CONSTRAINT_NAME " +
+                "INNER JOIN ALL_CONS_COLUMNS rc ON rc.OWNER = r.OWNER AND rc.CONSTRAINT_NAME = r.CONSTRAINT_NAME " +
+                "AND rc.POSITION = cc.POSITION " +
+                "WHERE c.OWNER = ? AND c.CONSTRAINT_TYPE = 'R' AND r.OWNER = c.OWNER AND c.TABLE_NAME " + tableCondition + " " +
+                "ORDER BY c.TABLE_NAME, c.CONSTRAINT_NAME, cc.POSITION";
+    }
+
+    /**
+     * LAST_DDL_TIME在ALTER TABLE、COMMENT ON等DDL语句执行后更新
+     */
+    @Override
+    protected String getStampsSql(String tableCondition) {
+        return "SELECT OBJECT_NAME AS TABLE_NAME, TO_CHAR(LAST_DDL_TIME, 'YYYY-MM-DD HH24:MI:SS') AS STAMP " +
+                "FROM ALL_OBJECTS WHERE OWNER = ? AND OBJECT_TYPE = 'TABLE' AND OBJECT_NAME " + tableCondition;
+    }
+
+    @Override
+    protected JDBCType getJdbcType(String typeName) {
+        String type = typeName.toUpperCase(Locale.ROOT).trim();
+        if (type.startsWith("TIMESTAMP")) {
+            if (type.endsWith("WITH LOCAL TIME ZONE")) {
+                return JDBCType.TIMESTAMP;
+            }
+            return type.endsWith("WITH TIME ZONE") ? JDBCType.TIMESTAMP_WITH_TIMEZONE : JDBCType.TIMESTAMP;
+        }
+        return TYPES.getOrDefault(type, JDBCType.OTHER);
+    }
+
+}
@@ -0,0 +1,361 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.util.*;
+
+/**
+ * 两份表结构之间的列级差异，如两个元数据快照之间、数据库与上一次导出的快照之间
+ * <p>
+ * 比较列名、JDBC类型、列注释和是否主键：列名在两侧都存在时依次检查类型、主键和注释的变化；
+ * 只在一侧存在的列中，位置相同且类型、主键相同的一对列视为重命名，其余为新增或删除；
+ * 两侧都存在的列相对顺序发生变化时记为顺序变化。任务据此判断其生成的文件是否受影响，见AbstractTask#isAffectedBy
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class SchemaDiff {
+    /**
+     * 表名 -> 该表的差异，只包含发生变化的表
+     */
+    private final Map<String, TableDiff> tableDiffs;
+
+    private SchemaDiff(Map<String, TableDiff> tableDiffs) {
+        this.tableDiffs = Collections.unmodifiableMap(tableDiffs);
+    }
+
+    /**
+     * 比较两个元数据来源中匹配的表
+     *
+     * @param from             原表结构的来源，如上一次导出的快照
+     * @param to               新表结构的来源
+     * @param tableNamePattern 表名匹配模式
+     * @return 差异
+     * @throws Exception 获取元数据失败
+     */
+    public static SchemaDiff compare(MetadataSource from, MetadataSource to, String tableNamePattern) throws Exception {
+        return compare(from.getTableInfos(tableNamePattern), to.getTableInfos(tableNamePattern));
+    }
+
+    /**
+     * 比较两份表结构
+     *
+     * @param from 原表结构
+     * @param to   新表结构
+     * @return 差异
+     */
+    public static SchemaDiff compare(Collection<TableInfo> from, Collection<TableInfo> to) {
+        Map<String, TableInfo> fromTables = new TreeMap<>();
+        from.forEach(info -> fromTables.put(info.getTableName(), info));
+        Map<String, TableInfo> toTables = new TreeMap<>();
+        to.forEach(info -> toTables.put(info.getTableName(), info));
+        Set<String> tableNames = new TreeSet<>(fromTables.keySet());
+        tableNames.addAll(toTables.keySet());
+        Map<String, TableDiff> tableDiffs = new LinkedHashMap<>();
+        for (String tableName : tableNames) {
+            TableDiff diff = new TableDiff(tableName, fromTables.get(tableName), toTables.get(tableName));
+            if (diff.isChanged()) {
+                tableDiffs.put(tableName, diff);
+            }
+        }
+        return new SchemaDiff(tableDiffs);
+    }
+
+    /**
+     * 获取发生变化的表
+     *
+     * @return 表名 -> 该表的差异，按表名排序
+     */
+    public Map<String, TableDiff> getTableDiffs() {
+        return tableDiffs;
+    }
+
+    /**
+     * 获取表的差异
+     *
+     * @param tableName 表名
+     * @return 差异，表未发生变化时返回null
+     */
+    public TableDiff getTableDiff(String tableName) {
+        return tableDiffs.get(tableName);
+    }
+
+    public boolean isEmpty() {
+        return tableDiffs.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (tableDiffs.isEmpty()) {
+            return "No schema changes";
+        }
+        StringBuilder sb = new StringBuilder();
+        tableDiffs.values().forEach(diff -> sb.append(diff).append('\n'));
+        return sb.toString();
+    }
+
+    /**
+     * 列的变化类型
+     */
+    public enum ChangeType {
+        /**
+         * 新增列
+         */
+        ADDED,
+        /**
+         * 删除列
+         */
+        DROPPED,
+        /**
+         * JDBC类型变化
+         */
+        RETYPED,
+        /**
+         * 列名变化
+         */
+        RENAMED,
+        /**
+         * 主键变化
+         */
+        KEY_CHANGED,
+        /**
+         * 列注释变化
+         */
+        REMARKS_CHANGED
+    }
+
+    /**
+     * 单列的一项变化，同一列可以同时有多项变化（如类型和注释都发生变化）
+     */
+    public static class ColumnChange {
+        private final ChangeType type;
+        /**
+         * 原列，新增列为null
+         */
+        private final ColumnInfo from;
+        /**
+         * 新列，删除列为null
+         */
+        private final ColumnInfo to;
+
+        ColumnChange(ChangeType type, ColumnInfo from, ColumnInfo to) {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public ColumnInfo getFrom() {
+            return from;
+        }
+
+        public ColumnInfo getTo() {
+            return to;
+        }
+
+        @Override
+        public String toString() {
+            switch (type) {
+                case ADDED:
+                    return "+" + to.getColumnName();
+                case DROPPED:
+                    return "-" + from.getColumnName();
+                case RETYPED:
+                    return to.getColumnName() + " " + from.getColumnType() + "->" + to.getColumnType();
+                case RENAMED:
+                    return from.getColumnName() + "->" + to.getColumnName();
+                case KEY_CHANGED:
+                    return to.getColumnName() + (to.isPrimaryKey() ? " +primary key" : " -primary key");
+                default:
+                    return to.getColumnName() + " remarks";
+            }
+        }
+    }
+
+    /**
+     * 单张表的差异
+     */
+    public static class TableDiff {
+        private final String tableName;
+        /**
+         * 原表结构，新增表为null
+         */
+        private final TableInfo from;
+        /**
+         * 新表结构，删除表为null
+         */
+        private final TableInfo to;
+        /**
+         * 列的变化，按新表中列的顺序排列，删除的列在最后
+         */
+        private final List<ColumnChange> changes = new ArrayList<>();
+        /**
+         * 表注释是否变化
+         */
+        private boolean remarkChanged;
+        /**
+         * 两侧都存在的列的相对顺序是否变化
+         */
+        private boolean reordered;
+
+        TableDiff(String tableName, TableInfo from, TableInfo to) {
+            this.tableName = tableName;
+            this.from = from;
+            this.to = to;
+            if (from != null && to != null) {
+                compareColumns();
+            }
+        }
+
+        private void compareColumns() {
+            remarkChanged = !Objects.equals(from.getTableRemark(), to.getTableRemark());
+            List<ColumnInfo> fromColumns = from.getColumnsInfo();
+            List<ColumnInfo> toColumns = to.getColumnsInfo();
+            Map<String, ColumnInfo> fromByName = new HashMap<>();
+            fromColumns.forEach(column -> fromByName.put(column.getColumnName(), column));
+            Set<String> toNames = new HashSet<>();
+            toColumns.forEach(column -> toNames.add(column.getColumnName()));
+            // 两侧都存在的列在原表中的顺序
+            List<String> commonOrder = new ArrayList<>();
+            for (ColumnInfo column : fromColumns) {
+                if (toNames.contains(column.getColumnName())) {
+                    commonOrder.add(column.getColumnName());
+                }
+            }
+            int common = 0;
+            for (int index = 0; index < toColumns.size(); index++) {
+                ColumnInfo column = toColumns.get(index);
+                ColumnInfo previous = fromByName.get(column.getColumnName());
+                if (previous == null) {
+                    previous = getRenamed(index, column, toNames);
+                    if (previous == null) {
+                        changes.add(new ColumnChange(ChangeType.ADDED, null, column));
+                        continue;
+                    }
+                    changes.add(new ColumnChange(ChangeType.RENAMED, previous, column));
+                } else if (!commonOrder.get(common++).equals(column.getColumnName())) {
+                    reordered = true;
+                }
+                if (previous.getColumnType() != column.getColumnType()) {
+                    changes.add(new ColumnChange(ChangeType.RETYPED, previous, column));
+                }
+                if (previous.isPrimaryKey() != column.isPrimaryKey()) {
+                    changes.add(new ColumnChange(ChangeType.KEY_CHANGED, previous, column));
+                }
+                if (!Objects.equals(previous.getRemarks(), column.getRemarks())) {
+                    changes.add(new ColumnChange(ChangeType.REMARKS_CHANGED, previous, column));
+                }
+            }
+            Set<ColumnInfo> renamed = new HashSet<>();
+            changes.stream().filter(change -> change.getType() == ChangeType.RENAMED).forEach(change -> renamed.add(change.getFrom()));
+            for (ColumnInfo column : fromColumns) {
+                if (!toNames.contains(column.getColumnName()) && !renamed.contains(column)) {
+                    changes.add(new ColumnChange(ChangeType.DROPPED, column, null));
+                }
+            }
+        }
+
+        /**
+         * 查找被重命名为新列的原列：原表同一位置上的列在新表中已不存在，且类型和主键相同
+         *
+         * @param index   新列的位置
+         * @param column  新列
+         * @param toNames 新表的所有列名
+         * @return 原列，不是重命名时返回null
+         */
+        private ColumnInfo getRenamed(int index, ColumnInfo column, Set<String> toNames) {
+            List<ColumnInfo> fromColumns = from.getColumnsInfo();
+            if (index >= fromColumns.size()) {
+                return null;
+            }
+            ColumnInfo candidate = fromColumns.get(index);
+            if (toNames.contains(candidate.getColumnName()) || candidate.getColumnType() != column.getColumnType()
+                    || candidate.isPrimaryKey() != column.isPrimaryKey()) {
+                return null;
+            }
+            return candidate;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public TableInfo getFrom() {
+            return from;
+        }
+
+        public TableInfo getTo() {
+            return to;
+        }
+
+        public List<ColumnChange> getChanges() {
+            return changes;
+        }
+
+        public boolean isAdded() {
+            return from == null;
+        }
+
+        public boolean isDropped() {
+            return to == null;
+        }
+
+        public boolean isRemarkChanged() {
+            return remarkChanged;
+        }
+
+        public boolean isReordered() {
+            return reordered;
+        }
+
+        /**
+         * 表是否发生变化
+         *
+         * @return 是否变化
+         */
+        public boolean isChanged() {
+            return isAdded() || isDropped() || remarkChanged || reordered || !changes.isEmpty();
+        }
+
+        /**
+         * 是否只有表注释或列注释发生变化
+         *
+         * @return 是否只有注释变化
+         */
+        public boolean isRemarksOnly() {
+            if (isAdded() || isDropped() || reordered) {
+                return false;
+            }
+            for (ColumnChange change : changes) {
+                if (change.getType() != ChangeType.REMARKS_CHANGED) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            if (isAdded()) {
+                return tableName + ": added";
+            }
+            if (isDropped()) {
+                return tableName + ": dropped";
+            }
+            StringJoiner joiner = new StringJoiner(", ", tableName + ": ", "");
+            changes.forEach(change -> joiner.add(change.toString()));
+            if (remarkChanged) {
+                joiner.add("table remarks");
+            }
+            if (reordered) {
+                joiner.add("column order");
+            }
+            return joiner.toString();
+        }
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 表元数据快照，以紧凑的二进制格式保存整个schema的表结构，读取时通过内存映射加载，无需连接数据库
+ * <p>
+ * 文件格式（大端序）：
+ * <pre>
+ * int    魔数 "GSNP"
+ * int    格式版本
+ * long   快照创建时间（毫秒）
+ * int    表数量
+ *   string 表名
+ *   string 表注释
+ *   int    列数量
+ *     string 列名
+ *     int    JDBC类型
+ *     string 列注释
+ *     byte   是否主键
+ * int    外键列数量（版本2起）
+ *   string 外键名
+ *   string 外键所在的表
+ *   string 外键列名
+ *   string 引用的表
+ *   string 引用的列
+ *   int    在联合外键中的序号
+ * </pre>
+ * string以int长度加UTF-8字节表示，长度为-1表示null；版本1的快照没有记录外键，仍可读取
+ *
+ * @author GreedyStar
+ * @since 2021/5/10
+ */
+public class SchemaSnapshot {
+    /**
+     * 魔数 "GSNP"
+     */
+    private final static int MAGIC = 0x47534E50;
+    /**
+     * 当前格式版本
+     */
+    public final static int VERSION = 2;
+    /**
+     * 快照创建时间
+     */
+    private final long createdAt;
+    /**
+     * 表结构数据
+     */
+    private final List<TableInfo> tableInfos;
+    /**
+     * 外键，版本1的快照为null
+     */
+    private final List<ForeignKeyInfo> foreignKeys;
+
+    public SchemaSnapshot(long createdAt, List<TableInfo> tableInfos) {
+        this(createdAt, tableInfos, Collections.emptyList());
+    }
+
+    public SchemaSnapshot(long createdAt, List<TableInfo> tableInfos, List<ForeignKeyInfo> foreignKeys) {
+        this.createdAt = createdAt;
+        this.tableInfos = Collections.unmodifiableList(tableInfos);
+        this.foreignKeys = foreignKeys == null ? null : Collections.unmodifiableList(foreignKeys);
+    }
+
+    /**
+     * 导出元数据快照
+     *
+     * @param source           元数据来源
+     * @param tableNamePattern 表名匹配模式
+     * @param file             快照文件
+     * @throws Exception 获取元数据或写入文件失败
+     */
+    public static void export(MetadataSource source, String tableNamePattern, File file) throws Exception {
+        List<TableInfo> tableInfos = source.getTableInfos(tableNamePattern);
+        List<ForeignKeyInfo> foreignKeys = source.getForeignKeys(tableNamePattern);
+        new SchemaSnapshot(System.currentTimeMillis(), tableInfos, foreignKeys).write(file);
+        System.out.printf("Exported %d tables and %d foreign key columns to %s \n", tableInfos.size(), foreignKeys.size(), file.getPath());
+    }
+
+    /**
+     * 写入快照文件
+     *
+     * @param file 快照文件
+     * @throws IOException 文件读写异常
+     */
+    public void write(File file) throws IOException {
+        if (file.getParentFile() != null && !file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(createdAt);
+            out.writeInt(tableInfos.size());
+            for (TableInfo tableInfo : tableInfos) {
+                writeString(out, tableInfo.getTableName());
+                writeString(out, tableInfo.getTableRemark());
+                out.writeInt(tableInfo.getColumnsInfo().size());
+                for (ColumnInfo columnInfo : tableInfo.getColumnsInfo()) {
+                    writeString(out, columnInfo.getColumnName());
+                    out.writeInt(columnInfo.getColumnType().getVendorTypeNumber());
+                    writeString(out, columnInfo.getRemarks());
+                    out.writeByte(columnInfo.isPrimaryKey() ? 1 : 0);
+                }
+            }
+            List<ForeignKeyInfo> foreignKeys = this.foreignKeys == null ? Collections.emptyList() : this.foreignKeys;
+            out.writeInt(foreignKeys.size());
+            for (ForeignKeyInfo foreignKey : foreignKeys) {
+                writeString(out, foreignKey.getName());
+                writeString(out, foreignKey.getTableName());
+                writeString(out, foreignKey.getColumnName());
+                writeString(out, foreignKey.getReferencedTableName());
+                writeString(out, foreignKey.getReferencedColumnName());
+                out.writeInt(foreignKey.getSequence());
+            }
+        }
+    }
+
+    /**
+     * 读取快照文件
+     *
+     * @param file 快照文件
+     * @return 快照
+     * @throws IOException 文件读写异常或格式错误
+     */
+    public static SchemaSnapshot read(File file) throws IOException {
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException(file.getPath() + " is not a schema snapshot.");
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException(String.format("Unsupported snapshot version %d in %s, expected %d.", version, file.getPath(), VERSION));
+            }
+            long createdAt = buffer.getLong();
+            int tableCount = buffer.getInt();
+            List<TableInfo> tableInfos = new ArrayList<>(tableCount);
+            for (int i = 0; i < tableCount; i++) {
+                String tableName = readString(buffer);
+                String tableRemark = readString(buffer);
+                int columnCount = buffer.getInt();
+                List<ColumnInfo> columnInfos = new ArrayList<>(columnCount);
+                for (int j = 0; j < columnCount; j++) {
+                    String columnName = readString(buffer);
+                    int columnType = buffer.getInt();
+                    String remarks = readString(buffer);
+                    boolean isPrimaryKey = buffer.get() == 1;
+                    columnInfos.add(new ColumnInfo(columnName, columnType, remarks, isPrimaryKey));
+                }
+                tableInfos.add(new TableInfo(tableName, tableRemark, columnInfos));
+            }
+            if (version < 2) {
+                return new SchemaSnapshot(createdAt, tableInfos, null);
+            }
+            int foreignKeyCount = buffer.getInt();
+            List<ForeignKeyInfo> foreignKeys = new ArrayList<>(foreignKeyCount);
+            for (int i = 0; i < foreignKeyCount; i++) {
+                foreignKeys.add(new ForeignKeyInfo(readString(buffer), readString(buffer), readString(buffer),
+                        readString(buffer), readString(buffer), buffer.getInt()));
+            }
+            return new SchemaSnapshot(createdAt, tableInfos, foreignKeys);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<TableInfo> getTableInfos() {
+        return tableInfos;
+    }
+
+    /**
+     * 获取外键
+     *
+     * @return 外键，按表名、外键名和列序号排序；版本1的快照没有记录外键，返回null
+     */
+    public List<ForeignKeyInfo> getForeignKeys() {
+        return foreignKeys;
+    }
+}
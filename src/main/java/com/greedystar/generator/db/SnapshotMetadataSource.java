@@ -0,0 +1,157 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 从元数据快照中读取表结构，无需连接数据库
+ *
+ * @author GreedyStar
+ * @since 2021/5/10
+ */
+public class SnapshotMetadataSource implements MetadataSource {
+    /**
+     * 已加载的快照，多个执行器共享同一份快照数据，文件修改后重新加载
+     */
+    private final static Map<String, LoadedSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+    /**
+     * 快照文件
+     */
+    private final File file;
+
+    public SnapshotMetadataSource(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public TableInfo getTableInfo(String tableName) throws Exception {
+        TableInfo tableInfo = load().tables.get(tableName);
+        if (tableInfo == null) {
+            throw new Exception(String.format("Can not find table %s in snapshot %s", tableName, file.getPath()));
+        }
+        return tableInfo;
+    }
+
+    @Override
+    public List<TableInfo> getTableInfos(String tableNamePattern) throws Exception {
+        Pattern pattern = toRegex(tableNamePattern);
+        List<TableInfo> tableInfos = new ArrayList<>();
+        for (TableInfo tableInfo : load().tables.values()) {
+            if (pattern.matcher(tableInfo.getTableName()).matches()) {
+                tableInfos.add(tableInfo);
+            }
+        }
+        return tableInfos;
+    }
+
+    @Override
+    public List<ForeignKeyInfo> getForeignKeys(String tableNamePattern) throws Exception {
+        List<ForeignKeyInfo> snapshotForeignKeys = load().snapshot.getForeignKeys();
+        if (snapshotForeignKeys == null) {
+            System.err.printf("Snapshot %s has no foreign keys (format version 1), export it again to discover relations. \n",
+                    file.getPath());
+            return Collections.emptyList();
+        }
+        Pattern pattern = toRegex(tableNamePattern);
+        List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
+        for (ForeignKeyInfo foreignKey : snapshotForeignKeys) {
+            if (pattern.matcher(foreignKey.getTableName()).matches()) {
+                foreignKeys.add(foreignKey);
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * 获取快照
+     *
+     * @return 快照
+     * @throws IOException 文件读写异常
+     */
+    public SchemaSnapshot getSnapshot() throws IOException {
+        return load().snapshot;
+    }
+
+    /**
+     * 指向同一快照文件的实例视为同一个元数据来源
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SnapshotMetadataSource && ((SnapshotMetadataSource) o).file.getAbsoluteFile().equals(file.getAbsoluteFile());
+    }
+
+    @Override
+    public int hashCode() {
+        return file.getAbsoluteFile().hashCode();
+    }
+
+    /**
+     * 加载快照文件
+     *
+     * @return 已加载的快照
+     * @throws IOException 文件读写异常
+     */
+    private LoadedSnapshot load() throws IOException {
+        String path = file.getCanonicalPath();
+        long lastModified = file.lastModified();
+        LoadedSnapshot loaded = SNAPSHOTS.get(path);
+        if (loaded == null || loaded.lastModified != lastModified) {
+            if (!file.isFile()) {
+                throw new IOException("Can not find schema snapshot at " + file.getPath());
+            }
+            loaded = new LoadedSnapshot(SchemaSnapshot.read(file), lastModified);
+            SNAPSHOTS.put(path, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * 将SQL LIKE匹配模式转换为正则表达式，支持以 \ 转义 % 和 _
+     *
+     * @param tableNamePattern 表名匹配模式
+     * @return 正则表达式
+     */
+    static Pattern toRegex(String tableNamePattern) {
+        StringBuilder sb = new StringBuilder();
+        boolean escaped = false;
+        for (char c : tableNamePattern.toCharArray()) {
+            if (escaped) {
+                sb.append(Pattern.quote(String.valueOf(c)));
+                escaped = false;
+            } else if (c == '\\') { // 与JDBC的search string escape保持一致
+                escaped = true;
+            } else if (c == '%') {
+                sb.append(".*");
+            } else if (c == '_') {
+                sb.append('.');
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(sb.toString());
+    }
+
+    /**
+     * 已加载的快照及按表名建立的索引
+     */
+    private static class LoadedSnapshot {
+        private final SchemaSnapshot snapshot;
+        private final long lastModified;
+        private final Map<String, TableInfo> tables = new TreeMap<>();
+
+        LoadedSnapshot(SchemaSnapshot snapshot, long lastModified) {
+            this.snapshot = snapshot;
+            this.lastModified = lastModified;
+            for (TableInfo tableInfo : snapshot.getTableInfos()) {
+                tables.put(tableInfo.getTableName(), tableInfo);
+            }
+        }
+    }
+
+}
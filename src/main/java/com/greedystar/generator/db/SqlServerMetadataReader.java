@@ -0,0 +1,119 @@
+package com.greedystar.generator.db;
+
+import java.sql.JDBCType;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * SQLServer元数据读取器，通过sys.columns、sys.extended_properties一次读取整个schema的列、主键和注释，
+ * SQLServer驱动的getColumns不返回注释，不再需要逐表查询
+ *
+ * @author GreedyStar
+ * @since 2021/5/18
+ */
+public class SqlServerMetadataReader extends AbstractCatalogMetadataReader {
+    /**
+     * 类型名 -> JDBC类型，与Microsoft JDBC驱动getColumns返回的DATA_TYPE一致
+     */
+    private final static Map<String, JDBCType> TYPES = new HashMap<>();
+
+    static {
+        TYPES.put("bit", JDBCType.BIT);
+        TYPES.put("tinyint", JDBCType.TINYINT);
+        TYPES.put("smallint", JDBCType.SMALLINT);
+        TYPES.put("int", JDBCType.INTEGER);
+        TYPES.put("bigint", JDBCType.BIGINT);
+        TYPES.put("decimal", JDBCType.DECIMAL);
+        TYPES.put("numeric", JDBCType.NUMERIC);
+        TYPES.put("money", JDBCType.DECIMAL);
+        TYPES.put("smallmoney", JDBCType.DECIMAL);
+        TYPES.put("float", JDBCType.DOUBLE);
+        TYPES.put("real", JDBCType.REAL);
+        TYPES.put("date", JDBCType.DATE);
+        TYPES.put("time", JDBCType.TIME);
+        TYPES.put("datetime", JDBCType.TIMESTAMP);
+        TYPES.put("datetime2", JDBCType.TIMESTAMP);
+        TYPES.put("smalldatetime", JDBCType.TIMESTAMP);
+        TYPES.put("datetimeoffset", JDBCType.TIMESTAMP_WITH_TIMEZONE);
+        TYPES.put("char", JDBCType.CHAR);
+        TYPES.put("varchar", JDBCType.VARCHAR);
+        TYPES.put("text", JDBCType.LONGVARCHAR);
+        TYPES.put("nchar", JDBCType.NCHAR);
+        TYPES.put("nvarchar", JDBCType.NVARCHAR);
+        TYPES.put("ntext", JDBCType.LONGNVARCHAR);
+        TYPES.put("xml", JDBCType.LONGNVARCHAR);
+        TYPES.put("uniqueidentifier", JDBCType.CHAR);
+        TYPES.put("binary", JDBCType.BINARY);
+        TYPES.put("varbinary", JDBCType.VARBINARY);
+        TYPES.put("image", JDBCType.LONGVARBINARY);
+        TYPES.put("timestamp", JDBCType.BINARY);
+        TYPES.put("rowversion", JDBCType.BINARY);
+    }
+
+    @Override
+    protected String getColumnsSql(String tableCondition) {
+        return "SELECT t.name AS TABLE_NAME, CAST(ISNULL(tp.value, '') AS nvarchar(25)) AS TABLE_REMARKS, " +
+                "c.name AS COLUMN_NAME, COALESCE(ty.name, uty.name) AS TYPE_NAME, CAST(ISNULL(cp.value, '') AS nvarchar(25)) AS COLUMN_REMARKS, " +
+                "CASE WHEN pk.column_id IS NULL THEN 0 ELSE 1 END AS PRIMARY_KEY " +
+                "FROM sys.tables t " +
+                "INNER JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+                "INNER JOIN sys.columns c ON c.object_id = t.object_id " +
+                // 别名类型取其基础类型，CLR类型（如geometry）没有基础类型，取其本身的类型名
+                "INNER JOIN sys.types uty ON uty.user_type_id = c.user_type_id " +
+                "LEFT JOIN sys.types ty ON ty.user_type_id = c.system_type_id AND ty.user_type_id = ty.system_type_id " +
+                "LEFT JOIN sys.extended_properties tp ON tp.major_id = t.object_id AND tp.minor_id = 0 AND tp.class = 1 " +
+                "AND tp.name = 'MS_Description' " +
+                "LEFT JOIN sys.extended_properties cp ON cp.major_id = c.object_id AND cp.minor_id = c.column_id AND cp.class = 1 " +
+                "AND cp.name = 'MS_Description' " +
+                "LEFT JOIN (SELECT ic.object_id, ic.column_id FROM sys.indexes i " +
+                "INNER JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id " +
+                "WHERE i.is_primary_key = 1) pk ON pk.object_id = c.object_id AND pk.column_id = c.column_id " +
+                "WHERE s.name = COALESCE(?, SCHEMA_NAME()) AND t.name " + tableCondition +
+                " ORDER BY t.name, c.column_id";
+    }
+
+    @Override
+    protected String getForeignKeysSql(String tableCondition) {
+        return "SELECT fk.name AS FK_NAME, t.name AS TABLE_NAME, c.name AS COLUMN_NAME, rt.name AS REFERENCED_TABLE_NAME, " +
+                "rc.name AS REFERENCED_COLUMN_NAME, fkc.constraint_column_id AS KEY_SEQ " +
+                "FROM sys.foreign_key_columns fkc " +
+                "INNER JOIN sys.foreign_keys fk ON fk.object_id = fkc.constraint_object_id " +
+                "INNER JOIN sys.tables t ON t.object_id = fkc.parent_object_id " +
+                "INNER JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+                "INNER JOIN sys.columns c ON c.object_id = fkc.parent_object_id AND c.column_id = fkc.parent_column_id " +
+                "INNER JOIN sys.tables rt ON rt.object_id = fkc.referenced_object_id " +
+                "INNER JOIN sys.columns rc ON rc.object_id = fkc.referenced_object_id AND rc.column_id = fkc.referenced_column_id " +
+                "WHERE s.name = COALESCE(?, SCHEMA_NAME()) AND rt.schema_id = t.schema_id AND t.name " + tableCondition + " " +
+                "ORDER BY t.name, fk.name, fkc.constraint_column_id";
+    }
+
+    @Override
+    protected String getStampsSql(String tableCondition) {
+        return "SELECT t.name AS TABLE_NAME, CONVERT(varchar(30), t.modify_date, 126) AS STAMP " +
+                "FROM sys.tables t INNER JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+                "WHERE s.name = COALESCE(?, SCHEMA_NAME()) AND t.name " + tableCondition;
+    }
+
+    @Override
+    protected JDBCType getJdbcType(String typeName) {
+        return TYPES.getOrDefault(typeName.toLowerCase(Locale.ROOT), JDBCType.OTHER);
+    }
+
+    /**
+     * 与原有的SQLServer注释查询保持一致，表注释为空时使用表名
+     */
+    @Override
+    protected String getDefaultTableRemark(String tableName) {
+        return tableName;
+    }
+
+    /**
+     * 与原有的SQLServer注释查询保持一致，列注释为空时使用Unknown
+     */
+    @Override
+    protected String getDefaultColumnRemark(String columnName) {
+        return "Unknown";
+    }
+
+}
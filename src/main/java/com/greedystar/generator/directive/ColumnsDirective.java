@@ -0,0 +1,119 @@
+package com.greedystar.generator.directive;
+
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.RelationInfo;
+import freemarker.core.Environment;
+import freemarker.template.*;
+import freemarker.template.utility.DeepUnwrap;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 遍历列的指令，用于在模板中自定义与列相关的代码段，嵌套内容对每一列执行一次
+ * <p>
+ * 用法：
+ * <pre>
+ * &lt;#list Relations as relation&gt;
+ * &lt;@columns relation=relation skipForeignKey=true separator=",\n        "; column, index&gt;
+ *     `${column.columnName}` ${column.propertyType}
+ * &lt;/@columns&gt;
+ * &lt;/#list&gt;
+ * </pre>
+ * 参数均可省略：relation为表关系（Relations中的元素）时遍历该关系父表的列，否则遍历Columns；
+ * skipForeignKey为true时跳过Relations中任一关系的外键列；separator在每两列之间写入。
+ * 循环变量column为当前列，包含columnName、propertyName、propertyType、columnType、remarks和primaryKey，
+ * 属性类型由生成上下文的类型转换器确定；index为已输出列的序号
+ * <p>
+ * 内置模板中的resultMap、entityProperties等代码段由Java实现（见{@link Directives}），修改其输出需在自定义模板中用本指令重写
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class ColumnsDirective implements TemplateDirectiveModel {
+
+    @Override
+    public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+            throws TemplateException, IOException {
+        if (body == null) {
+            return;
+        }
+        RelationInfo relation = null;
+        boolean skipForeignKey = false;
+        String separator = "";
+        for (Object entry : params.entrySet()) {
+            String name = (String) ((Map.Entry) entry).getKey();
+            TemplateModel value = (TemplateModel) ((Map.Entry) entry).getValue();
+            if ("relation".equals(name)) {
+                Object unwrapped = DeepUnwrap.unwrap(value);
+                if (!(unwrapped instanceof RelationInfo)) {
+                    throw new TemplateModelException("The \"relation\" parameter must be an element of Relations.");
+                }
+                relation = (RelationInfo) unwrapped;
+            } else if ("skipForeignKey".equals(name)) {
+                skipForeignKey = getBoolean(name, value);
+            } else if ("separator".equals(name)) {
+                if (!(value instanceof TemplateScalarModel)) {
+                    throw new TemplateModelException("The \"separator\" parameter must be a string.");
+                }
+                separator = ((TemplateScalarModel) value).getAsString();
+            } else {
+                throw new TemplateModelException("Unsupported parameter: " + name);
+            }
+        }
+        List<ColumnInfo> columns = relation != null ? relation.getParentColumns()
+                : SnippetDirective.<List<ColumnInfo>>getVariable(env, "Columns");
+        if (columns == null) {
+            return;
+        }
+        List<RelationInfo> relations = skipForeignKey ? SnippetDirective.getVariable(env, "Relations") : null;
+        GenerationContext context = SnippetDirective.getContext(env);
+        ObjectWrapper wrapper = env.getObjectWrapper();
+        int index = 0;
+        for (ColumnInfo info : columns) {
+            if (relations != null && RelationInfo.isForeignKey(relations, info.getColumnName())) {
+                continue;
+            }
+            if (index > 0) {
+                env.getOut().write(separator);
+            }
+            if (loopVars.length > 0) {
+                loopVars[0] = wrapper.wrap(toMap(context, info));
+            }
+            if (loopVars.length > 1) {
+                loopVars[1] = new SimpleNumber(index);
+            }
+            body.render(env.getOut());
+            index++;
+        }
+    }
+
+    /**
+     * 将列信息转换为模板数据，不直接暴露ColumnInfo，属性类型由生成上下文的类型转换器确定
+     *
+     * @param context 生成上下文
+     * @param info    列信息
+     * @return 列数据
+     */
+    public static Map<String, Object> toMap(GenerationContext context, ColumnInfo info) {
+        Map<String, Object> column = new HashMap<>();
+        column.put("columnName", info.getColumnName());
+        column.put("propertyName", info.getPropertyName());
+        column.put("propertyType", context.getPropertyType(info));
+        column.put("columnType", String.valueOf(info.getColumnType()));
+        column.put("remarks", info.getRemarks());
+        column.put("primaryKey", info.isPrimaryKey());
+        return column;
+    }
+
+    private static boolean getBoolean(String name, TemplateModel value) throws TemplateModelException {
+        if (!(value instanceof TemplateBooleanModel)) {
+            throw new TemplateModelException(String.format("The \"%s\" parameter must be a boolean.", name));
+        }
+        return ((TemplateBooleanModel) value).getAsBoolean();
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.greedystar.generator.directive;
+
+import freemarker.template.Configuration;
+
+/**
+ * 注册代码段指令，指令作为共享变量对所有模板可见
+ * <p>
+ * 除columns外的指令是内置模板使用的固定代码段，内容由{@link MapperSnippets}和{@link EntitySnippets}以Java实现，
+ * 不能通过修改模板调整；需要自定义这些代码段时，在自定义模板中以{@link ColumnsDirective}遍历列重写
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class Directives {
+
+    private Directives() {
+    }
+
+    /**
+     * 注册所有指令
+     *
+     * @param configuration freemarker配置
+     */
+    public static void register(Configuration configuration) {
+        configuration.setSharedVariable("columns", new ColumnsDirective());
+        configuration.setSharedVariable("columnMap", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.columnMap(out, columns, relations)));
+        configuration.setSharedVariable("resultMap", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.resultMap(out, columns, relations)));
+        configuration.setSharedVariable("insertProperties", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.insertProperties(out, columns)));
+        configuration.setSharedVariable("insertValues", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.insertValues(out, columns, relations)));
+        configuration.setSharedVariable("insertBatchValues", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.insertBatchValues(out, columns, relations)));
+        configuration.setSharedVariable("updateProperties", new SnippetDirective(
+                (out, context, columns, relations, parentEntity) -> MapperSnippets.updateProperties(out, columns, relations)));
+        configuration.setSharedVariable("entityProperties", new SnippetDirective(EntitySnippets::properties));
+        configuration.setSharedVariable("entityMethods", new SnippetDirective(EntitySnippets::methods));
+    }
+
+}
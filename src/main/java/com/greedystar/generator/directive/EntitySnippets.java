@@ -0,0 +1,235 @@
+package com.greedystar.generator.directive;
+
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.entity.IdStrategy;
+import com.greedystar.generator.entity.RelationInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * 实体类中与列数成正比的代码段，逐列直接写入输出，不构造中间字符串
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class EntitySnippets {
+
+    private EntitySnippets() {
+    }
+
+    /**
+     * 写入实体类属性字段
+     *
+     * @param out          输出
+     * @param context      生成上下文
+     * @param columns      实体对应表的列
+     * @param relations    表关系，第一个为主表自身的关系，其余为同一次生成中合并到该实体的关系
+     * @param parentEntity 是否父表实体，父表实体不包含依赖关系的属性
+     * @throws IOException IOException
+     */
+    public static void properties(Writer out, GenerationContext context, List<ColumnInfo> columns, List<RelationInfo> relations,
+                                  boolean parentEntity) throws IOException {
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (RelationInfo.isForeignKey(relations, info.getColumnName())) {
+                continue;
+            }
+            out.write(index == 0 ? "" : Constant.SPACE_4);
+            remarks(out, info);
+            ormAnnotation(out, context, info);
+            out.write(Constant.SPACE_4);
+            out.write("private ");
+            out.write(String.valueOf(context.getPropertyType(info)));
+            out.write(' ');
+            out.write(info.getPropertyName());
+            out.write(";\n\n");
+        }
+        // 生成父表实体类时，直接截断后续生成依赖关系的代码
+        if (parentEntity) {
+            return;
+        }
+        for (RelationInfo relation : relations) {
+            String parentClassName = relation.getParentClassName();
+            if (relation.isCollection()) {
+                // 多对多 or 一对多
+                out.write(Constant.SPACE_4);
+                out.write("private List<");
+                out.write(parentClassName);
+                out.write("> ");
+                out.write(StringUtil.firstToLowerCase(parentClassName));
+                out.write("s;\n\n");
+            } else if (!StringUtil.isEmpty(relation.getForeignKey())) {
+                // 多对一
+                out.write(Constant.SPACE_4);
+                out.write("private ");
+                out.write(parentClassName);
+                out.write(' ');
+                out.write(StringUtil.firstToLowerCase(parentClassName));
+                out.write(";\n\n");
+            }
+        }
+    }
+
+    /**
+     * 写入实体类存取方法，启用Lombok时不生成
+     *
+     * @param out          输出
+     * @param context      生成上下文
+     * @param columns      实体对应表的列
+     * @param relations    表关系，第一个为主表自身的关系，其余为同一次生成中合并到该实体的关系
+     * @param parentEntity 是否父表实体，父表实体不包含依赖关系的方法
+     * @throws IOException IOException
+     */
+    public static void methods(Writer out, GenerationContext context, List<ColumnInfo> columns, List<RelationInfo> relations,
+                               boolean parentEntity) throws IOException {
+        if (context.getConfiguration().isLombokEnable()) {
+            return;
+        }
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (RelationInfo.isForeignKey(relations, info.getColumnName())) {
+                continue;
+            }
+            String propertyName = info.getPropertyName();
+            String propertyType = context.getPropertyType(info);
+            String methodSuffix = StringUtil.firstToUpperCase(propertyName);
+            out.write(index == 0 ? "" : Constant.SPACE_4);
+            out.write("public void set");
+            out.write(methodSuffix);
+            out.write(" (");
+            out.write(propertyType);
+            out.write(' ');
+            out.write(propertyName);
+            out.write(") { this.");
+            out.write(propertyName);
+            out.write(" = ");
+            out.write(propertyName);
+            out.write("; } \n\n");
+            out.write(Constant.SPACE_4);
+            out.write("public ");
+            out.write(propertyType);
+            out.write(propertyType.equals("boolean") ? " is" : " get");
+            out.write(methodSuffix);
+            out.write(" () { return this.");
+            out.write(propertyName);
+            out.write("; } \n\n");
+        }
+        // 生成父表实体类时，直接截断后续生成依赖关系的代码
+        if (parentEntity) {
+            return;
+        }
+        for (RelationInfo relation : relations) {
+            String parentClassName = relation.getParentClassName();
+            if (relation.isCollection()) {
+                // 多对多
+                String parentName = StringUtil.firstToLowerCase(parentClassName);
+                out.write(Constant.SPACE_4);
+                out.write("public void set" + parentClassName + "s (List<" + parentClassName + "> " + parentName + "s) { this."
+                        + parentName + "s = " + parentName + "s; }\n\n");
+                out.write(Constant.SPACE_4);
+                out.write("public List<" + parentClassName + "> get" + parentClassName + "s () { return this." + parentName + "s; }\n\n");
+            } else if (!StringUtil.isEmpty(relation.getForeignKey())) {
+                // 多对一
+                String parentName = StringUtil.firstToLowerCase(parentClassName);
+                out.write(Constant.SPACE_4);
+                out.write("public void set" + parentClassName + " (" + parentClassName + " " + parentName + ") { this."
+                        + parentName + " = " + parentName + "; }\n\n");
+                out.write(Constant.SPACE_4);
+                out.write("public " + parentClassName + " get" + parentClassName + " () { return this." + parentName + "; }\n\n");
+            }
+        }
+    }
+
+    /**
+     * 写入实体属性注释
+     *
+     * @param out  输出
+     * @param info 列属性
+     * @throws IOException IOException
+     */
+    public static void remarks(Writer out, ColumnInfo info) throws IOException {
+        out.write("/**\n");
+        out.write(Constant.SPACE_4);
+        out.write(" * ");
+        out.write(String.valueOf(info.getRemarks()));
+        out.write('\n');
+        out.write(Constant.SPACE_4);
+        out.write(" */\n");
+    }
+
+    /**
+     * 写入实体属性的swagger注解
+     * 我们不建议在entity（do）中使用swagger注解，在dto和vo中使用swagger注解更为优雅
+     *
+     * @param out     输出
+     * @param context 生成上下文
+     * @param info    列属性
+     * @throws IOException IOException
+     */
+    public static void swaggerAnnotation(Writer out, GenerationContext context, ColumnInfo info) throws IOException {
+        if (!context.getConfiguration().isSwaggerEnable()) {
+            return;
+        }
+        out.write("@ApiModelProperty(value = \"");
+        out.write(String.valueOf(info.getRemarks()));
+        out.write("\", dataType = \"");
+        out.write(context.getPropertyType(info));
+        out.write("\")\n");
+    }
+
+    /**
+     * 写入实体属性的Orm框架（jpa/mybatis-plus）注解
+     *
+     * @param out     输出
+     * @param context 生成上下文
+     * @param info    列属性
+     * @throws IOException IOException
+     */
+    public static void ormAnnotation(Writer out, GenerationContext context, ColumnInfo info) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        boolean autoId = configuration.getIdStrategy() == null || configuration.getIdStrategy() == IdStrategy.AUTO;
+        boolean uuid = configuration.getIdStrategy() == IdStrategy.UUID;
+        if (configuration.isMybatisPlusEnable()) {
+            if (info.isPrimaryKey()) {
+                if (autoId || uuid) {
+                    out.write(Constant.SPACE_4);
+                    out.write("@TableId(value = \"");
+                    out.write(info.getColumnName());
+                    out.write(autoId ? "\", type = IdType.AUTO)\n" : "\", type = IdType.ASSIGN_UUID)\n");
+                }
+            } else {
+                out.write(Constant.SPACE_4);
+                out.write("@TableField(value = \"");
+                out.write(info.getColumnName());
+                out.write("\")\n");
+            }
+        } else if (configuration.isJpaEnable()) {
+            if (info.isPrimaryKey()) {
+                if (autoId) {
+                    out.write(Constant.SPACE_4);
+                    out.write("@Id\n");
+                    out.write(Constant.SPACE_4);
+                    out.write("@GeneratedValue(strategy = GenerationType.IDENTITY)\n");
+                } else if (uuid) {
+                    out.write(Constant.SPACE_4);
+                    out.write("@Id\n");
+                    out.write(Constant.SPACE_4);
+                    out.write("@GeneratedValue(generator = \"uuidGenerator\")\n");
+                    out.write(Constant.SPACE_4);
+                    out.write("@GenericGenerator(name = \"uuidGenerator\", strategy = \"uuid\")\n");
+                }
+            }
+            out.write(Constant.SPACE_4);
+            out.write("@Column(name = \"");
+            out.write(info.getColumnName());
+            out.write("\")\n");
+        }
+    }
+
+}
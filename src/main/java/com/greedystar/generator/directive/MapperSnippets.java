@@ -0,0 +1,231 @@
+package com.greedystar.generator.directive;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.entity.RelationInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Mapper映射文件中与列数成正比的代码段，逐列直接写入输出，不构造中间字符串
+ * <p>
+ * 以逗号分隔的代码段在每个元素之前写入分隔符，而不是写完之后再截掉末尾的分隔符
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class MapperSnippets {
+
+    private MapperSnippets() {
+    }
+
+    /**
+     * 写入columnMap代码段
+     *
+     * @param out      输出
+     * @param columns  主表的列
+     * @param relations 表关系，第一个为主表自身的关系，其余为同一次生成中合并的关系
+     * @throws IOException IOException
+     */
+    public static void columnMap(Writer out, List<ColumnInfo> columns, List<RelationInfo> relations) throws IOException {
+        boolean first = true;
+        String tableName = relations.get(0).getTableName();
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (RelationInfo.isForeignKey(relations, info.getColumnName())) {
+                continue;
+            }
+            if (!first) {
+                out.write(",\n");
+            }
+            first = false;
+            out.write(index == 0 ? "" : Constant.SPACE_8);
+            out.write('`');
+            out.write(tableName);
+            out.write("`.`");
+            out.write(info.getColumnName());
+            out.write('`');
+        }
+        for (RelationInfo relation : relations) {
+            if (relation.getParentColumns() == null) {
+                continue;
+            }
+            String parentName = StringUtil.firstToLowerCase(relation.getParentClassName());
+            if (relation.isCollection()) {
+                parentName += "s";
+            }
+            for (ColumnInfo info : relation.getParentColumns()) {
+                if (!first) {
+                    out.write(",\n");
+                }
+                first = false;
+                out.write(Constant.SPACE_8);
+                out.write('`');
+                out.write(relation.getParentTableName());
+                out.write("`.`");
+                out.write(info.getColumnName());
+                out.write("` AS `");
+                out.write(parentName);
+                out.write('.');
+                out.write(info.getColumnName());
+                out.write('`');
+            }
+        }
+    }
+
+    /**
+     * 写入resultMap代码段
+     *
+     * @param out      输出
+     * @param columns  主表的列
+     * @param relations 表关系
+     * @throws IOException IOException
+     */
+    public static void resultMap(Writer out, List<ColumnInfo> columns, List<RelationInfo> relations) throws IOException {
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (RelationInfo.isForeignKey(relations, info.getColumnName())) {
+                continue;
+            }
+            out.write(index == 0 ? "" : Constant.SPACE_8);
+            out.write(info.isPrimaryKey() ? "<id column=\"" : "<result column=\"");
+            out.write(info.getColumnName());
+            out.write("\" property=\"");
+            out.write(info.getPropertyName());
+            out.write("\" />\n");
+        }
+    }
+
+    /**
+     * 写入insertProperties代码段
+     *
+     * @param out     输出
+     * @param columns 主表的列
+     * @throws IOException IOException
+     */
+    public static void insertProperties(Writer out, List<ColumnInfo> columns) throws IOException {
+        for (int index = 0; index < columns.size(); index++) {
+            if (index > 0) {
+                out.write(",\n");
+                out.write(Constant.SPACE_12);
+            }
+            out.write('`');
+            out.write(columns.get(index).getColumnName());
+            out.write('`');
+        }
+    }
+
+    /**
+     * 写入insertValues代码段
+     *
+     * @param out      输出
+     * @param columns  主表的列
+     * @param relations 表关系
+     * @throws IOException IOException
+     */
+    public static void insertValues(Writer out, List<ColumnInfo> columns, List<RelationInfo> relations) throws IOException {
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (index > 0) {
+                out.write(",\n");
+                out.write(Constant.SPACE_12);
+            }
+            out.write("#{");
+            RelationInfo relation = getManyToOneRelation(relations, info.getColumnName());
+            if (relation != null) {
+                writeParentPrimaryKey(out, relation);
+            } else {
+                out.write(info.getPropertyName());
+            }
+            out.write('}');
+        }
+    }
+
+    /**
+     * 写入insertBatchValues代码段
+     *
+     * @param out      输出
+     * @param columns  主表的列
+     * @param relations 表关系
+     * @throws IOException IOException
+     */
+    public static void insertBatchValues(Writer out, List<ColumnInfo> columns, List<RelationInfo> relations) throws IOException {
+        String entityName = StringUtil.firstToLowerCase(relations.get(0).getClassName());
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (index > 0) {
+                out.write(",\n");
+                out.write(Constant.SPACE_12);
+            }
+            out.write("#{");
+            out.write(entityName);
+            out.write('.');
+            RelationInfo relation = getManyToOneRelation(relations, info.getColumnName());
+            if (relation != null) {
+                writeParentPrimaryKey(out, relation);
+            } else {
+                out.write(info.getPropertyName());
+            }
+            out.write('}');
+        }
+    }
+
+    /**
+     * 写入updateProperties代码段
+     *
+     * @param out      输出
+     * @param columns  主表的列
+     * @param relations 表关系
+     * @throws IOException IOException
+     */
+    public static void updateProperties(Writer out, List<ColumnInfo> columns, List<RelationInfo> relations) throws IOException {
+        for (int index = 0; index < columns.size(); index++) {
+            ColumnInfo info = columns.get(index);
+            if (index > 0) {
+                out.write(",\n");
+                out.write(Constant.SPACE_8);
+            }
+            out.write('`');
+            out.write(info.getColumnName());
+            out.write("` = #{");
+            RelationInfo relation = getManyToOneRelation(relations, info.getColumnName());
+            if (relation != null) {
+                writeParentPrimaryKey(out, relation);
+            } else {
+                out.write(info.getPropertyName());
+            }
+            out.write('}');
+        }
+    }
+
+    /**
+     * 获取以该列作为外键的多对一关系，该列的值取自父表实体的主键
+     *
+     * @param relations  表关系
+     * @param columnName 列名
+     * @return 多对一关系，不存在时返回null
+     */
+    private static RelationInfo getManyToOneRelation(List<RelationInfo> relations, String columnName) {
+        for (RelationInfo relation : relations) {
+            if (columnName.equals(relation.getManyToOneForeignKey())) {
+                return relation;
+            }
+        }
+        return null;
+    }
+
+    private static void writeParentPrimaryKey(Writer out, RelationInfo relation) throws IOException {
+        out.write(StringUtil.firstToLowerCase(relation.getParentClassName()));
+        out.write('.');
+        for (ColumnInfo info : relation.getParentColumns()) {
+            if (info.isPrimaryKey()) {
+                out.write(info.getPropertyName());
+                return;
+            }
+        }
+    }
+
+}
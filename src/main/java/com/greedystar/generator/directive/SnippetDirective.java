@@ -0,0 +1,96 @@
+package com.greedystar.generator.directive;
+
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.RelationInfo;
+import freemarker.core.Environment;
+import freemarker.template.*;
+import freemarker.template.utility.DeepUnwrap;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 代码段指令，从数据模型中读取列信息（Columns）和表关系（Relations），直接写入模板的输出
+ * <p>
+ * 用法：{@code <@resultMap/>}，指令不接受参数和嵌套内容
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class SnippetDirective implements TemplateDirectiveModel {
+    /**
+     * 代码段的写入逻辑
+     */
+    private final Snippet snippet;
+
+    public SnippetDirective(Snippet snippet) {
+        this.snippet = snippet;
+    }
+
+    @Override
+    public void execute(Environment env, Map params, TemplateModel[] loopVars, TemplateDirectiveBody body)
+            throws TemplateException, IOException {
+        if (!params.isEmpty()) {
+            throw new TemplateModelException("This directive doesn't allow parameters.");
+        }
+        if (body != null) {
+            throw new TemplateModelException("This directive doesn't allow nested content.");
+        }
+        List<ColumnInfo> columns = getVariable(env, "Columns");
+        List<RelationInfo> relations = getVariable(env, "Relations");
+        Boolean parentEntity = getVariable(env, "ParentEntity");
+        if (columns == null || relations == null || relations.isEmpty()) {
+            throw new TemplateModelException("Can not find Columns or Relations in the data model.");
+        }
+        snippet.write(env.getOut(), getContext(env), columns, relations, Boolean.TRUE.equals(parentEntity));
+    }
+
+    /**
+     * 获取渲染模板的生成上下文
+     *
+     * @param env 模板运行环境
+     * @return 生成上下文，未经FileUtil渲染的模板使用按全局配置创建的上下文
+     */
+    static GenerationContext getContext(Environment env) {
+        GenerationContext context = (GenerationContext) env.getCustomAttribute(GenerationContext.class.getName());
+        return context == null ? GenerationContext.getDefault() : context;
+    }
+
+    /**
+     * 获取数据模型中的变量，并还原为Java对象
+     *
+     * @param env  模板运行环境
+     * @param name 变量名
+     * @param <T>  变量类型
+     * @return 变量值，不存在时返回null
+     * @throws TemplateModelException 模板异常
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T getVariable(Environment env, String name) throws TemplateModelException {
+        TemplateModel model = env.getVariable(name);
+        return model == null ? null : (T) DeepUnwrap.unwrap(model);
+    }
+
+    /**
+     * 代码段的写入逻辑
+     */
+    @FunctionalInterface
+    public interface Snippet {
+        /**
+         * 写入代码段
+         *
+         * @param out          输出
+         * @param context      生成上下文
+         * @param columns      列信息
+         * @param relations    表关系
+         * @param parentEntity 是否父表实体
+         * @throws IOException IOException
+         */
+        void write(Writer out, GenerationContext context, List<ColumnInfo> columns, List<RelationInfo> relations,
+                   boolean parentEntity) throws IOException;
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.greedystar.generator.engine;
+
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 一次代码生成范围内的共享登记，由{@link GenerationEngine}为每次生成创建
+ * <p>
+ * 多个执行器涉及同一张表时（如 user->office 多对一与 user->article 一对多同时提交），表结构只读取一次；
+ * 生成同一文件的任务（以{@link AbstractTask#getArtifactKey()}区分）只保留一个，其余任务的表关系合并到该任务中一起渲染，
+ * 写入前再按输出路径检查一次，保证同一个文件不会被并发的任务重复写入
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+class ArtifactRegistry {
+    /**
+     * 元数据来源 -> 共享读取结果的来源，指向同一数据库或同一文件的来源视为相同
+     */
+    private final Map<MetadataSource, SharedMetadataSource> metadataSources = new ConcurrentHashMap<>();
+    /**
+     * 各执行器初始化的任务，按提交顺序排列
+     */
+    private final Map<Integer, List<AbstractTask>> tasks = new ConcurrentSkipListMap<>();
+    /**
+     * 已写入的文件
+     */
+    private final Set<String> paths = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * 获取共享读取结果的元数据来源
+     *
+     * @param source 执行器的元数据来源
+     * @return 共享读取结果的来源
+     */
+    MetadataSource share(MetadataSource source) {
+        return metadataSources.computeIfAbsent(source, SharedMetadataSource::new);
+    }
+
+    /**
+     * 登记执行器初始化的任务
+     *
+     * @param index 执行器的提交顺序
+     * @param list  任务
+     */
+    void register(int index, List<AbstractTask> list) {
+        tasks.put(index, list);
+    }
+
+    /**
+     * 合并生成同一文件的任务，完整的任务优先于部分内容的任务，其次按提交顺序
+     *
+     * @return 需要执行的任务
+     */
+    List<AbstractTask> plan() {
+        Map<String, List<AbstractTask>> groups = new LinkedHashMap<>();
+        for (List<AbstractTask> list : tasks.values()) {
+            for (AbstractTask task : list) {
+                groups.computeIfAbsent(task.getArtifactKey(), k -> new ArrayList<>()).add(task);
+            }
+        }
+        List<AbstractTask> planned = new ArrayList<>();
+        for (List<AbstractTask> group : groups.values()) {
+            AbstractTask primary = group.get(0);
+            for (AbstractTask task : group) {
+                if (!task.isPartial()) {
+                    primary = task;
+                    break;
+                }
+            }
+            for (AbstractTask task : group) {
+                if (task != primary) {
+                    primary.merge(task);
+                }
+            }
+            planned.add(primary);
+        }
+        return planned;
+    }
+
+    /**
+     * 登记即将写入的文件
+     *
+     * @param artifact 文件
+     * @return 该文件在本次生成中是否尚未写入
+     */
+    boolean claim(Artifact artifact) {
+        return paths.add(artifact.getRoot() + ":" + artifact.getPath());
+    }
+
+    /**
+     * 共享读取结果的元数据来源，同一张表只读取一次，并发读取同一张表时后到的调用等待先到的调用的结果
+     */
+    private static class SharedMetadataSource implements MetadataSource {
+        private final MetadataSource source;
+        /**
+         * 表名 -> 表结构数据
+         */
+        private final Map<String, CompletableFuture<TableInfo>> tableInfos = new ConcurrentHashMap<>();
+
+        SharedMetadataSource(MetadataSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public TableInfo getTableInfo(String tableName) throws Exception {
+            return getTableInfos(Collections.singletonList(tableName)).get(0);
+        }
+
+        @Override
+        public List<TableInfo> getTableInfos(String tableNamePattern) throws Exception {
+            List<TableInfo> result = new ArrayList<>();
+            for (TableInfo info : source.getTableInfos(tableNamePattern)) {
+                CompletableFuture<TableInfo> loaded = tableInfos.putIfAbsent(info.getTableName(), CompletableFuture.completedFuture(info));
+                // 已读取过的表沿用之前的结果，使各执行器共享同一份表结构
+                result.add(loaded != null && loaded.isDone() && !loaded.isCompletedExceptionally() ? loaded.join() : info);
+            }
+            return result;
+        }
+
+        @Override
+        public List<TableInfo> getTableInfos(List<String> tableNames) throws Exception {
+            List<CompletableFuture<TableInfo>> futures = new ArrayList<>();
+            Map<String, CompletableFuture<TableInfo>> owned = new LinkedHashMap<>();
+            for (String tableName : tableNames) {
+                CompletableFuture<TableInfo> future = new CompletableFuture<>();
+                CompletableFuture<TableInfo> existing = tableInfos.putIfAbsent(tableName, future);
+                if (existing == null) {
+                    owned.put(tableName, future);
+                }
+                futures.add(existing == null ? future : existing);
+            }
+            // 只读取尚未被其他执行器读取的表，仍然通过一次批量调用完成
+            if (!owned.isEmpty()) {
+                try {
+                    List<TableInfo> loaded = source.getTableInfos(new ArrayList<>(owned.keySet()));
+                    int index = 0;
+                    for (CompletableFuture<TableInfo> future : owned.values()) {
+                        future.complete(loaded.get(index++));
+                    }
+                } catch (Exception e) {
+                    owned.values().forEach(future -> future.completeExceptionally(e));
+                    throw e;
+                }
+            }
+            List<TableInfo> result = new ArrayList<>();
+            for (CompletableFuture<TableInfo> future : futures) {
+                try {
+                    result.add(future.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<ForeignKeyInfo> getForeignKeys(String tableNamePattern) throws Exception {
+            return source.getForeignKeys(tableNamePattern);
+        }
+
+        @Override
+        public Map<String, String> getTableStamps(String tableNamePattern) throws Exception {
+            return source.getTableStamps(tableNamePattern);
+        }
+    }
+
+}
@@ -0,0 +1,435 @@
+package com.greedystar.generator.engine;
+
+import com.greedystar.generator.convertor.TypeConvertor;
+import com.greedystar.generator.db.DataBaseFactory;
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.db.SnapshotMetadataSource;
+import com.greedystar.generator.directive.Directives;
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.Invoker;
+import com.greedystar.generator.output.OutputSink;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.ConvertorUtil;
+import com.greedystar.generator.utils.FileUtil;
+import com.greedystar.generator.utils.FreemarkerConfigUtil;
+import com.greedystar.generator.utils.GenerationCache;
+import com.greedystar.generator.utils.StringUtil;
+import freemarker.template.*;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 代码生成的上下文，持有一套配置信息及按该配置创建的类型转换器、元数据来源、模板配置和输出目标
+ * <p>
+ * 生成引擎将上下文传递给执行器（{@link AbstractInvoker#getContext()}），执行器初始化的任务和模板中的代码段指令都从上下文中读取配置，
+ * 不再依赖{@link ConfigUtil}等全局配置，因此同一个JVM中可以按多套配置并发生成代码，见{@link GenerationEngine#submit(GenerationContext, Invoker...)}；
+ * 上下文可以在多次生成之间复用，创建后不应再修改配置信息
+ * <p>
+ * 配置信息在创建上下文时被转换为不可变的模板模型，同一张表的各个任务共享类名、表名等填充数据，
+ * 渲染时不必再为每个文件重复包装和反射访问{@link Configuration}
+ *
+ * @author GreedyStar
+ * @since 2021/5/14
+ */
+public class GenerationContext {
+    /**
+     * 按全局配置创建的上下文，见{@link #getDefault()}
+     */
+    private static volatile GenerationContext defaultContext;
+    /**
+     * 可重现模式下格式化日期使用的时区
+     */
+    public static final TimeZone REPRODUCIBLE_TIME_ZONE = TimeZone.getTimeZone("UTC");
+    /**
+     * 可重现模式下格式化日期使用的语言环境，不受运行环境的默认语言影响
+     */
+    public static final Locale REPRODUCIBLE_LOCALE = Locale.ROOT;
+    /**
+     * 可重现模式下?date使用的日期格式
+     */
+    public static final String REPRODUCIBLE_DATE_FORMAT = "yyyy-MM-dd";
+    /**
+     * 配置信息
+     */
+    private final Configuration configuration;
+    /**
+     * 类型转换器
+     */
+    private final TypeConvertor convertor;
+    /**
+     * 模板配置
+     */
+    private final freemarker.template.Configuration templateConfiguration;
+    /**
+     * 输出目标，为null时根据配置写入项目目录或归档
+     */
+    private final OutputSink outputSink;
+    /**
+     * 元数据来源，首次使用时根据配置创建
+     */
+    private volatile MetadataSource metadataSource;
+    /**
+     * 文件注释中的日期，首次使用时确定，见{@link #getDate()}
+     */
+    private volatile Optional<Date> date;
+    /**
+     * FreeMarker对象包装器
+     */
+    private final ObjectWrapper wrapper;
+    /**
+     * 配置信息的模板模型
+     */
+    private final TemplateModel configurationModel;
+    /**
+     * 配置信息的指纹，用于计算生成缓存的键
+     */
+    private final String configurationFingerprint;
+    /**
+     * 每张表共享的填充数据，上下文在多次生成之间复用，执行器不再使用后其数据随之回收
+     */
+    private final Map<AbstractInvoker, TableModel> tableModels = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * 使用默认模板，根据配置写入项目目录或归档
+     *
+     * @param configuration 配置信息
+     */
+    public GenerationContext(Configuration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * 使用内置模板，配置了templateDirectory时优先使用该目录中的模板
+     *
+     * @param configuration 配置信息
+     * @param outputSink    输出目标，为null时根据配置写入项目目录或归档；每次生成结束后由引擎关闭，归档等只能写入一次的输出目标不宜在多次生成之间共享
+     */
+    public GenerationContext(Configuration configuration, OutputSink outputSink) {
+        this(configuration, getTemplateConfiguration(configuration), outputSink);
+    }
+
+    /**
+     * @param configuration         配置信息，检查后补全默认值
+     * @param templateConfiguration 模板配置，需要注册代码段指令，见{@link Directives#register(freemarker.template.Configuration)}；
+     *                              内置模板和额外模板在创建上下文时加载并编译，之后的生成直接使用已编译的模板
+     * @param outputSink            输出目标，为null时根据配置写入项目目录或归档
+     */
+    public GenerationContext(Configuration configuration, freemarker.template.Configuration templateConfiguration, OutputSink outputSink) {
+        try {
+            ConfigUtil.checkConfiguration(configuration);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        this.configuration = configuration;
+        this.convertor = ConvertorUtil.newInstance(configuration);
+        this.templateConfiguration = templateConfiguration;
+        this.outputSink = outputSink;
+        this.wrapper = templateConfiguration.getObjectWrapper();
+        try {
+            this.configurationModel = wrapBean(configuration);
+        } catch (Exception e) {
+            throw new IllegalStateException("Can not wrap configuration", e);
+        }
+        this.configurationFingerprint = GenerationCache.fingerprint(configuration);
+        List<String> templates = new ArrayList<>(FreemarkerConfigUtil.getTemplateNames());
+        configuration.getTemplates().forEach(template -> templates.add(template.getTemplate()));
+        for (String template : templates) {
+            try {
+                templateConfiguration.getTemplate(template);
+            } catch (IOException e) { // 模板不存在或存在语法错误
+                throw new IllegalArgumentException("Can not load template " + template + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 获取配置对应的模板配置
+     *
+     * @param configuration 配置信息
+     * @return 模板配置，配置了templateDirectory时优先从该目录加载模板，相对路径以项目根目录为基准
+     */
+    private static freemarker.template.Configuration getTemplateConfiguration(Configuration configuration) {
+        File directory = null == configuration ? null : getTemplateDirectory(configuration);
+        return null == directory ? FreemarkerConfigUtil.getInstance() : FreemarkerConfigUtil.getInstance(directory);
+    }
+
+    /**
+     * 获取自定义模板目录
+     *
+     * @param configuration 配置信息
+     * @return 自定义模板目录，未配置时返回null
+     */
+    private static File getTemplateDirectory(Configuration configuration) {
+        if (StringUtil.isEmpty(configuration.getTemplateDirectory())) {
+            return null;
+        }
+        File directory = new File(configuration.getTemplateDirectory());
+        if (!directory.isAbsolute()) {
+            directory = new File(FileUtil.getProjectPath(), configuration.getTemplateDirectory());
+        }
+        return directory;
+    }
+
+    /**
+     * 获取按全局配置（{@link ConfigUtil#getConfiguration()}）创建的上下文，全局配置被替换后重新创建，
+     * 供未经生成引擎直接使用执行器和任务的场景使用
+     *
+     * @return 上下文
+     */
+    public static GenerationContext getDefault() {
+        Configuration configuration = ConfigUtil.getConfiguration();
+        GenerationContext context = defaultContext;
+        if (null == context || context.configuration != configuration) {
+            context = new GenerationContext(configuration);
+            defaultContext = context;
+        }
+        return context;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public TypeConvertor getConvertor() {
+        return convertor;
+    }
+
+    public freemarker.template.Configuration getTemplateConfiguration() {
+        return templateConfiguration;
+    }
+
+    public OutputSink getOutputSink() {
+        return outputSink;
+    }
+
+    /**
+     * 获取自定义模板目录，相对路径以项目根目录为基准
+     *
+     * @return 自定义模板目录，未配置时返回null
+     */
+    public File getTemplateDirectory() {
+        return getTemplateDirectory(configuration);
+    }
+
+    /**
+     * 获取元数据来源，根据配置选择数据库、元数据快照或DDL脚本，同一数据库的上下文共用一个连接池
+     *
+     * @return 元数据来源
+     */
+    public MetadataSource getMetadataSource() {
+        if (null == metadataSource) {
+            synchronized (this) {
+                if (null == metadataSource) {
+                    metadataSource = DataBaseFactory.getMetadataSource(configuration);
+                }
+            }
+        }
+        return metadataSource;
+    }
+
+    /**
+     * 获取文件注释中的日期：优先使用配置的date，可重现模式下其次使用元数据快照的创建时间，再次使用环境变量SOURCE_DATE_EPOCH（秒）
+     *
+     * @return 日期，为null时模板使用生成时的日期
+     * @throws IllegalStateException 可重现模式下无法确定日期
+     */
+    public Date getDate() {
+        if (null == date) {
+            synchronized (this) {
+                if (null == date) {
+                    date = Optional.ofNullable(resolveDate());
+                }
+            }
+        }
+        return date.orElse(null);
+    }
+
+    private Date resolveDate() {
+        if (!StringUtil.isEmpty(configuration.getDate())) {
+            return Date.from(LocalDate.parse(configuration.getDate()).atStartOfDay(ZoneOffset.UTC).toInstant());
+        }
+        if (!configuration.isReproducible()) {
+            return null;
+        }
+        if (getMetadataSource() instanceof SnapshotMetadataSource) {
+            try {
+                return new Date(((SnapshotMetadataSource) getMetadataSource()).getSnapshot().getCreatedAt());
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not read snapshot " + configuration.getSnapshot(), e);
+            }
+        }
+        String epoch = System.getenv("SOURCE_DATE_EPOCH");
+        if (!StringUtil.isEmpty(epoch)) {
+            return new Date(Long.parseLong(epoch.trim()) * 1000);
+        }
+        throw new IllegalStateException("Reproducible mode requires attribute 'date', a metadata snapshot or environment variable SOURCE_DATE_EPOCH.");
+    }
+
+    /**
+     * 获取列的Java类型
+     *
+     * @param info 列信息
+     * @return Java类型
+     */
+    public String getPropertyType(ColumnInfo info) {
+        return info.getPropertyType(convertor);
+    }
+
+    /**
+     * 构造模板数据模型，任务自身的填充数据优先，其次是表共享数据和配置信息
+     *
+     * @param invoker 执行器
+     * @param data    任务自身的填充数据
+     * @return 数据模型
+     */
+    public DataModel getDataModel(AbstractInvoker invoker, Map<String, Object> data) {
+        return new DataModel(data, tableModels.computeIfAbsent(invoker, TableModel::new));
+    }
+
+    /**
+     * 将配置信息转换为不可变的模板模型，嵌套的配置项同样被转换，其余值交给对象包装器
+     *
+     * @param bean 配置信息
+     * @return 模板模型
+     * @throws Exception 反射访问异常
+     */
+    private TemplateModel wrapBean(Object bean) throws Exception {
+        Map<String, TemplateModel> properties = new HashMap<>();
+        BeanInfo beanInfo = Introspector.getBeanInfo(bean.getClass(), Object.class);
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            if (descriptor.getReadMethod() == null) {
+                continue;
+            }
+            Object value = descriptor.getReadMethod().invoke(bean);
+            if (value == null) {
+                continue;
+            }
+            if (value.getClass().getPackage() == Configuration.class.getPackage() && !(value instanceof Enum)) {
+                properties.put(descriptor.getName(), wrapBean(value));
+            } else {
+                properties.put(descriptor.getName(), wrapper.wrap(value));
+            }
+        }
+        return new ImmutableHashModel(properties);
+    }
+
+    /**
+     * 不可变的哈希模型
+     */
+    private static class ImmutableHashModel implements TemplateHashModel {
+        private final Map<String, TemplateModel> models;
+
+        ImmutableHashModel(Map<String, TemplateModel> models) {
+            this.models = models;
+        }
+
+        @Override
+        public TemplateModel get(String key) {
+            return models.get(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return models.isEmpty();
+        }
+    }
+
+    /**
+     * 格式化日期使用的语言环境、日期格式和时区，渲染结果随之变化，因此参与生成缓存的计算
+     *
+     * @return 格式标识
+     */
+    private String getFormatFingerprint() {
+        if (configuration.isReproducible()) {
+            return "/" + REPRODUCIBLE_LOCALE + "/" + REPRODUCIBLE_DATE_FORMAT + "/" + REPRODUCIBLE_TIME_ZONE.getID();
+        }
+        return "/" + templateConfiguration.getLocale() + "/" + templateConfiguration.getDateFormat() + "/"
+                + templateConfiguration.getTimeZone().getID();
+    }
+
+    /**
+     * 同一张表的各个任务共享的填充数据
+     */
+    private class TableModel {
+        private final Map<String, TemplateModel> models = new HashMap<>();
+        private final String fingerprint;
+
+        TableModel(AbstractInvoker invoker) {
+            Map<String, Object> values = new TreeMap<>();
+            values.put("ClassName", configuration.getName().getEntity()
+                    .replace(Constant.PLACEHOLDER, invoker.getClassName()));
+            values.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
+            values.put("TableName", invoker.getTableName());
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                try {
+                    models.put(entry.getKey(), wrapper.wrap(entry.getValue()));
+                } catch (TemplateModelException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            models.put("Configuration", configurationModel);
+            Date date = getDate();
+            if (date != null) {
+                models.put("Date", new SimpleDate(date, TemplateDateModel.DATE));
+            }
+            this.fingerprint = configurationFingerprint + GenerationCache.fingerprint(values) + (date == null ? "" : date.getTime())
+                    + getFormatFingerprint();
+        }
+    }
+
+    /**
+     * 单个文件的模板数据模型
+     */
+    public class DataModel implements TemplateHashModel {
+        private final Map<String, Object> data;
+        private final TableModel tableModel;
+
+        DataModel(Map<String, Object> data, TableModel tableModel) {
+            this.data = data;
+            this.tableModel = tableModel;
+        }
+
+        @Override
+        public TemplateModel get(String key) throws TemplateModelException {
+            Object value = data.get(key);
+            if (value != null) {
+                return wrapper.wrap(value);
+            }
+            return tableModel.models.get(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        /**
+         * 获取数据模型所属的上下文
+         *
+         * @return 上下文
+         */
+        public GenerationContext getContext() {
+            return GenerationContext.this;
+        }
+
+        /**
+         * 用于计算生成缓存键的数据，共享部分只以预先计算的指纹参与计算
+         *
+         * @return 缓存键数据
+         */
+        public Object getCacheKeyData() {
+            return Arrays.asList(tableModel.fingerprint, data);
+        }
+    }
+
+}
@@ -0,0 +1,326 @@
+package com.greedystar.generator.engine;
+
+import com.greedystar.generator.db.DataBaseFactory;
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.db.SchemaDiff;
+import com.greedystar.generator.invoker.DiffInvoker;
+import com.greedystar.generator.invoker.SingleInvoker;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.Invoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.task.*;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.utils.FreemarkerConfigUtil;
+import com.greedystar.generator.utils.GenerationCache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 监听模式，常驻JVM并保持FreeMarker配置、模板和表结构数据在内存中，表结构或模板发生变化后只重新生成受影响的文件
+ * <p>
+ * 每次轮询先比较各表的变更标识（见{@link MetadataSource#getTableStamps(String)}，如MySQL各表列定义的摘要、Oracle的LAST_DDL_TIME），
+ * 只重新读取标识发生变化的表，表结构确实变化时与上一次的表结构比较列级差异，只重新生成受影响的文件（见{@link DiffInvoker}）；
+ * 不支持变更标识的来源（元数据快照、DDL脚本等）
+ * 在文件未变化时直接返回缓存的表结构，开销同样很低
+ * <p>
+ * 模板从目录加载时同时监听模板目录和自定义模板目录，模板修改后只为所有表重新渲染该模板对应的文件，包括配置的额外模板
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class GenerationDaemon implements Closeable {
+    /**
+     * 默认轮询间隔（毫秒）
+     */
+    public final static long DEFAULT_INTERVAL = 500;
+    /**
+     * 内置模板文件名 -> 使用该模板的任务
+     */
+    private final static Map<String, Class<? extends AbstractTask>> TEMPLATE_TASKS = new HashMap<>();
+
+    static {
+        TEMPLATE_TASKS.put("Entity.ftl", EntityTask.class);
+        TEMPLATE_TASKS.put("Dao.ftl", DaoTask.class);
+        TEMPLATE_TASKS.put("Service.ftl", ServiceTask.class);
+        TEMPLATE_TASKS.put("Interface.ftl", InterfaceTask.class);
+        TEMPLATE_TASKS.put("Controller.ftl", ControllerTask.class);
+        TEMPLATE_TASKS.put("Mapper.ftl", MapperTask.class);
+    }
+
+    /**
+     * 表名匹配模式
+     */
+    private final String tableNamePattern;
+    /**
+     * 需要排除的表
+     */
+    private final Set<String> excludeTables;
+    /**
+     * 轮询间隔（毫秒）
+     */
+    private final long interval;
+    private final ScheduledExecutorService scheduler;
+    private final MetadataSource metadataSource;
+    /**
+     * 已读取的表结构，表名 -> 表结构数据
+     */
+    private final Map<String, TableInfo> tableInfos = new TreeMap<>();
+    /**
+     * 表名 -> 表结构摘要
+     */
+    private final Map<String, String> fingerprints = new HashMap<>();
+    /**
+     * 上次轮询得到的变更标识
+     */
+    private Map<String, String> stamps = Collections.emptyMap();
+    /**
+     * 模板文件 -> 修改时间
+     */
+    private final Map<String, Long> templates = new HashMap<>();
+    /**
+     * 是否已完成首次轮询
+     */
+    private boolean initialized;
+
+    public GenerationDaemon(String tableNamePattern, String... excludeTables) {
+        this(tableNamePattern, DEFAULT_INTERVAL, excludeTables);
+    }
+
+    /**
+     * @param tableNamePattern 表名匹配模式，如 "%"、"sys_%"
+     * @param interval         轮询间隔（毫秒）
+     * @param excludeTables    需要排除的表
+     */
+    public GenerationDaemon(String tableNamePattern, long interval, String... excludeTables) {
+        this.tableNamePattern = tableNamePattern;
+        this.interval = interval;
+        this.excludeTables = new HashSet<>(Arrays.asList(excludeTables));
+        this.metadataSource = DataBaseFactory.getMetadataSource();
+        // 非守护线程，在调用close之前保持JVM运行
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "generator-daemon"));
+    }
+
+    /**
+     * 开始监听，首次轮询生成所有表的代码
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::poll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止监听
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 检查一次表结构和模板，重新生成受影响的文件，异常不会中断之后的轮询
+     */
+    private void poll() {
+        try {
+            long start = System.nanoTime();
+            boolean initial = !initialized;
+            SchemaDiff diff = scanTables();
+            Set<String> changedTemplates = scanTemplates();
+            initialized = true;
+            List<Invoker> invokers = new ArrayList<>();
+            if (!diff.isEmpty()) {
+                invokers.add(new DiffInvoker.Builder().setSchemaDiff(diff).build());
+            }
+            if (!initial && !changedTemplates.isEmpty() && !tableInfos.isEmpty()) {
+                GenerationContext.getDefault().getTemplateConfiguration().clearTemplateCache(); // 立即加载修改后的模板
+                // 与表结构变化重复的文件由引擎合并，只生成一次
+                invokers.add(new TablesInvoker(new ArrayList<>(tableInfos.values()), getTemplates(changedTemplates)));
+            }
+            if (invokers.isEmpty()) {
+                return;
+            }
+            GenerationReport report = GenerationEngine.getInstance().submit(invokers.toArray(new Invoker[0])).join();
+            report.getFailures().values().forEach(throwables -> throwables.forEach(Throwable::printStackTrace));
+            System.out.printf("Regenerated %d tables and %d templates in %d ms \n", diff.getTableDiffs().size(),
+                    initial ? 0 : changedTemplates.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 检查表结构变化
+     *
+     * @return 新增或表结构发生变化的表与上一次表结构的差异
+     * @throws Exception 获取元数据失败
+     */
+    private SchemaDiff scanTables() throws Exception {
+        Map<String, String> currentStamps = metadataSource.getTableStamps(tableNamePattern);
+        List<TableInfo> candidates;
+        Set<String> tableNames;
+        if (currentStamps == null) {
+            candidates = new ArrayList<>();
+            for (TableInfo info : metadataSource.getTableInfos(tableNamePattern)) {
+                if (!excludeTables.contains(info.getTableName())) {
+                    candidates.add(info);
+                }
+            }
+            tableNames = new HashSet<>();
+            candidates.forEach(info -> tableNames.add(info.getTableName()));
+        } else {
+            currentStamps.keySet().removeAll(excludeTables);
+            List<String> stale = new ArrayList<>();
+            currentStamps.forEach((table, stamp) -> {
+                if (!stamp.equals(stamps.get(table))) {
+                    stale.add(table);
+                }
+            });
+            // 只重新读取变更标识发生变化的表
+            candidates = stale.isEmpty() ? Collections.emptyList() : metadataSource.getTableInfos(stale);
+            tableNames = currentStamps.keySet();
+        }
+        List<TableInfo> previous = new ArrayList<>();
+        List<TableInfo> changed = new ArrayList<>();
+        for (TableInfo info : candidates) {
+            TableInfo cached = tableInfos.get(info.getTableName());
+            if (cached == info) { // 缓存的表结构未重新加载
+                continue;
+            }
+            String fingerprint = GenerationCache.fingerprint(info);
+            if (!fingerprint.equals(fingerprints.get(info.getTableName()))) {
+                if (cached != null) {
+                    previous.add(cached);
+                }
+                changed.add(info);
+            }
+            fingerprints.put(info.getTableName(), fingerprint);
+            tableInfos.put(info.getTableName(), info);
+        }
+        tableInfos.keySet().retainAll(tableNames);
+        fingerprints.keySet().retainAll(tableNames);
+        if (currentStamps != null) {
+            stamps = currentStamps;
+        }
+        return SchemaDiff.compare(previous, changed);
+    }
+
+    /**
+     * 检查模板目录中的文件变化，自定义模板目录中的模板优先于内置模板
+     *
+     * @return 新增、修改或删除的模板
+     */
+    private Set<String> scanTemplates() {
+        List<File> directories = new ArrayList<>();
+        directories.add(GenerationContext.getDefault().getTemplateDirectory());
+        directories.add(FreemarkerConfigUtil.getTemplateDirectory());
+        Map<String, Long> current = new HashMap<>();
+        for (File directory : directories) {
+            if (directory != null) {
+                collectTemplates(directory, "", current);
+            }
+        }
+        Set<String> changed = new HashSet<>();
+        current.forEach((name, lastModified) -> {
+            if (!lastModified.equals(templates.get(name))) {
+                changed.add(name);
+            }
+        });
+        for (String name : templates.keySet()) {
+            if (!current.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+        templates.clear();
+        templates.putAll(current);
+        return changed;
+    }
+
+    private static void collectTemplates(File directory, String prefix, Map<String, Long> templates) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectTemplates(file, prefix + file.getName() + "/", templates);
+            } else {
+                templates.putIfAbsent(prefix + file.getName(), file.lastModified());
+            }
+        }
+    }
+
+    /**
+     * 获取需要重新渲染的模板
+     *
+     * @param changedTemplates 发生变化的模板
+     * @return 模板，存在无法对应到任务的模板（如被其他模板引用的公共模板）时返回null，表示所有模板
+     */
+    private static Set<String> getTemplates(Set<String> changedTemplates) {
+        Set<String> known = new HashSet<>(TEMPLATE_TASKS.keySet());
+        GenerationContext.getDefault().getConfiguration().getTemplates().forEach(template -> known.add(template.getTemplate()));
+        return known.containsAll(changedTemplates) ? changedTemplates : null;
+    }
+
+    /**
+     * 获取任务使用的模板
+     *
+     * @param task 任务
+     * @return 模板文件名
+     */
+    private static String getTemplate(AbstractTask task) {
+        if (task instanceof TemplateTask) {
+            return ((TemplateTask) task).getTemplate().getTemplate();
+        }
+        for (Map.Entry<String, Class<? extends AbstractTask>> entry : TEMPLATE_TASKS.entrySet()) {
+            if (entry.getValue() == task.getClass()) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 使用已读取的表结构生成单表代码，可只保留使用指定模板的任务
+     */
+    private static class TablesInvoker extends AbstractInvoker {
+        private final List<TableInfo> tableInfos;
+        /**
+         * 保留的任务使用的模板，为null时保留所有任务
+         */
+        private final Set<String> templates;
+
+        TablesInvoker(List<TableInfo> tableInfos, Set<String> templates) {
+            this.tableInfos = tableInfos;
+            this.templates = templates;
+        }
+
+        @Override
+        protected void queryMetaData() {
+        }
+
+        @Override
+        protected void initTasks() {
+            for (TableInfo info : tableInfos) {
+                AbstractInvoker invoker = (AbstractInvoker) new SingleInvoker.Builder()
+                        .setTableName(info.getTableName())
+                        .build();
+                invoker.setTableInfo(info);
+                invoker.setContext(getContext());
+                taskQueue.initSingleTasks(invoker);
+            }
+        }
+
+        @Override
+        public List<AbstractTask> prepare() throws Exception {
+            List<AbstractTask> tasks = super.prepare();
+            if (templates != null) {
+                tasks.removeIf(task -> !templates.contains(getTemplate(task)));
+            }
+            return tasks;
+        }
+    }
+
+}
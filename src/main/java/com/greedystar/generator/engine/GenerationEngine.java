@@ -0,0 +1,388 @@
+package com.greedystar.generator.engine;
+
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.Invoker;
+import com.greedystar.generator.listener.CompositeListener;
+import com.greedystar.generator.listener.GenerationListener;
+import com.greedystar.generator.listener.JsonReportListener;
+import com.greedystar.generator.output.ArchiveSink;
+import com.greedystar.generator.output.FileSink;
+import com.greedystar.generator.output.MemorySink;
+import com.greedystar.generator.output.OutputSink;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.FileUtil;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 代码生成引擎，所有执行器共享同一个按CPU核数确定大小的线程池
+ * <p>
+ * 每个执行器先获取元数据（{@link Stage#METADATA}），所有执行器完成后合并生成同一文件的任务（{@link Stage#PLAN}），
+ * 每个任务再拆分为计算代码段、渲染模板、写入文件三个依次依赖的阶段，就绪的节点按任务开销从大到小调度，使大批量生成时各核心的负载尽量均衡
+ * <p>
+ * 同一次提交的执行器共享一个{@link ArtifactRegistry}：相同的表结构只读取一次，同一个文件只渲染和写入一次
+ * <p>
+ * 启用虚拟线程模式（JDK 21+）时，获取元数据和写入文件两个阶段在虚拟线程中执行，同时打开的数据库连接数仍由{@link
+ * com.greedystar.generator.db.ConnectionPool}的连接许可限制；低版本JDK上仍使用共享线程池
+ * <p>
+ * 各阶段的耗时、文件大小和缓存命中情况通过{@link GenerationListener}回调，配置了report时在生成结束后输出JSON格式的运行报告
+ * <p>
+ * 渲染后的文件写入{@link OutputSink}，默认写入项目的源码和资源目录，配置了archive时写入单个zip或jar归档，
+ * 也可以指定自定义的输出目标，或通过{@link #generate(Invoker...)}直接在内存中获取生成结果
+ * <p>
+ * 每次提交使用一个{@link GenerationContext}，未指定时按全局配置创建；为不同项目分别创建上下文后提交，即可在同一个JVM中并发生成
+ *
+ * @author GreedyStar
+ * @since 2021/5/12
+ */
+public class GenerationEngine {
+
+    private static volatile GenerationEngine instance;
+    /**
+     * 共享线程池，任务队列按节点优先级排序
+     */
+    private final ExecutorService executor;
+    /**
+     * 虚拟线程池，启用虚拟线程模式时延迟创建
+     */
+    private volatile ExecutorService virtualThreadExecutor;
+    /**
+     * 自定义执行器的线程池，按需创建线程；自定义执行器可能再次提交并等待生成完成，不能占用共享线程池的线程，否则会死锁
+     */
+    private final ExecutorService invokerExecutor;
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    private volatile boolean virtualThreadSupported = true;
+    /**
+     * 所有生成过程共享的监听器
+     */
+    private final CompositeListener listeners = CompositeListener.defaults();
+
+    private GenerationEngine(int threads) {
+        AtomicInteger index = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "generator-" + index.incrementAndGet());
+            thread.setDaemon(true); // 不阻止JVM退出，调用方通过返回的future等待生成完成
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+        AtomicInteger invokerIndex = new AtomicInteger();
+        this.invokerExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "generator-invoker-" + invokerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 获取引擎实例
+     *
+     * @return 引擎
+     */
+    public static GenerationEngine getInstance() {
+        if (null == instance) {
+            synchronized (GenerationEngine.class) {
+                if (null == instance) {
+                    instance = new GenerationEngine(Runtime.getRuntime().availableProcessors());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * 注册监听器，对之后提交的所有执行器生效
+     *
+     * @param listener 监听器
+     */
+    public void addListener(GenerationListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 移除监听器
+     *
+     * @param listener 监听器
+     */
+    public void removeListener(GenerationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 提交一批执行器
+     *
+     * @param invokers 执行器
+     * @return 所有任务结束后完成的future，取消该future会跳过尚未开始的任务
+     */
+    public CompletableFuture<GenerationReport> submit(Invoker... invokers) {
+        return submit((ProgressListener) null, invokers);
+    }
+
+    /**
+     * 提交一批执行器
+     *
+     * @param listener 进度回调，可为null
+     * @param invokers 执行器
+     * @return 所有任务结束后完成的future，取消该future会跳过尚未开始的任务
+     */
+    public CompletableFuture<GenerationReport> submit(ProgressListener listener, Invoker... invokers) {
+        return submit(null, listener, invokers);
+    }
+
+    /**
+     * 按指定的上下文提交一批执行器，生成的文件写入上下文的输出目标
+     *
+     * @param context  生成上下文
+     * @param invokers 执行器
+     * @return 所有任务结束后完成的future，取消该future会跳过尚未开始的任务
+     */
+    public CompletableFuture<GenerationReport> submit(GenerationContext context, Invoker... invokers) {
+        return submit(context, null, null, invokers);
+    }
+
+    /**
+     * 在内存中生成代码，不写入文件系统，所有任务结束后返回
+     * <p>
+     * 适用于在构建插件、IDE等长期运行的JVM中嵌入代码生成，生成结果可直接交给javax.tools编译
+     *
+     * @param invokers 执行器
+     * @return 生成结果
+     */
+    public GenerationResult generate(Invoker... invokers) {
+        return generate(new GenerationContext(ConfigUtil.getConfiguration()), invokers);
+    }
+
+    /**
+     * 按指定的上下文在内存中生成代码，忽略上下文的输出目标，所有任务结束后返回
+     *
+     * @param context  生成上下文
+     * @param invokers 执行器
+     * @return 生成结果
+     */
+    public GenerationResult generate(GenerationContext context, Invoker... invokers) {
+        MemorySink sink = new MemorySink();
+        GenerationReport report = submit(context, sink, null, invokers).join();
+        return new GenerationResult(report, sink.getFiles());
+    }
+
+    /**
+     * 提交一批执行器，生成的文件写入指定的输出目标
+     *
+     * @param sink     输出目标，为null时根据配置写入项目目录或归档，生成结束后由引擎关闭
+     * @param listener 进度回调，可为null
+     * @param invokers 执行器
+     * @return 所有任务结束后完成的future，取消该future会跳过尚未开始的任务
+     */
+    public CompletableFuture<GenerationReport> submit(OutputSink sink, ProgressListener listener, Invoker... invokers) {
+        // 配置信息在一次生成过程中只包装一次
+        return submit(new GenerationContext(ConfigUtil.getConfiguration()), sink, listener, invokers);
+    }
+
+    /**
+     * 按指定的上下文提交一批执行器，各执行器及其任务均使用该上下文的配置、类型转换器、元数据来源和模板
+     *
+     * @param context  生成上下文
+     * @param sink     输出目标，为null时使用上下文的输出目标，上下文未指定时根据配置写入项目目录或归档，生成结束后由引擎关闭
+     * @param listener 进度回调，可为null
+     * @param invokers 执行器
+     * @return 所有任务结束后完成的future，取消该future会跳过尚未开始的任务
+     */
+    public CompletableFuture<GenerationReport> submit(GenerationContext context, OutputSink sink, ProgressListener listener,
+                                                      Invoker... invokers) {
+        Configuration configuration = context.getConfiguration();
+        GenerationListener generationListener = getGenerationListener(configuration);
+        if (null == sink) {
+            sink = null == context.getOutputSink() ? getOutputSink(configuration) : context.getOutputSink();
+        }
+        GenerationRun run = new GenerationRun(executor, getIoExecutor(configuration), listener, generationListener, sink);
+        ArtifactRegistry registry = new ArtifactRegistry();
+        OutputSink output = sink;
+        TaskNode plan = new TaskNode(Stage.PLAN, ArtifactRegistry.class.getSimpleName(), Long.MAX_VALUE, false, () -> {
+            List<TaskNode> nodes = new ArrayList<>();
+            for (AbstractTask task : registry.plan()) {
+                nodes.add(taskNodes(context, generationListener, registry, output, task));
+            }
+            return nodes;
+        });
+        // 先建立所有节点之间的依赖，再开始调度，避免合并节点在部分元数据节点加入前就绪
+        List<TaskNode> roots = new ArrayList<>();
+        for (int index = 0; index < invokers.length; index++) {
+            Invoker invoker = invokers[index];
+            if (invoker instanceof AbstractInvoker) {
+                ((AbstractInvoker) invoker).setContext(context);
+                TaskNode metadata = metadataNode(generationListener, registry, index, (AbstractInvoker) invoker);
+                metadata.then(plan);
+                roots.add(metadata);
+            } else { // 自定义执行器，整体作为一个任务在独立的线程中执行
+                roots.add(new TaskNode(Stage.METADATA, invoker.getClass().getSimpleName(), Long.MAX_VALUE, true, () -> {
+                    invoker.execute();
+                    return null;
+                }).runOn(invokerExecutor));
+            }
+        }
+        roots.forEach(run::add);
+        return run.start();
+    }
+
+    /**
+     * 获取元数据的节点，执行后将初始化的任务登记到本次生成的登记中，由合并节点统一生成后续节点
+     *
+     * @param listener 监听器
+     * @param registry 本次生成的登记
+     * @param index    执行器的提交顺序
+     * @param invoker  执行器
+     * @return 节点
+     */
+    private TaskNode metadataNode(GenerationListener listener, ArtifactRegistry registry, int index, AbstractInvoker invoker) {
+        // 元数据节点优先执行，以便尽早确定所有任务及其开销
+        return new TaskNode(Stage.METADATA, getTableName(invoker), Long.MAX_VALUE, false, () -> {
+            long start = System.nanoTime();
+            MetadataSource source = invoker.getMetadataSource();
+            invoker.setMetadataSource(registry.share(source));
+            List<AbstractTask> tasks;
+            try {
+                tasks = invoker.prepare();
+            } finally {
+                invoker.setMetadataSource(source);
+            }
+            listener.onMetadataFetched(invoker, tasks, System.nanoTime() - start);
+            registry.register(index, tasks);
+            return null;
+        });
+    }
+
+    /**
+     * 将任务拆分为依次依赖的三个节点
+     *
+     * @param context  生成上下文
+     * @param listener 监听器
+     * @param registry 本次生成的登记
+     * @param sink     输出目标
+     * @param task     任务
+     * @return 第一个节点
+     */
+    private TaskNode taskNodes(GenerationContext context, GenerationListener listener, ArtifactRegistry registry, OutputSink sink,
+                               AbstractTask task) {
+        String tableName = getTableName(task.getInvoker());
+        long priority = task.getWeight();
+        AtomicReference<Artifact> artifact = new AtomicReference<>();
+        TaskNode snippet = new TaskNode(Stage.SNIPPET, tableName, priority, false, () -> {
+            listener.onTaskStarted(task);
+            artifact.set(task.prepareArtifact());
+            return null;
+        });
+        snippet.then(new TaskNode(Stage.RENDER, tableName, priority, false, () -> {
+            long start = System.nanoTime();
+            FileUtil.render(artifact.get(), context.getDataModel(task.getInvoker(), artifact.get().getData()));
+            listener.onRendered(task, artifact.get(), System.nanoTime() - start);
+            return null;
+        })).then(new TaskNode(Stage.WRITE, tableName, priority, true, () -> {
+            long start = System.nanoTime();
+            if (!registry.claim(artifact.get())) { // 不同的任务生成了同一路径的文件
+                System.err.printf("%s is generated by more than one task, skipped. \n", artifact.get().getPath());
+                return null;
+            }
+            artifact.get().setWritten(sink.write(artifact.get()));
+            listener.onWritten(task, artifact.get(), System.nanoTime() - start);
+            return null;
+        }));
+        return snippet;
+    }
+
+    /**
+     * 获取一次代码生成使用的输出目标，配置了archive时写入归档，否则写入项目目录
+     *
+     * @param configuration 配置信息
+     * @return 输出目标
+     */
+    private OutputSink getOutputSink(Configuration configuration) {
+        String archive = configuration.getArchive();
+        if (StringUtil.isEmpty(archive)) {
+            return new FileSink(FileUtil.getSourcePath(), FileUtil.getResourcePath(), configuration.isFileOverride());
+        }
+        File file = new File(archive);
+        if (!file.isAbsolute()) { // 相对路径以项目根目录为基准
+            file = new File(FileUtil.getProjectPath(), archive);
+        }
+        return new ArchiveSink(file, configuration.isReproducible());
+    }
+
+    /**
+     * 获取一次代码生成使用的监听器，配置了report时额外输出运行报告
+     *
+     * @param configuration 配置信息
+     * @return 监听器
+     */
+    private GenerationListener getGenerationListener(Configuration configuration) {
+        String report = configuration.getReport();
+        if (StringUtil.isEmpty(report)) {
+            return listeners;
+        }
+        File file = new File(report);
+        if (!file.isAbsolute()) { // 相对路径以项目根目录为基准
+            file = new File(FileUtil.getProjectPath(), report);
+        }
+        CompositeListener runListeners = new CompositeListener();
+        runListeners.add(listeners);
+        runListeners.add(new JsonReportListener(file));
+        return runListeners;
+    }
+
+    /**
+     * 获取IO密集型阶段使用的线程池
+     *
+     * @param configuration 配置信息
+     * @return 启用虚拟线程模式且JDK支持时返回虚拟线程池，否则返回共享线程池
+     */
+    private Executor getIoExecutor(Configuration configuration) {
+        if (!configuration.isVirtualThreadEnable() || !virtualThreadSupported) {
+            return executor;
+        }
+        if (null == virtualThreadExecutor) {
+            synchronized (this) {
+                if (null == virtualThreadExecutor && virtualThreadSupported) {
+                    virtualThreadExecutor = newVirtualThreadExecutor();
+                    if (null == virtualThreadExecutor) {
+                        virtualThreadSupported = false;
+                        System.err.println("Virtual threads require JDK 21 or later, platform threads will be used.");
+                    }
+                }
+            }
+        }
+        // 其他线程可能在等待锁期间已判定不支持虚拟线程，此时虚拟线程池仍为null
+        return virtualThreadSupported ? virtualThreadExecutor : executor;
+    }
+
+    /**
+     * 通过反射创建虚拟线程池，保证在Java 8下依然可以编译和运行
+     *
+     * @return 虚拟线程池，JDK不支持时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Java 21以下没有该方法，Java 19/20未启用预览特性时调用会抛出异常
+            return null;
+        }
+    }
+
+    private static String getTableName(AbstractInvoker invoker) {
+        return invoker.getTableName() == null ? invoker.getClass().getSimpleName() : invoker.getTableName();
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.greedystar.generator.engine;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次代码生成的执行报告，按表汇总失败信息
+ *
+ * @author GreedyStar
+ * @since 2021/5/12
+ */
+public class GenerationReport {
+    /**
+     * 任务总数
+     */
+    private final AtomicInteger totalTasks = new AtomicInteger();
+    /**
+     * 已完成任务数，包括失败和跳过的任务
+     */
+    private final AtomicInteger completedTasks = new AtomicInteger();
+    /**
+     * 因取消而跳过的任务数
+     */
+    private final AtomicInteger skippedTasks = new AtomicInteger();
+    /**
+     * 失败信息，表名 -> 异常列表
+     */
+    private final Map<String, List<Throwable>> failures = new ConcurrentHashMap<>();
+
+    void addTasks(int count) {
+        totalTasks.addAndGet(count);
+    }
+
+    int taskCompleted() {
+        return completedTasks.incrementAndGet();
+    }
+
+    void taskSkipped() {
+        skippedTasks.incrementAndGet();
+    }
+
+    void addFailure(String tableName, Throwable throwable) {
+        failures.computeIfAbsent(tableName, k -> new CopyOnWriteArrayList<>()).add(throwable);
+    }
+
+    public int getTotalTasks() {
+        return totalTasks.get();
+    }
+
+    public int getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public int getSkippedTasks() {
+        return skippedTasks.get();
+    }
+
+    /**
+     * 获取失败信息
+     *
+     * @return 表名 -> 异常列表
+     */
+    public Map<String, List<Throwable>> getFailures() {
+        return Collections.unmodifiableMap(new TreeMap<>(failures));
+    }
+
+    /**
+     * 是否全部成功
+     *
+     * @return 没有失败和跳过的任务则返回true
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty() && skippedTasks.get() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GenerationReport{total=%d, completed=%d, skipped=%d, failedTables=%s}",
+                totalTasks.get(), completedTasks.get(), skippedTasks.get(), new TreeSet<>(failures.keySet()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.greedystar.generator.engine;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 在内存中生成代码的结果，见{@link GenerationEngine#generate(com.greedystar.generator.invoker.base.Invoker...)}
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class GenerationResult {
+    /**
+     * 执行报告
+     */
+    private final GenerationReport report;
+    /**
+     * 生成的文件，相对路径 -> 文件内容
+     */
+    private final Map<String, CharSequence> files;
+
+    GenerationResult(GenerationReport report, Map<String, CharSequence> files) {
+        this.report = report;
+        this.files = Collections.unmodifiableMap(files);
+    }
+
+    public GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * 获取生成的文件
+     *
+     * @return 相对路径 -> 文件内容，按路径排序，如 com/greedystar/entity/User.java、mapper/UserMapper.xml
+     */
+    public Map<String, CharSequence> getFiles() {
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return "GenerationResult{files=" + files.size() + ", report=" + report + "}";
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.greedystar.generator.engine;
+
+import com.greedystar.generator.listener.GenerationListener;
+import com.greedystar.generator.output.OutputSink;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次代码生成，负责按依赖关系调度任务节点，并在所有节点结束后完成future
+ *
+ * @author GreedyStar
+ * @since 2021/5/13
+ */
+class GenerationRun {
+    /**
+     * 计算密集型阶段（计算代码段、渲染模板）的线程池
+     */
+    private final Executor executor;
+    /**
+     * IO密集型阶段（获取元数据、写入文件）的线程池
+     */
+    private final Executor ioExecutor;
+    private final ProgressListener listener;
+    private final GenerationListener generationListener;
+    /**
+     * 输出目标，所有节点结束后关闭，有失败或跳过的任务时中止
+     */
+    private final OutputSink sink;
+    /**
+     * 开始时间，用于统计总耗时
+     */
+    private final long startNanos = System.nanoTime();
+    private final GenerationReport report = new GenerationReport();
+    private final CompletableFuture<GenerationReport> future = new CompletableFuture<>();
+    /**
+     * 尚未结束的节点数，初始值1为启动前的占位，保证所有初始节点提交完之前不会提前完成
+     */
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+    /**
+     * 已加入的节点，有多个前驱的节点（如{@link Stage#PLAN}）只计数一次
+     */
+    private final Set<TaskNode> added = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /**
+     * 因前驱节点失败而需要跳过的节点
+     */
+    private final Set<TaskNode> upstreamFailed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    GenerationRun(Executor executor, Executor ioExecutor, ProgressListener listener, GenerationListener generationListener,
+                  OutputSink sink) {
+        this.executor = executor;
+        this.ioExecutor = ioExecutor;
+        this.listener = listener;
+        this.generationListener = generationListener;
+        this.sink = sink;
+    }
+
+    /**
+     * 添加一个没有前驱的节点及其所有后继节点，节点就绪后立即调度
+     *
+     * @param root 节点
+     */
+    void add(TaskNode root) {
+        Deque<TaskNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TaskNode node = stack.pop();
+            if (!added.add(node)) {
+                continue;
+            }
+            outstanding.incrementAndGet();
+            if (node.isTerminal()) {
+                report.addTasks(1);
+            }
+            node.getSuccessors().forEach(stack::push);
+        }
+        if (root.isReady()) {
+            dispatch(root);
+        }
+    }
+
+    /**
+     * 开始执行
+     *
+     * @return 所有节点结束后完成的future
+     */
+    CompletableFuture<GenerationReport> start() {
+        release();
+        return future;
+    }
+
+    private void dispatch(TaskNode node) {
+        if (node.getExecutor() != null) {
+            node.getExecutor().execute(new NodeRunner(node));
+        } else if (node.getStage() == Stage.METADATA || node.getStage() == Stage.WRITE) {
+            ioExecutor.execute(new NodeRunner(node));
+        } else {
+            executor.execute(new NodeRunner(node));
+        }
+    }
+
+    /**
+     * 执行节点
+     *
+     * @param node 节点
+     */
+    private void run(TaskNode node) {
+        if (future.isCancelled()) {
+            finish(node, false);
+            return;
+        }
+        List<TaskNode> expansion;
+        try {
+            expansion = node.execute();
+        } catch (Throwable e) {
+            report.addFailure(node.getTableName(), e);
+            finish(node, false);
+            return;
+        }
+        if (expansion != null) {
+            expansion.forEach(this::add);
+        }
+        finish(node, true);
+    }
+
+    /**
+     * 节点结束，调度就绪的后继节点，失败或取消时跳过所有后继节点；
+     * {@link Stage#PLAN}节点不因个别执行器获取元数据失败而跳过，只处理成功获取元数据的执行器
+     *
+     * @param node      节点
+     * @param succeeded 是否执行成功
+     */
+    private void finish(TaskNode node, boolean succeeded) {
+        if (node.isTerminal()) {
+            if (future.isCancelled()) {
+                report.taskSkipped();
+            }
+            int completed = report.taskCompleted();
+            if (listener != null) {
+                listener.onProgress(completed, report.getTotalTasks());
+            }
+        }
+        for (TaskNode successor : node.getSuccessors()) {
+            boolean skip;
+            synchronized (upstreamFailed) {
+                if (!succeeded && successor.getStage() != Stage.PLAN) {
+                    upstreamFailed.add(successor);
+                }
+                if (!successor.predecessorCompleted()) {
+                    continue;
+                }
+                skip = upstreamFailed.remove(successor);
+            }
+            if (skip) {
+                finish(successor, false);
+            } else {
+                dispatch(successor);
+            }
+        }
+        release();
+    }
+
+    private void release() {
+        if (outstanding.decrementAndGet() == 0) {
+            try {
+                if (report.isSuccess()) {
+                    sink.close();
+                } else {
+                    sink.abort();
+                }
+            } catch (IOException e) {
+                report.addFailure(sink.getClass().getSimpleName(), e);
+            }
+            // 先回调监听器再完成future，保证等待生成结束的调用方能读取到运行报告
+            generationListener.onRunFinished(report, System.nanoTime() - startNanos);
+            future.complete(report);
+        }
+    }
+
+    /**
+     * 线程池中的可排序任务，按节点优先级排序
+     */
+    private class NodeRunner implements Runnable, Comparable<NodeRunner> {
+        private final TaskNode node;
+
+        NodeRunner(TaskNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            GenerationRun.this.run(node);
+        }
+
+        @Override
+        public int compareTo(NodeRunner o) {
+            return node.compareTo(o.node);
+        }
+    }
+
+}
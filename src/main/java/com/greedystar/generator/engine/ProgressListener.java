@@ -0,0 +1,20 @@
+package com.greedystar.generator.engine;
+
+/**
+ * 代码生成进度回调
+ *
+ * @author GreedyStar
+ * @since 2021/5/12
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * 每完成一个任务回调一次，total会随着执行器获取元数据、初始化任务而增长
+     *
+     * @param completed 已完成任务数
+     * @param total     已知任务总数
+     */
+    void onProgress(int completed, int total);
+
+}
@@ -0,0 +1,30 @@
+package com.greedystar.generator.engine;
+
+/**
+ * 代码生成的阶段，同一个文件的各阶段按顺序依次执行
+ *
+ * @author GreedyStar
+ * @since 2021/5/13
+ */
+public enum Stage {
+    /**
+     * 获取表元数据并初始化任务
+     */
+    METADATA,
+    /**
+     * 所有执行器的元数据获取完成后，合并生成同一文件的任务
+     */
+    PLAN,
+    /**
+     * 计算代码段，构造填充数据
+     */
+    SNIPPET,
+    /**
+     * 渲染模板
+     */
+    RENDER,
+    /**
+     * 写入文件
+     */
+    WRITE;
+}
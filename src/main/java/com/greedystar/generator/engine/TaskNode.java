@@ -0,0 +1,137 @@
+package com.greedystar.generator.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务依赖图中的节点，所有前驱节点完成后才会被调度
+ * <p>
+ * 就绪节点按优先级从高到低执行：同一个文件的各阶段共享该文件任务的开销作为优先级，
+ * 开销大的任务先开始（最长处理时间优先），已开始的任务也会优先于开销更小的任务继续执行
+ *
+ * @author GreedyStar
+ * @since 2021/5/13
+ */
+class TaskNode implements Comparable<TaskNode> {
+    /**
+     * 提交顺序，优先级相同时先提交的先执行
+     */
+    private final static AtomicLong SEQUENCE = new AtomicLong();
+
+    private final Stage stage;
+    /**
+     * 所属表名，用于汇总失败信息
+     */
+    private final String tableName;
+    private final long priority;
+    private final long sequence = SEQUENCE.incrementAndGet();
+    private final Action action;
+    /**
+     * 是否为一个文件任务的最后一个节点
+     */
+    private final boolean terminal;
+    private final List<TaskNode> successors = new ArrayList<>();
+    /**
+     * 尚未完成的前驱节点数
+     */
+    private final AtomicInteger pendingPredecessors = new AtomicInteger();
+    /**
+     * 执行节点的线程池，为null时按阶段选择引擎的线程池
+     */
+    private Executor executor;
+
+    TaskNode(Stage stage, String tableName, long priority, boolean terminal, Action action) {
+        this.stage = stage;
+        this.tableName = tableName;
+        this.priority = priority;
+        this.terminal = terminal;
+        this.action = action;
+    }
+
+    /**
+     * 添加后继节点
+     *
+     * @param successor 后继节点
+     * @return 后继节点
+     */
+    TaskNode then(TaskNode successor) {
+        successors.add(successor);
+        successor.pendingPredecessors.incrementAndGet();
+        return successor;
+    }
+
+    /**
+     * 一个前驱节点已完成
+     *
+     * @return 是否所有前驱节点均已完成
+     */
+    boolean predecessorCompleted() {
+        return pendingPredecessors.decrementAndGet() == 0;
+    }
+
+    boolean isReady() {
+        return pendingPredecessors.get() == 0;
+    }
+
+    Stage getStage() {
+        return stage;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 指定执行节点的线程池，用于可能阻塞等待其他节点的动作（如自定义执行器），避免占用引擎的线程
+     *
+     * @param executor 线程池
+     * @return 当前节点
+     */
+    TaskNode runOn(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    boolean isTerminal() {
+        return terminal;
+    }
+
+    List<TaskNode> getSuccessors() {
+        return Collections.unmodifiableList(successors);
+    }
+
+    /**
+     * 执行节点
+     *
+     * @return 执行过程中新产生的节点，如获取元数据后初始化的任务，这些节点在当前节点完成后调度
+     * @throws Exception 执行失败
+     */
+    List<TaskNode> execute() throws Exception {
+        return action.execute();
+    }
+
+    @Override
+    public int compareTo(TaskNode o) {
+        if (priority != o.priority) {
+            return priority > o.priority ? -1 : 1;
+        }
+        return Long.compare(sequence, o.sequence);
+    }
+
+    /**
+     * 节点要执行的动作
+     */
+    @FunctionalInterface
+    interface Action {
+        List<TaskNode> execute() throws Exception;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.greedystar.generator.entity;
 
+import com.greedystar.generator.convertor.TypeConvertor;
 import com.greedystar.generator.utils.ConvertorUtil;
 import com.greedystar.generator.utils.StringUtil;
 
@@ -26,7 +27,7 @@ public class ColumnInfo implements Serializable {
      */
     private JDBCType columnType;
     /**
-     * 数据列类型 -- Java类型
+     * 数据列类型 -- Java类型，为null时由类型转换器根据数据列类型确定
      */
     private String propertyType;
     /**
@@ -42,7 +43,6 @@ public class ColumnInfo implements Serializable {
         this.columnName = columnName;
         this.propertyName = StringUtil.columnName2PropertyName(columnName);
         this.columnType = JDBCType.valueOf(columnType);
-        this.propertyType = ConvertorUtil.parseTypeFormSqlType(JDBCType.valueOf(columnType));
         this.remarks = remarks;
         this.isPrimaryKey = isPrimaryKey;
     }
@@ -71,8 +71,23 @@ public class ColumnInfo implements Serializable {
         this.columnType = columnType;
     }
 
+    /**
+     * 获取Java类型，未指定时使用全局配置的类型转换器
+     *
+     * @return Java类型
+     */
     public String getPropertyType() {
-        return propertyType;
+        return propertyType != null ? propertyType : ConvertorUtil.parseTypeFormSqlType(columnType);
+    }
+
+    /**
+     * 获取Java类型，未指定时使用给定的类型转换器，同一份表结构可以被使用不同转换器的多个配置共享
+     *
+     * @param convertor 类型转换器
+     * @return Java类型
+     */
+    public String getPropertyType(TypeConvertor convertor) {
+        return propertyType != null ? propertyType : convertor.convertType(columnType);
     }
 
     public void setPropertyType(String propertyType) {
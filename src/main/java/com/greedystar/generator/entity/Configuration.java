@@ -1,6 +1,8 @@
 package com.greedystar.generator.entity;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Generator 配置类
@@ -45,6 +47,23 @@ public class Configuration implements Serializable {
      * 文件覆盖
      */
     private boolean fileOverride;
+    /**
+     * 生成缓存，启用后未发生变化的文件直接从.generator-cache中恢复
+     */
+    private boolean cacheEnable;
+    /**
+     * 虚拟线程模式，启用后获取元数据和写入文件在虚拟线程中执行，需要JDK 21及以上版本
+     */
+    private boolean virtualThreadEnable;
+    /**
+     * 可重现模式，启用后同一份表结构和配置生成的文件逐字节相同：文件注释中的日期取自date或元数据快照的创建时间，
+     * 并固定以UTC时区、Locale.ROOT和yyyy-MM-dd格式化，换行符统一为\n，归档中的条目按路径排序并使用固定的修改时间
+     */
+    private boolean reproducible;
+    /**
+     * 文件注释中的日期，格式为yyyy-MM-dd，未配置时使用生成时的日期
+     */
+    private String date;
     /**
      * id策略（auto：数据库自增，uuid：生成uuid）
      */
@@ -57,10 +76,34 @@ public class Configuration implements Serializable {
      * 数据库配置
      */
     private Db db;
+    /**
+     * 元数据快照文件路径，配置后从快照中读取表结构，不再连接数据库
+     */
+    private String snapshot;
+    /**
+     * DDL脚本文件或目录（如Flyway迁移脚本目录），配置后从CREATE TABLE语句中解析表结构，不再连接数据库
+     */
+    private String ddl;
+    /**
+     * 归档文件路径，以.zip或.jar结尾，配置后所有生成的文件写入该归档，不再写入源码和资源目录
+     */
+    private String archive;
+    /**
+     * 运行报告文件路径，配置后在生成结束时输出JSON格式的运行报告，包含各表、各任务的耗时、写入字节数和缓存命中情况
+     */
+    private String report;
     /**
      * 代码文件后缀
      */
     private Name name;
+    /**
+     * 自定义模板目录，模板先从该目录中查找，找不到时使用内置模板；相对路径以项目根目录为基准
+     */
+    private String templateDirectory;
+    /**
+     * 额外的模板，如DTO、VO、测试类等，与内置模板一起由生成引擎并行渲染
+     */
+    private List<Template> templates = new ArrayList<>();
 
     public String getAuthor() {
         return author;
@@ -134,6 +177,38 @@ public class Configuration implements Serializable {
         this.fileOverride = fileOverride;
     }
 
+    public boolean isCacheEnable() {
+        return cacheEnable;
+    }
+
+    public void setCacheEnable(boolean cacheEnable) {
+        this.cacheEnable = cacheEnable;
+    }
+
+    public boolean isVirtualThreadEnable() {
+        return virtualThreadEnable;
+    }
+
+    public void setVirtualThreadEnable(boolean virtualThreadEnable) {
+        this.virtualThreadEnable = virtualThreadEnable;
+    }
+
+    public boolean isReproducible() {
+        return reproducible;
+    }
+
+    public void setReproducible(boolean reproducible) {
+        this.reproducible = reproducible;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
     public IdStrategy getIdStrategy() {
         return idStrategy;
     }
@@ -158,6 +233,38 @@ public class Configuration implements Serializable {
         this.db = db;
     }
 
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getDdl() {
+        return ddl;
+    }
+
+    public void setDdl(String ddl) {
+        this.ddl = ddl;
+    }
+
+    public String getArchive() {
+        return archive;
+    }
+
+    public void setArchive(String archive) {
+        this.archive = archive;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    public void setReport(String report) {
+        this.report = report;
+    }
+
     public Name getName() {
         return name;
     }
@@ -166,6 +273,22 @@ public class Configuration implements Serializable {
         this.name = name;
     }
 
+    public String getTemplateDirectory() {
+        return templateDirectory;
+    }
+
+    public void setTemplateDirectory(String templateDirectory) {
+        this.templateDirectory = templateDirectory;
+    }
+
+    public List<Template> getTemplates() {
+        return templates;
+    }
+
+    public void setTemplates(List<Template> templates) {
+        this.templates = templates;
+    }
+
     /**
      * 数据库配置
      */
@@ -182,6 +305,10 @@ public class Configuration implements Serializable {
          * 数据库密码
          */
         private String password;
+        /**
+         * 获取元数据时同时打开的最大连接数，未配置时使用默认值
+         */
+        private int maxConnections;
 
         public Db() {
         }
@@ -215,6 +342,14 @@ public class Configuration implements Serializable {
         public void setPassword(String password) {
             this.password = password;
         }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
     }
 
     /**
@@ -398,4 +533,91 @@ public class Configuration implements Serializable {
 
     }
 
+    /**
+     * 额外模板的配置，例如：
+     * <pre>
+     * templates:
+     *   - template: Dto.ftl
+     *     name: $sDto.java
+     *     path: dto
+     *   - template: Tables.ftl
+     *     name: tables.md
+     *     path: doc
+     *     resource: true
+     *     scope: SCHEMA
+     * </pre>
+     */
+    public static class Template {
+        /**
+         * 模板文件名，从自定义模板目录或内置模板目录中加载
+         */
+        private String template;
+        /**
+         * 生成的文件名，$s替换为实体类名，如 $sDto.java
+         */
+        private String name;
+        /**
+         * 输出路径，源码文件为顶级包名下的子包名，资源文件为资源目录下的目录
+         */
+        private String path = "";
+        /**
+         * 是否输出到资源目录
+         */
+        private boolean resource;
+        /**
+         * 作用范围，每张表生成一个文件或整个schema生成一个文件
+         */
+        private TemplateScope scope = TemplateScope.TABLE;
+
+        public Template() {
+        }
+
+        public Template(String template, String name, String path) {
+            this.template = template;
+            this.name = name;
+            this.path = path;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        public void setTemplate(String template) {
+            this.template = template;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public boolean isResource() {
+            return resource;
+        }
+
+        public void setResource(boolean resource) {
+            this.resource = resource;
+        }
+
+        public TemplateScope getScope() {
+            return scope;
+        }
+
+        public void setScope(TemplateScope scope) {
+            this.scope = scope;
+        }
+
+    }
+
 }
@@ -0,0 +1,75 @@
+package com.greedystar.generator.entity;
+
+import java.io.Serializable;
+
+/**
+ * 外键列实体，联合外键的每一列对应一个实例，以外键名和序号区分
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class ForeignKeyInfo implements Serializable {
+    /**
+     * 外键名
+     */
+    private String name;
+    /**
+     * 外键所在的表
+     */
+    private String tableName;
+    /**
+     * 外键列名
+     */
+    private String columnName;
+    /**
+     * 引用的表
+     */
+    private String referencedTableName;
+    /**
+     * 引用的列
+     */
+    private String referencedColumnName;
+    /**
+     * 在联合外键中的序号，从1开始
+     */
+    private int sequence;
+
+    public ForeignKeyInfo(String name, String tableName, String columnName, String referencedTableName,
+                          String referencedColumnName, int sequence) {
+        this.name = name;
+        this.tableName = tableName;
+        this.columnName = columnName;
+        this.referencedTableName = referencedTableName;
+        this.referencedColumnName = referencedColumnName;
+        this.sequence = sequence;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public String getReferencedTableName() {
+        return referencedTableName;
+    }
+
+    public String getReferencedColumnName() {
+        return referencedColumnName;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return tableName + "." + columnName + " -> " + referencedTableName + "." + referencedColumnName;
+    }
+}
@@ -0,0 +1,140 @@
+package com.greedystar.generator.entity;
+
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 主表与父表的关系信息，作为模板数据供代码段指令使用
+ *
+ * @author GreedyStar
+ * @since 2021/5/16
+ */
+public class RelationInfo implements Serializable {
+    /**
+     * 主表名
+     */
+    private final String tableName;
+    /**
+     * 主类名
+     */
+    private final String className;
+    /**
+     * 外键列名
+     */
+    private final String foreignKey;
+    /**
+     * 父表名
+     */
+    private final String parentTableName;
+    /**
+     * 父类名
+     */
+    private final String parentClassName;
+    /**
+     * 父表的列
+     */
+    private final List<ColumnInfo> parentColumns;
+    /**
+     * 关系表名
+     */
+    private final String relationalTableName;
+    /**
+     * 父表外键列名
+     */
+    private final String parentForeignKey;
+
+    public RelationInfo(AbstractInvoker invoker) {
+        this.tableName = invoker.getTableName();
+        this.className = invoker.getClassName();
+        this.foreignKey = invoker.getForeignKey();
+        this.parentTableName = invoker.getParentTableName();
+        this.parentClassName = invoker.getParentClassName();
+        this.parentColumns = invoker.getParentTableInfo() == null ? null : invoker.getParentTableInfo().getColumnsInfo();
+        this.relationalTableName = invoker.getRelationalTableName();
+        this.parentForeignKey = invoker.getParentForeignKey();
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getForeignKey() {
+        return foreignKey;
+    }
+
+    public String getParentTableName() {
+        return parentTableName;
+    }
+
+    public String getParentClassName() {
+        return parentClassName;
+    }
+
+    public List<ColumnInfo> getParentColumns() {
+        return parentColumns;
+    }
+
+    public String getRelationalTableName() {
+        return relationalTableName;
+    }
+
+    public String getParentForeignKey() {
+        return parentForeignKey;
+    }
+
+    /**
+     * 父表以集合形式出现在主表实体中（多对多、一对多）
+     *
+     * @return 是否集合
+     */
+    public boolean isCollection() {
+        return !StringUtil.isEmpty(relationalTableName) || !StringUtil.isEmpty(parentForeignKey);
+    }
+
+    /**
+     * 获取多对一关系中主表引用父表的外键列，该列的值取自父表实体的主键
+     *
+     * @return 外键列名，其他关系返回null
+     */
+    public String getManyToOneForeignKey() {
+        if (StringUtil.isEmpty(relationalTableName) && !StringUtil.isEmpty(foreignKey)) {
+            return foreignKey;
+        }
+        return null;
+    }
+
+    /**
+     * 获取主表实体中表示该关系的属性名，如 office、articles
+     *
+     * @return 属性名，单表时返回null
+     */
+    public String getPropertyName() {
+        if (isCollection()) {
+            return StringUtil.firstToLowerCase(parentClassName) + "s";
+        }
+        return StringUtil.isEmpty(foreignKey) ? null : StringUtil.firstToLowerCase(parentClassName);
+    }
+
+    /**
+     * 列是否为任一关系中需要从实体属性中排除的外键列
+     *
+     * @param relations  表关系
+     * @param columnName 列名
+     * @return 是否外键列
+     */
+    public static boolean isForeignKey(List<RelationInfo> relations, String columnName) {
+        for (RelationInfo relation : relations) {
+            if (columnName.equals(relation.getForeignKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package com.greedystar.generator.entity;
+
+/**
+ * 额外模板的作用范围
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public enum TemplateScope {
+    /**
+     * 每张表生成一个文件
+     */
+    TABLE,
+    /**
+     * 同一次生成涉及的所有表共同生成一个文件
+     */
+    SCHEMA;
+}
@@ -0,0 +1,111 @@
+package com.greedystar.generator.invoker;
+
+import com.greedystar.generator.invoker.base.AbstractBuilder;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.util.*;
+
+/**
+ * 批量执行器，一次性读取整个schema的元数据，为每张表生成单表代码
+ *
+ * @author GreedyStar
+ * @since 2021/5/8
+ */
+public class BatchInvoker extends AbstractInvoker {
+    /**
+     * 表名匹配模式
+     */
+    private String tableNamePattern = "%";
+    /**
+     * 需要生成的表，为空则生成所有匹配的表
+     */
+    private Set<String> includeTables = new HashSet<>();
+    /**
+     * 需要排除的表
+     */
+    private Set<String> excludeTables = new HashSet<>();
+    /**
+     * 所有待生成表的元数据
+     */
+    private List<TableInfo> tableInfos;
+
+    private BatchInvoker() {
+    }
+
+    @Override
+    protected void queryMetaData() throws Exception {
+        tableInfos = new ArrayList<>();
+        for (TableInfo info : getMetadataSource().getTableInfos(tableNamePattern)) {
+            if (!includeTables.isEmpty() && !includeTables.contains(info.getTableName())) {
+                continue;
+            }
+            if (excludeTables.contains(info.getTableName())) {
+                continue;
+            }
+            tableInfos.add(info);
+        }
+        if (tableInfos.isEmpty()) {
+            throw new Exception("Can not find any table matching pattern:" + tableNamePattern);
+        }
+    }
+
+    @Override
+    protected void initTasks() {
+        for (TableInfo info : tableInfos) {
+            AbstractInvoker invoker = (AbstractInvoker) new SingleInvoker.Builder()
+                    .setTableName(info.getTableName())
+                    .build();
+            invoker.setTableInfo(info);
+            invoker.setContext(getContext());
+            taskQueue.initSingleTasks(invoker);
+        }
+    }
+
+    public String getTableNamePattern() {
+        return tableNamePattern;
+    }
+
+    public void setTableNamePattern(String tableNamePattern) {
+        this.tableNamePattern = tableNamePattern;
+    }
+
+    public Set<String> getIncludeTables() {
+        return includeTables;
+    }
+
+    public Set<String> getExcludeTables() {
+        return excludeTables;
+    }
+
+    public static class Builder extends AbstractBuilder {
+
+        public Builder() {
+            invoker = new BatchInvoker();
+        }
+
+        public Builder setTableNamePattern(String tableNamePattern) {
+            ((BatchInvoker) invoker).setTableNamePattern(tableNamePattern);
+            return this;
+        }
+
+        public Builder setIncludeTables(String... tableNames) {
+            ((BatchInvoker) invoker).getIncludeTables().addAll(Arrays.asList(tableNames));
+            return this;
+        }
+
+        public Builder setExcludeTables(String... tableNames) {
+            ((BatchInvoker) invoker).getExcludeTables().addAll(Arrays.asList(tableNames));
+            return this;
+        }
+
+        @Override
+        public void checkBeforeBuild() throws Exception {
+            if (StringUtil.isEmpty(((BatchInvoker) invoker).getTableNamePattern())) {
+                throw new Exception("Table name pattern can't be null.");
+            }
+        }
+    }
+
+}
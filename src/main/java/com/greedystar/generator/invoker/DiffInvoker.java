@@ -0,0 +1,183 @@
+package com.greedystar.generator.invoker;
+
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.db.SchemaDiff;
+import com.greedystar.generator.db.SnapshotMetadataSource;
+import com.greedystar.generator.invoker.base.AbstractBuilder;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * 差异执行器，比较基准表结构（如上一次导出的元数据快照）与当前表结构，只重新生成受列级变化影响的文件
+ * <p>
+ * 新增的表生成所有文件；发生变化的表只执行{@link AbstractTask#isAffectedBy(SchemaDiff.TableDiff)}为true的任务，
+ * 如只修改列注释时只重新生成实体类，不会改写Controller和Mapper；删除的表只输出提示，已生成的文件不做处理。
+ * 与{@link BatchInvoker}一致，每张表生成单表代码
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class DiffInvoker extends AbstractInvoker {
+    /**
+     * 表名匹配模式
+     */
+    private String tableNamePattern = "%";
+    /**
+     * 需要排除的表
+     */
+    private Set<String> excludeTables = new HashSet<>();
+    /**
+     * 基准表结构的来源
+     */
+    private MetadataSource baseline;
+    /**
+     * 预先计算的差异，配置后不再读取表结构
+     */
+    private SchemaDiff schemaDiff;
+    /**
+     * 本次生成使用的差异
+     */
+    private SchemaDiff diff;
+
+    private DiffInvoker() {
+    }
+
+    @Override
+    protected void queryMetaData() throws Exception {
+        if (schemaDiff != null) {
+            diff = schemaDiff;
+        } else {
+            diff = SchemaDiff.compare(filter(baseline.getTableInfos(tableNamePattern)),
+                    filter(getMetadataSource().getTableInfos(tableNamePattern)));
+        }
+        System.out.print(diff.isEmpty() ? "No schema changes \n" : diff.toString());
+    }
+
+    @Override
+    protected void initTasks() {
+        for (SchemaDiff.TableDiff tableDiff : diff.getTableDiffs().values()) {
+            if (tableDiff.isDropped()) {
+                System.out.printf("Table %s has been dropped, generated files are kept. \n", tableDiff.getTableName());
+                continue;
+            }
+            AbstractInvoker invoker = (AbstractInvoker) new SingleInvoker.Builder()
+                    .setTableName(tableDiff.getTableName())
+                    .build();
+            invoker.setTableInfo(tableDiff.getTo());
+            invoker.setContext(getContext());
+            taskQueue.initSingleTasks(invoker);
+        }
+    }
+
+    @Override
+    public List<AbstractTask> prepare() throws Exception {
+        List<AbstractTask> tasks = super.prepare();
+        tasks.removeIf(task -> !task.isAffectedBy(diff.getTableDiff(task.getInvoker().getTableName())));
+        return tasks;
+    }
+
+    /**
+     * 去除需要排除的表
+     *
+     * @param tableInfos 表结构数据
+     * @return 需要比较的表
+     */
+    private List<TableInfo> filter(List<TableInfo> tableInfos) {
+        List<TableInfo> result = new ArrayList<>();
+        for (TableInfo info : tableInfos) {
+            if (!excludeTables.contains(info.getTableName())) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    public String getTableNamePattern() {
+        return tableNamePattern;
+    }
+
+    public void setTableNamePattern(String tableNamePattern) {
+        this.tableNamePattern = tableNamePattern;
+    }
+
+    public Set<String> getExcludeTables() {
+        return excludeTables;
+    }
+
+    public MetadataSource getBaseline() {
+        return baseline;
+    }
+
+    public void setBaseline(MetadataSource baseline) {
+        this.baseline = baseline;
+    }
+
+    public SchemaDiff getSchemaDiff() {
+        return schemaDiff;
+    }
+
+    public void setSchemaDiff(SchemaDiff schemaDiff) {
+        this.schemaDiff = schemaDiff;
+    }
+
+    public static class Builder extends AbstractBuilder {
+
+        public Builder() {
+            invoker = new DiffInvoker();
+        }
+
+        public Builder setTableNamePattern(String tableNamePattern) {
+            ((DiffInvoker) invoker).setTableNamePattern(tableNamePattern);
+            return this;
+        }
+
+        public Builder setExcludeTables(String... tableNames) {
+            ((DiffInvoker) invoker).getExcludeTables().addAll(Arrays.asList(tableNames));
+            return this;
+        }
+
+        /**
+         * @param baseline 基准表结构的来源，当前表结构来自执行器或上下文的元数据来源
+         * @return Builder
+         */
+        public Builder setBaseline(MetadataSource baseline) {
+            ((DiffInvoker) invoker).setBaseline(baseline);
+            return this;
+        }
+
+        /**
+         * @param snapshot 作为基准的元数据快照文件，见{@link com.greedystar.generator.db.SchemaSnapshot#export}
+         * @return Builder
+         */
+        public Builder setBaselineSnapshot(String snapshot) {
+            ((DiffInvoker) invoker).setBaseline(new SnapshotMetadataSource(new File(snapshot)));
+            return this;
+        }
+
+        /**
+         * @param schemaDiff 预先计算的差异，如比较两个元数据快照的结果
+         * @return Builder
+         */
+        public Builder setSchemaDiff(SchemaDiff schemaDiff) {
+            ((DiffInvoker) invoker).setSchemaDiff(schemaDiff);
+            return this;
+        }
+
+        @Override
+        public void checkBeforeBuild() throws Exception {
+            DiffInvoker diffInvoker = (DiffInvoker) invoker;
+            if (diffInvoker.getSchemaDiff() == null && diffInvoker.getBaseline() == null) {
+                throw new Exception("Baseline metadata source or schema diff can't be null.");
+            }
+            if (diffInvoker.getSchemaDiff() == null && StringUtil.isEmpty(diffInvoker.getTableNamePattern())) {
+                throw new Exception("Table name pattern can't be null.");
+            }
+        }
+    }
+
+}
@@ -2,9 +2,12 @@ package com.greedystar.generator.invoker;
 
 import com.greedystar.generator.invoker.base.AbstractBuilder;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
-import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.invoker.base.TableInfo;
 import com.greedystar.generator.utils.StringUtil;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * @author GreedyStar
  * @since 2020/7/31
@@ -17,8 +20,14 @@ public class Many2OneInvoker extends AbstractInvoker {
 
     @Override
     protected void queryMetaData() throws Exception {
-        tableInfo = connectionUtil.getTableInfo(tableName);
-        parentTableInfo = connectionUtil.getTableInfo(parentTableName);
+        // 配置随生成上下文确定，在执行时而非创建执行器时检查
+        if (getContext().getConfiguration().isMybatisPlusEnable() || getContext().getConfiguration().isJpaEnable()) {
+            throw new Exception("JPA mode and Mybatis-Plus mode only supported in SingleInvoker.");
+        }
+        // 主表和父表的元数据同时获取
+        List<TableInfo> tableInfos = getMetadataSource().getTableInfos(Arrays.asList(tableName, parentTableName));
+        tableInfo = tableInfos.get(0);
+        parentTableInfo = tableInfos.get(1);
     }
 
     @Override
@@ -59,9 +68,6 @@ public class Many2OneInvoker extends AbstractInvoker {
 
         @Override
         public void checkBeforeBuild() throws Exception {
-            if (ConfigUtil.getConfiguration().isMybatisPlusEnable() || ConfigUtil.getConfiguration().isJpaEnable()) {
-                throw new Exception("JPA mode and Mybatis-Plus mode only supported in SingleInvoker.");
-            }
             if (StringUtil.isEmpty(invoker.getTableName())) {
                 throw new Exception("Table name can't be null.");
             }
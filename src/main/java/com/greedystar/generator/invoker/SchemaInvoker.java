@@ -0,0 +1,249 @@
+package com.greedystar.generator.invoker;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.AbstractBuilder;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.util.*;
+
+/**
+ * 按外键自动发现关系的批量执行器，一次性读取整个schema的表结构和外键，为每张表规划关系并在同一次生成中完成
+ * <p>
+ * 只包含两个外键列和主键列的表视为多对多的关系表，不单独生成代码，两侧的表分别生成多对多关系；
+ * 其他表依次生成 多对一（该表上的外键）、多对多、一对多（其他表引用该表的外键）的所有关系，没有关系的表生成单表代码。
+ * 同一张表的多个关系由引擎合并到同一个实体和Mapper中，父表实体由父表自身的任务生成；每张表的元数据只读取一次，由各关系共享
+ * <p>
+ * 联合外键和自引用外键不参与关系规划；JPA和Mybatis-Plus模式不支持关系，所有表均生成单表代码
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class SchemaInvoker extends AbstractInvoker {
+    /**
+     * 表名匹配模式
+     */
+    private String tableNamePattern = "%";
+    /**
+     * 需要排除的表
+     */
+    private Set<String> excludeTables = new HashSet<>();
+    /**
+     * 所有待生成表的元数据，表名 -> 表结构数据
+     */
+    private Map<String, TableInfo> tableInfos;
+    /**
+     * 所有待生成表上的外键
+     */
+    private List<ForeignKeyInfo> foreignKeys;
+
+    private SchemaInvoker() {
+    }
+
+    @Override
+    protected void queryMetaData() throws Exception {
+        tableInfos = new TreeMap<>();
+        for (TableInfo info : getMetadataSource().getTableInfos(tableNamePattern)) {
+            if (!excludeTables.contains(info.getTableName())) {
+                tableInfos.put(info.getTableName(), info);
+            }
+        }
+        if (tableInfos.isEmpty()) {
+            throw new Exception("Can not find any table matching pattern:" + tableNamePattern);
+        }
+        foreignKeys = getMetadataSource().getForeignKeys(tableNamePattern);
+    }
+
+    @Override
+    protected void initTasks() {
+        Configuration configuration = getContext().getConfiguration();
+        boolean relationSupported = !configuration.isMybatisPlusEnable() && !configuration.isJpaEnable();
+        if (!relationSupported) {
+            System.out.println("JPA mode and Mybatis-Plus mode only supported in SingleInvoker, relationships are not generated.");
+        }
+        Map<String, List<ForeignKeyInfo>> importedKeys = relationSupported ? getImportedKeys() : Collections.emptyMap();
+        Set<String> joinTables = getJoinTables(importedKeys);
+        for (TableInfo info : tableInfos.values()) {
+            if (joinTables.contains(info.getTableName())) {
+                continue;
+            }
+            if (!initRelationTasks(info, importedKeys, joinTables)) { // 没有关系的表
+                AbstractInvoker invoker = (AbstractInvoker) new SingleInvoker.Builder()
+                        .setTableName(info.getTableName())
+                        .build();
+                invoker.setTableInfo(info);
+                invoker.setContext(getContext());
+                taskQueue.initSingleTasks(invoker);
+            }
+        }
+    }
+
+    /**
+     * 获取参与关系规划的外键，只保留两端都是待生成表的单列外键
+     *
+     * @return 表名 -> 该表上的外键，按列名排序
+     */
+    private Map<String, List<ForeignKeyInfo>> getImportedKeys() {
+        Map<String, List<ForeignKeyInfo>> keys = new LinkedHashMap<>();
+        for (ForeignKeyInfo foreignKey : foreignKeys) {
+            keys.computeIfAbsent(foreignKey.getTableName() + "." + foreignKey.getName(), k -> new ArrayList<>()).add(foreignKey);
+        }
+        Map<String, List<ForeignKeyInfo>> importedKeys = new TreeMap<>();
+        for (List<ForeignKeyInfo> columns : keys.values()) {
+            ForeignKeyInfo foreignKey = columns.get(0);
+            if (!tableInfos.containsKey(foreignKey.getTableName()) || !tableInfos.containsKey(foreignKey.getReferencedTableName())) {
+                continue;
+            }
+            if (columns.size() > 1 || foreignKey.getTableName().equals(foreignKey.getReferencedTableName())) {
+                System.out.printf("Composite or self-referencing foreign key %s on table %s is not supported, skipped. \n",
+                        foreignKey.getName(), foreignKey.getTableName());
+                continue;
+            }
+            importedKeys.computeIfAbsent(foreignKey.getTableName(), k -> new ArrayList<>()).add(foreignKey);
+        }
+        importedKeys.values().forEach(list -> list.sort(Comparator.comparing(ForeignKeyInfo::getColumnName)));
+        return importedKeys;
+    }
+
+    /**
+     * 查找多对多关系表：恰好有两个引用不同表的外键，除外键列和主键列外没有其他列，且未被其他表引用
+     *
+     * @param importedKeys 表名 -> 该表上的外键
+     * @return 关系表
+     */
+    private Set<String> getJoinTables(Map<String, List<ForeignKeyInfo>> importedKeys) {
+        Set<String> referencedTables = new HashSet<>();
+        importedKeys.values().forEach(list -> list.forEach(key -> referencedTables.add(key.getReferencedTableName())));
+        Set<String> joinTables = new TreeSet<>();
+        for (Map.Entry<String, List<ForeignKeyInfo>> entry : importedKeys.entrySet()) {
+            List<ForeignKeyInfo> keys = entry.getValue();
+            if (keys.size() != 2 || referencedTables.contains(entry.getKey())
+                    || keys.get(0).getReferencedTableName().equals(keys.get(1).getReferencedTableName())) {
+                continue;
+            }
+            boolean pure = true;
+            for (ColumnInfo column : tableInfos.get(entry.getKey()).getColumnsInfo()) {
+                if (!column.isPrimaryKey() && !column.getColumnName().equals(keys.get(0).getColumnName())
+                        && !column.getColumnName().equals(keys.get(1).getColumnName())) {
+                    pure = false;
+                    break;
+                }
+            }
+            if (pure) {
+                joinTables.add(entry.getKey());
+            }
+        }
+        return joinTables;
+    }
+
+    /**
+     * 为表的每个关系初始化对应的任务
+     *
+     * @param info         表结构数据
+     * @param importedKeys 表名 -> 该表上的外键
+     * @param joinTables   多对多关系表
+     * @return 是否存在关系
+     */
+    private boolean initRelationTasks(TableInfo info, Map<String, List<ForeignKeyInfo>> importedKeys, Set<String> joinTables) {
+        String tableName = info.getTableName();
+        boolean related = false;
+        // 多对一：该表上的外键
+        for (ForeignKeyInfo key : importedKeys.getOrDefault(tableName, Collections.emptyList())) {
+            AbstractInvoker invoker = (AbstractInvoker) new Many2OneInvoker.Builder()
+                    .setTableName(tableName)
+                    .setParentTableName(key.getReferencedTableName())
+                    .setForeignKey(key.getColumnName())
+                    .build();
+            invoker.setTableInfo(info);
+            invoker.setContext(getContext());
+            invoker.setParentTableInfo(tableInfos.get(key.getReferencedTableName()));
+            taskQueue.initMany2OneTasks(invoker);
+            related = true;
+        }
+        // 多对多：关系表的一个外键引用该表
+        for (String joinTable : joinTables) {
+            List<ForeignKeyInfo> keys = importedKeys.get(joinTable);
+            for (int i = 0; i < keys.size(); i++) {
+                ForeignKeyInfo key = keys.get(i);
+                ForeignKeyInfo parentKey = keys.get(1 - i);
+                if (!key.getReferencedTableName().equals(tableName)) {
+                    continue;
+                }
+                AbstractInvoker invoker = (AbstractInvoker) new Many2ManyInvoker.Builder()
+                        .setTableName(tableName)
+                        .setParentTableName(parentKey.getReferencedTableName())
+                        .setRelationTableName(joinTable)
+                        .setForeignKey(key.getColumnName())
+                        .setParentForeignKey(parentKey.getColumnName())
+                        .build();
+                invoker.setTableInfo(info);
+                invoker.setContext(getContext());
+                invoker.setParentTableInfo(tableInfos.get(parentKey.getReferencedTableName()));
+                taskQueue.initMany2ManyTasks(invoker);
+                related = true;
+            }
+        }
+        // 一对多：其他表上引用该表的外键
+        for (Map.Entry<String, List<ForeignKeyInfo>> entry : importedKeys.entrySet()) {
+            if (joinTables.contains(entry.getKey())) {
+                continue;
+            }
+            for (ForeignKeyInfo key : entry.getValue()) {
+                if (!key.getReferencedTableName().equals(tableName)) {
+                    continue;
+                }
+                AbstractInvoker invoker = (AbstractInvoker) new One2ManyInvoker.Builder()
+                        .setTableName(tableName)
+                        .setParentTableName(key.getTableName())
+                        .setParentForeignKey(key.getColumnName())
+                        .build();
+                invoker.setTableInfo(info);
+                invoker.setContext(getContext());
+                invoker.setParentTableInfo(tableInfos.get(key.getTableName()));
+                taskQueue.initOne2ManyTasks(invoker);
+                related = true;
+            }
+        }
+        return related;
+    }
+
+    public String getTableNamePattern() {
+        return tableNamePattern;
+    }
+
+    public void setTableNamePattern(String tableNamePattern) {
+        this.tableNamePattern = tableNamePattern;
+    }
+
+    public Set<String> getExcludeTables() {
+        return excludeTables;
+    }
+
+    public static class Builder extends AbstractBuilder {
+
+        public Builder() {
+            invoker = new SchemaInvoker();
+        }
+
+        public Builder setTableNamePattern(String tableNamePattern) {
+            ((SchemaInvoker) invoker).setTableNamePattern(tableNamePattern);
+            return this;
+        }
+
+        public Builder setExcludeTables(String... tableNames) {
+            ((SchemaInvoker) invoker).getExcludeTables().addAll(Arrays.asList(tableNames));
+            return this;
+        }
+
+        @Override
+        public void checkBeforeBuild() throws Exception {
+            if (StringUtil.isEmpty(((SchemaInvoker) invoker).getTableNamePattern())) {
+                throw new Exception("Table name pattern can't be null.");
+            }
+        }
+    }
+
+}
@@ -15,7 +15,7 @@ public class SingleInvoker extends AbstractInvoker {
 
     @Override
     protected void queryMetaData() throws Exception {
-        tableInfo = connectionUtil.getTableInfo(tableName);
+        tableInfo = getMetadataSource().getTableInfo(tableName);
     }
 
     @Override
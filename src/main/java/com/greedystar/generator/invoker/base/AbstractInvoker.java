@@ -1,15 +1,14 @@
 package com.greedystar.generator.invoker.base;
 
-import com.greedystar.generator.db.ConnectionUtil;
-import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.db.MetadataSource;
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.engine.GenerationEngine;
+import com.greedystar.generator.engine.GenerationReport;
 import com.greedystar.generator.task.base.AbstractTask;
 import com.greedystar.generator.utils.TaskQueue;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * @author GreedyStar
@@ -53,17 +52,17 @@ public abstract class AbstractInvoker implements Invoker {
      */
     protected TableInfo parentTableInfo;
     /**
-     * 数据库连接工具
+     * 元数据来源，未指定时使用上下文的元数据来源
      */
-    protected ConnectionUtil connectionUtil = new ConnectionUtil();
+    private MetadataSource metadataSource;
     /**
-     * 任务队列
+     * 代码生成的上下文，由{@link GenerationEngine}在获取元数据前设置
      */
-    protected TaskQueue taskQueue = new TaskQueue();
+    private GenerationContext context;
     /**
-     * 线程池
+     * 任务队列
      */
-    private ExecutorService executorPool = Executors.newFixedThreadPool(6);
+    protected TaskQueue taskQueue = new TaskQueue();
 
     /**
      * 获取表元数据，模板方法，由子类实现
@@ -78,29 +77,49 @@ public abstract class AbstractInvoker implements Invoker {
     protected abstract void initTasks();
 
     /**
-     * 开始生成代码
+     * 获取元数据并初始化代码生成任务，由{@link GenerationEngine}调用
+     *
+     * @return 代码生成任务
+     * @throws Exception 获取元数据失败则抛出异常
+     */
+    public List<AbstractTask> prepare() throws Exception {
+        queryMetaData();
+        initTasks();
+        List<AbstractTask> tasks = new ArrayList<>();
+        while (!taskQueue.isEmpty()) {
+            tasks.add(taskQueue.poll());
+        }
+        return tasks;
+    }
+
+    /**
+     * 开始生成代码，在共享的生成引擎中执行，所有任务结束后返回
      */
     @Override
     public void execute() {
-        try {
-            queryMetaData();
-            initTasks();
-            while (!taskQueue.isEmpty()) {
-                AbstractTask task = taskQueue.poll();
-                executorPool.execute(() -> {
-                    try {
-                        task.run();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    } catch (TemplateException e) {
-                        e.printStackTrace();
-                    }
-                });
-            }
-            executorPool.shutdown();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        GenerationReport report = GenerationEngine.getInstance().submit(this).join();
+        report.getFailures().values().forEach(throwables -> throwables.forEach(Throwable::printStackTrace));
+    }
+
+    public MetadataSource getMetadataSource() {
+        return metadataSource == null ? getContext().getMetadataSource() : metadataSource;
+    }
+
+    public void setMetadataSource(MetadataSource metadataSource) {
+        this.metadataSource = metadataSource;
+    }
+
+    /**
+     * 获取代码生成的上下文，未经生成引擎执行时使用按全局配置创建的上下文
+     *
+     * @return 上下文
+     */
+    public GenerationContext getContext() {
+        return context == null ? GenerationContext.getDefault() : context;
+    }
+
+    public void setContext(GenerationContext context) {
+        this.context = context;
     }
 
     public void setClassName(String className) {
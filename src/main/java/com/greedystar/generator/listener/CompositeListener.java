@@ -0,0 +1,124 @@
+package com.greedystar.generator.listener;
+
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 组合多个监听器，依次回调，单个监听器抛出的异常不影响代码生成和其他监听器
+ *
+ * @author GreedyStar
+ * @since 2021/5/17
+ */
+public class CompositeListener implements GenerationListener {
+    /**
+     * JFR事件监听器类名，只在JDK提供jdk.jfr模块时加载
+     */
+    private final static String JFR_LISTENER = "com.greedystar.generator.listener.JfrListener";
+
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 创建包含默认监听器的组合监听器：通过ServiceLoader声明的监听器，以及JDK支持时的JFR事件监听器
+     *
+     * @return 组合监听器
+     */
+    public static CompositeListener defaults() {
+        CompositeListener composite = new CompositeListener();
+        for (GenerationListener listener : ServiceLoader.load(GenerationListener.class)) {
+            composite.add(listener);
+        }
+        GenerationListener jfrListener = newJfrListener();
+        if (jfrListener != null) {
+            composite.add(jfrListener);
+        }
+        return composite;
+    }
+
+    /**
+     * 通过反射创建JFR事件监听器，保证在没有jdk.jfr模块的JDK上依然可以运行
+     *
+     * @return JFR事件监听器，JDK不支持时返回null
+     */
+    private static GenerationListener newJfrListener() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (GenerationListener) Class.forName(JFR_LISTENER).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public void add(GenerationListener listener) {
+        listeners.add(listener);
+    }
+
+    public void remove(GenerationListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    @Override
+    public void onMetadataFetched(AbstractInvoker invoker, List<AbstractTask> tasks, long nanos) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.onMetadataFetched(invoker, tasks, nanos);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void onTaskStarted(AbstractTask task) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.onTaskStarted(task);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void onRendered(AbstractTask task, Artifact artifact, long nanos) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.onRendered(task, artifact, nanos);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void onWritten(AbstractTask task, Artifact artifact, long nanos) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.onWritten(task, artifact, nanos);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void onRunFinished(GenerationReport report, long nanos) {
+        for (GenerationListener listener : listeners) {
+            try {
+                listener.onRunFinished(report, nanos);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
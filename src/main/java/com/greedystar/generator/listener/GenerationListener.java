@@ -0,0 +1,70 @@
+package com.greedystar.generator.listener;
+
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+
+import java.util.List;
+
+/**
+ * 代码生成过程的监听器，用于统计各阶段耗时、输出运行报告等
+ * <p>
+ * 通过{@link com.greedystar.generator.engine.GenerationEngine#addListener(GenerationListener)}注册，
+ * 或在META-INF/services/com.greedystar.generator.listener.GenerationListener中声明实现类，由引擎启动时自动加载
+ * <p>
+ * 回调在执行各阶段的线程中同步执行，实现类需要保证线程安全，且不应执行耗时操作
+ *
+ * @author GreedyStar
+ * @since 2021/5/17
+ */
+public interface GenerationListener {
+
+    /**
+     * 执行器获取元数据并初始化任务后回调
+     *
+     * @param invoker 执行器
+     * @param tasks   初始化的任务
+     * @param nanos   耗时（纳秒）
+     */
+    default void onMetadataFetched(AbstractInvoker invoker, List<AbstractTask> tasks, long nanos) {
+    }
+
+    /**
+     * 任务开始构造填充数据前回调
+     *
+     * @param task 任务
+     */
+    default void onTaskStarted(AbstractTask task) {
+    }
+
+    /**
+     * 模板渲染完成后回调，从生成缓存中恢复时{@link Artifact#isCacheHit()}为true
+     *
+     * @param task     任务
+     * @param artifact 渲染后的文件
+     * @param nanos    耗时（纳秒）
+     */
+    default void onRendered(AbstractTask task, Artifact artifact, long nanos) {
+    }
+
+    /**
+     * 文件写入完成后回调，内容未发生变化而跳过写入时{@link Artifact#isWritten()}为false
+     *
+     * @param task     任务
+     * @param artifact 写入的文件
+     * @param nanos    耗时（纳秒）
+     */
+    default void onWritten(AbstractTask task, Artifact artifact, long nanos) {
+    }
+
+    /**
+     * 一次代码生成的所有任务结束后回调
+     *
+     * @param report 执行报告
+     * @param nanos  总耗时（纳秒）
+     */
+    default void onRunFinished(GenerationReport report, long nanos) {
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.greedystar.generator.listener;
+
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+import jdk.jfr.*;
+
+import java.util.List;
+
+/**
+ * 将代码生成的各阶段记录为JFR事件，未开启JFR记录时事件不会提交，开销可以忽略
+ * <p>
+ * 该类依赖jdk.jfr模块，由{@link CompositeListener#defaults()}在JDK支持时通过反射加载
+ *
+ * @author GreedyStar
+ * @since 2021/5/17
+ */
+public class JfrListener implements GenerationListener {
+
+    @Override
+    public void onMetadataFetched(AbstractInvoker invoker, List<AbstractTask> tasks, long nanos) {
+        MetadataFetchedEvent event = new MetadataFetchedEvent();
+        if (event.shouldCommit()) {
+            event.invoker = invoker.getClass().getSimpleName();
+            event.tableName = invoker.getTableName();
+            event.tasks = tasks.size();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onTaskStarted(AbstractTask task) {
+        TaskStartedEvent event = new TaskStartedEvent();
+        if (event.shouldCommit()) {
+            event.tableName = task.getInvoker().getTableName();
+            event.task = task.getClass().getSimpleName();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRendered(AbstractTask task, Artifact artifact, long nanos) {
+        RenderedEvent event = new RenderedEvent();
+        if (event.shouldCommit()) {
+            event.tableName = task.getInvoker().getTableName();
+            event.task = task.getClass().getSimpleName();
+            event.fileName = artifact.getFileName();
+            event.bytes = artifact.getContent().length;
+            event.cacheHit = artifact.isCacheHit();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onWritten(AbstractTask task, Artifact artifact, long nanos) {
+        WrittenEvent event = new WrittenEvent();
+        if (event.shouldCommit()) {
+            event.tableName = task.getInvoker().getTableName();
+            event.task = task.getClass().getSimpleName();
+            event.fileName = artifact.getFileName();
+            event.bytes = artifact.getContent().length;
+            event.written = artifact.isWritten();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRunFinished(GenerationReport report, long nanos) {
+        RunFinishedEvent event = new RunFinishedEvent();
+        if (event.shouldCommit()) {
+            event.totalTasks = report.getTotalTasks();
+            event.skippedTasks = report.getSkippedTasks();
+            event.failedTables = report.getFailures().size();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("com.greedystar.generator.MetadataFetched")
+    @Label("Metadata Fetched")
+    @Category("Generator")
+    @StackTrace(false)
+    public static class MetadataFetchedEvent extends Event {
+        @Label("Invoker")
+        String invoker;
+        @Label("Table Name")
+        String tableName;
+        @Label("Tasks")
+        int tasks;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("com.greedystar.generator.TaskStarted")
+    @Label("Task Started")
+    @Category("Generator")
+    @StackTrace(false)
+    public static class TaskStartedEvent extends Event {
+        @Label("Table Name")
+        String tableName;
+        @Label("Task")
+        String task;
+    }
+
+    @Name("com.greedystar.generator.Rendered")
+    @Label("Template Rendered")
+    @Category("Generator")
+    @StackTrace(false)
+    public static class RenderedEvent extends Event {
+        @Label("Table Name")
+        String tableName;
+        @Label("Task")
+        String task;
+        @Label("File Name")
+        String fileName;
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+        @Label("Cache Hit")
+        boolean cacheHit;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("com.greedystar.generator.Written")
+    @Label("File Written")
+    @Category("Generator")
+    @StackTrace(false)
+    public static class WrittenEvent extends Event {
+        @Label("Table Name")
+        String tableName;
+        @Label("Task")
+        String task;
+        @Label("File Name")
+        String fileName;
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+        @Label("Written")
+        boolean written;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("com.greedystar.generator.RunFinished")
+    @Label("Generation Finished")
+    @Category("Generator")
+    @StackTrace(false)
+    public static class RunFinishedEvent extends Event {
+        @Label("Total Tasks")
+        int totalTasks;
+        @Label("Skipped Tasks")
+        int skippedTasks;
+        @Label("Failed Tables")
+        int failedTables;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+}
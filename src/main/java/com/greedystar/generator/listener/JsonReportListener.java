@@ -0,0 +1,226 @@
+package com.greedystar.generator.listener;
+
+import com.greedystar.generator.engine.GenerationReport;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 在代码生成结束时输出JSON格式的运行报告，包含每张表获取元数据的耗时，以及每个任务的渲染、写入耗时、文件大小和缓存命中情况
+ * <p>
+ * 同一个监听器可用于多次代码生成，每次生成结束后覆盖报告文件并清空已统计的数据
+ *
+ * @author GreedyStar
+ * @since 2021/5/17
+ */
+public class JsonReportListener implements GenerationListener {
+    /**
+     * 报告文件
+     */
+    private final File file;
+    /**
+     * 表名 -> 获取元数据耗时（纳秒）
+     */
+    private final Map<String, Long> metadataNanos = new HashMap<>();
+    /**
+     * 任务 -> 任务统计，按任务开始的顺序排列
+     */
+    private final Map<AbstractTask, TaskRecord> records = new LinkedHashMap<>();
+
+    public JsonReportListener(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void onMetadataFetched(AbstractInvoker invoker, List<AbstractTask> tasks, long nanos) {
+        metadataNanos.put(getTableName(invoker), nanos);
+    }
+
+    @Override
+    public synchronized void onTaskStarted(AbstractTask task) {
+        records.put(task, new TaskRecord(task));
+    }
+
+    @Override
+    public synchronized void onRendered(AbstractTask task, Artifact artifact, long nanos) {
+        TaskRecord record = records.computeIfAbsent(task, TaskRecord::new);
+        record.fileName = artifact.getFileName();
+        record.bytes = artifact.getContent().length;
+        record.cacheHit = artifact.isCacheHit();
+        record.renderNanos = nanos;
+    }
+
+    @Override
+    public synchronized void onWritten(AbstractTask task, Artifact artifact, long nanos) {
+        TaskRecord record = records.computeIfAbsent(task, TaskRecord::new);
+        record.written = artifact.isWritten();
+        record.writeNanos = nanos;
+        record.totalNanos = System.nanoTime() - record.startNanos;
+    }
+
+    @Override
+    public synchronized void onRunFinished(GenerationReport report, long nanos) {
+        try {
+            if (file.getParentFile() != null && !file.getParentFile().exists()) {
+                file.getParentFile().mkdirs();
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                writer.write(toJson(report, nanos));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            metadataNanos.clear();
+            records.clear();
+        }
+    }
+
+    /**
+     * 生成JSON格式的报告
+     *
+     * @param report 执行报告
+     * @param nanos  总耗时（纳秒）
+     * @return JSON字符串
+     */
+    private String toJson(GenerationReport report, long nanos) {
+        // 按表名排序，同一张表的任务保持开始顺序
+        Map<String, List<TaskRecord>> tables = new TreeMap<>();
+        metadataNanos.keySet().forEach(tableName -> tables.put(tableName, new ArrayList<>()));
+        long filesWritten = 0;
+        long bytesWritten = 0;
+        long cacheHits = 0;
+        for (TaskRecord record : records.values()) {
+            tables.computeIfAbsent(record.tableName, k -> new ArrayList<>()).add(record);
+            if (record.written) {
+                filesWritten++;
+                bytesWritten += record.bytes;
+            }
+            if (record.cacheHit) {
+                cacheHits++;
+            }
+        }
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"durationMillis\": ").append(millis(nanos)).append(",\n");
+        sb.append("  \"totalTasks\": ").append(report.getTotalTasks()).append(",\n");
+        sb.append("  \"completedTasks\": ").append(report.getCompletedTasks()).append(",\n");
+        sb.append("  \"skippedTasks\": ").append(report.getSkippedTasks()).append(",\n");
+        sb.append("  \"filesWritten\": ").append(filesWritten).append(",\n");
+        sb.append("  \"bytesWritten\": ").append(bytesWritten).append(",\n");
+        sb.append("  \"cacheHits\": ").append(cacheHits).append(",\n");
+        sb.append("  \"failures\": {");
+        String separator = "\n";
+        for (Map.Entry<String, List<Throwable>> entry : report.getFailures().entrySet()) {
+            sb.append(separator).append("    ").append(quote(entry.getKey())).append(": [");
+            String itemSeparator = "";
+            for (Throwable throwable : entry.getValue()) {
+                sb.append(itemSeparator).append(quote(String.valueOf(throwable)));
+                itemSeparator = ", ";
+            }
+            sb.append(']');
+            separator = ",\n";
+        }
+        sb.append(report.getFailures().isEmpty() ? "},\n" : "\n  },\n");
+        sb.append("  \"tables\": [");
+        separator = "\n";
+        for (Map.Entry<String, List<TaskRecord>> table : tables.entrySet()) {
+            sb.append(separator).append("    {\n");
+            sb.append("      \"tableName\": ").append(quote(table.getKey())).append(",\n");
+            Long metadata = metadataNanos.get(table.getKey());
+            sb.append("      \"metadataMillis\": ").append(metadata == null ? "null" : millis(metadata)).append(",\n");
+            sb.append("      \"tasks\": [");
+            String taskSeparator = "\n";
+            for (TaskRecord record : table.getValue()) {
+                sb.append(taskSeparator).append("        {");
+                sb.append("\"task\": ").append(quote(record.task));
+                sb.append(", \"fileName\": ").append(quote(record.fileName));
+                sb.append(", \"bytes\": ").append(record.bytes);
+                sb.append(", \"cacheHit\": ").append(record.cacheHit);
+                sb.append(", \"written\": ").append(record.written);
+                sb.append(", \"renderMillis\": ").append(millis(record.renderNanos));
+                sb.append(", \"writeMillis\": ").append(millis(record.writeNanos));
+                sb.append(", \"totalMillis\": ").append(millis(record.totalNanos));
+                sb.append('}');
+                taskSeparator = ",\n";
+            }
+            sb.append(table.getValue().isEmpty() ? "]\n" : "\n      ]\n");
+            sb.append("    }");
+            separator = ",\n";
+        }
+        sb.append(tables.isEmpty() ? "]\n" : "\n  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String getTableName(AbstractInvoker invoker) {
+        return invoker.getTableName() == null ? invoker.getClass().getSimpleName() : invoker.getTableName();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * 转换为JSON字符串字面量
+     *
+     * @param value 字符串
+     * @return JSON字符串
+     */
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 单个任务的统计数据
+     */
+    private static class TaskRecord {
+        private final String tableName;
+        private final String task;
+        private final long startNanos = System.nanoTime();
+        private String fileName;
+        private int bytes;
+        private boolean cacheHit;
+        private boolean written;
+        private long renderNanos;
+        private long writeNanos;
+        private long totalNanos;
+
+        TaskRecord(AbstractTask task) {
+            this.tableName = getTableName(task.getInvoker());
+            this.task = task.getClass().getSimpleName();
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.greedystar.generator.output;
+
+import com.greedystar.generator.task.base.Artifact;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 将所有生成的文件写入一个zip或jar归档，避免在网络文件系统上逐个创建大量小文件
+ * <p>
+ * 源码和资源文件以相对路径（如 com/greedystar/entity/User.java、mapper/UserMapper.xml）写入归档根目录，
+ * 可直接作为generated-sources jar使用；以.jar结尾时额外写入MANIFEST.MF
+ * <p>
+ * 所有文件通过同一个带缓冲的输出流依次写入同目录下的临时文件，关闭时再替换目标归档；生成失败或被取消时引擎调用{@link #abort()}删除临时文件，
+ * 已有的归档保持不变；
+ * 已有归档中本次没有生成的条目在关闭时原样复制到新归档，只重新生成部分文件（单表、差异生成、常驻运行的增量生成）时不会丢失其他文件，
+ * 与输出到目录时一样，不再生成的文件不会被删除；
+ * 可重现模式下文件先保存在内存中，关闭时按路径排序写入，所有条目使用固定的修改时间，同样的文件总是得到逐字节相同的归档
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class ArchiveSink implements OutputSink {
+    /**
+     * 输出缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * 目标归档
+     */
+    private final File archive;
+    /**
+     * 写入中的临时文件，第一次写入时创建，同时向同一归档生成时互不影响
+     */
+    private File tempFile;
+    /**
+     * 已写入的条目
+     */
+    private final Set<String> entries = new HashSet<>();
+    /**
+     * 可重现模式
+     */
+    private final boolean reproducible;
+    /**
+     * 可重现模式下待写入的文件，路径 -> 文件内容
+     */
+    private final Map<String, byte[]> pending = new TreeMap<>();
+    private ZipOutputStream out;
+    private boolean closed;
+
+    public ArchiveSink(File archive) {
+        this(archive, false);
+    }
+
+    /**
+     * @param archive      目标归档
+     * @param reproducible 可重现模式，条目按路径排序并使用固定的修改时间
+     */
+    public ArchiveSink(File archive, boolean reproducible) {
+        this.archive = archive;
+        this.reproducible = reproducible;
+    }
+
+    @Override
+    public synchronized boolean write(Artifact artifact) throws IOException {
+        if (closed) {
+            throw new IOException("Archive " + archive.getPath() + " has been closed");
+        }
+        String path = artifact.getPath();
+        // 归档中同名的条目只保留第一个
+        if (!entries.add(path)) {
+            System.err.printf("%s already exists in %s, skipped \n", path, archive.getPath());
+            return false;
+        }
+        if (reproducible) {
+            pending.put(path, artifact.getContent());
+        } else {
+            writeEntry(path, artifact.getContent());
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        copyExisting();
+        for (Map.Entry<String, byte[]> entry : pending.entrySet()) {
+            writeEntry(entry.getKey(), entry.getValue());
+        }
+        pending.clear();
+        open().close();
+        try {
+            Files.move(tempFile.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.printf("Generating %s (%d files) \n", archive.getPath(), entries.size());
+    }
+
+    /**
+     * 丢弃已写入的文件，保留已有的归档
+     *
+     * @throws IOException 文件读写异常
+     */
+    @Override
+    public synchronized void abort() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.clear();
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        }
+        System.err.printf("Generation failed, %s is left unchanged \n", archive.getPath());
+    }
+
+    /**
+     * 将已有归档中本次没有生成的条目复制到临时文件，可重现模式下与新条目一起按路径排序写入
+     *
+     * @throws IOException 文件读写异常
+     */
+    private void copyExisting() throws IOException {
+        if (!archive.isFile()) {
+            return;
+        }
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> existing = zip.entries();
+            while (existing.hasMoreElements()) {
+                ZipEntry entry = existing.nextElement();
+                String path = entry.getName();
+                // MANIFEST.MF由open()重新写入
+                if (entry.isDirectory() || JarFile.MANIFEST_NAME.equalsIgnoreCase(path) || !entries.add(path)) {
+                    continue;
+                }
+                byte[] content = read(zip, entry);
+                if (reproducible) {
+                    pending.put(path, content);
+                } else {
+                    writeEntry(path, content);
+                }
+            }
+        }
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                content.write(buffer, 0, length);
+            }
+            return content.toByteArray();
+        }
+    }
+
+    /**
+     * 写入一个条目
+     *
+     * @param path    条目路径
+     * @param content 条目内容
+     * @throws IOException 文件读写异常
+     */
+    private void writeEntry(String path, byte[] content) throws IOException {
+        ZipOutputStream out = open();
+        out.putNextEntry(newEntry(path));
+        out.write(content);
+        out.closeEntry();
+    }
+
+    /**
+     * 创建条目，可重现模式下使用固定的修改时间（本地时区的1980-02-01，zip按本地时间记录修改时间，换算后在任何时区都相同）
+     *
+     * @param path 条目路径
+     * @return 条目
+     */
+    private ZipEntry newEntry(String path) {
+        ZipEntry entry = new ZipEntry(path);
+        if (reproducible) {
+            entry.setTime(LocalDateTime.of(1980, 2, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        return entry;
+    }
+
+    /**
+     * 打开临时文件的输出流，第一次写入时创建
+     *
+     * @return 输出流
+     * @throws IOException 文件读写异常
+     */
+    private ZipOutputStream open() throws IOException {
+        if (out == null) {
+            File parent = archive.getAbsoluteFile().getParentFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            tempFile = Files.createTempFile(parent.toPath(), archive.getName() + ".", ".tmp").toFile();
+            OutputStream os = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()), BUFFER_SIZE);
+            if (archive.getName().toLowerCase().endsWith(".jar")) {
+                Manifest manifest = new Manifest();
+                manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                out = new JarOutputStream(os);
+                out.putNextEntry(newEntry(JarFile.MANIFEST_NAME));
+                manifest.write(out);
+                out.closeEntry();
+            } else {
+                out = new ZipOutputStream(os);
+            }
+        }
+        return out;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.greedystar.generator.output;
+
+import com.greedystar.generator.task.base.Artifact;
+import com.greedystar.generator.utils.ConfigUtil;
+import com.greedystar.generator.utils.FileUtil;
+
+import java.io.IOException;
+
+/**
+ * 将生成的文件写入项目的源码目录和资源目录，默认的输出目标
+ * <p>
+ * 内容未发生变化的文件不再写入，已存在的文件在未启用文件覆盖时写入.generated文件，见{@link FileUtil#writeToFile(byte[], String, String, boolean)}
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class FileSink implements OutputSink {
+    /**
+     * 源码目录
+     */
+    private final String sourcePath;
+    /**
+     * 资源目录
+     */
+    private final String resourcePath;
+    /**
+     * 是否覆盖已存在的文件
+     */
+    private final boolean fileOverride;
+
+    /**
+     * 输出到当前项目的src/main/java和src/main/resources，按全局配置决定是否覆盖已存在的文件
+     */
+    public FileSink() {
+        this(FileUtil.getSourcePath(), FileUtil.getResourcePath());
+    }
+
+    /**
+     * 按全局配置决定是否覆盖已存在的文件
+     *
+     * @param sourcePath   源码目录，以文件分隔符结尾
+     * @param resourcePath 资源目录，以文件分隔符结尾
+     */
+    public FileSink(String sourcePath, String resourcePath) {
+        this(sourcePath, resourcePath, ConfigUtil.getConfiguration().isFileOverride());
+    }
+
+    /**
+     * @param sourcePath   源码目录，以文件分隔符结尾
+     * @param resourcePath 资源目录，以文件分隔符结尾
+     * @param fileOverride 是否覆盖已存在的文件
+     */
+    public FileSink(String sourcePath, String resourcePath, boolean fileOverride) {
+        this.sourcePath = sourcePath;
+        this.resourcePath = resourcePath;
+        this.fileOverride = fileOverride;
+    }
+
+    @Override
+    public boolean write(Artifact artifact) throws IOException {
+        String basePath = artifact.getRoot() == Artifact.Root.RESOURCE ? resourcePath : sourcePath;
+        return FileUtil.writeToFile(artifact.getContent(), basePath + artifact.getDirectory(), artifact.getFileName(), fileOverride);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.greedystar.generator.output;
+
+import com.greedystar.generator.task.base.Artifact;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将生成的文件保存在内存中，不访问文件系统，用于在其他JVM工具（构建插件、IDE、javax.tools编译）中嵌入代码生成
+ * <p>
+ * 文件以相对路径（如 com/greedystar/entity/User.java、mapper/UserMapper.xml）为键，同名文件保留最后一次写入的内容
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class MemorySink implements OutputSink {
+    /**
+     * 相对路径 -> 文件内容
+     */
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean write(Artifact artifact) {
+        files.put(artifact.getPath(), artifact.getContent());
+        return true;
+    }
+
+    /**
+     * 获取生成的文件
+     *
+     * @return 相对路径 -> 文件内容，按路径排序
+     */
+    public Map<String, CharSequence> getFiles() {
+        Map<String, CharSequence> result = new TreeMap<>();
+        files.forEach((path, content) -> result.put(path, new String(content, StandardCharsets.UTF_8)));
+        return result;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.greedystar.generator.output;
+
+import com.greedystar.generator.task.base.Artifact;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 生成文件的输出目标，一次代码生成使用同一个输出目标，所有文件写入后由引擎关闭
+ * <p>
+ * 写入文件阶段在多个线程中并发执行，实现类需要保证线程安全
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * 写入渲染后的文件
+     *
+     * @param artifact 渲染后的文件，通过{@link Artifact#getRoot()}和{@link Artifact#getPath()}确定输出位置
+     * @return 是否写入了文件，内容未发生变化等原因跳过写入时返回false
+     * @throws IOException 文件读写异常
+     */
+    boolean write(Artifact artifact) throws IOException;
+
+    /**
+     * 所有文件写入后关闭输出目标，默认不做任何处理
+     *
+     * @throws IOException 文件读写异常
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * 生成失败或被取消时代替{@link #close()}调用，默认与close相同；需要保证原子性的输出目标可以在此丢弃已写入的文件
+     *
+     * @throws IOException 文件读写异常
+     */
+    default void abort() throws IOException {
+        close();
+    }
+
+}
@@ -1,13 +1,13 @@
 package com.greedystar.generator.task;
 
+import com.greedystar.generator.db.SchemaDiff;
 import com.greedystar.generator.entity.ColumnInfo;
 import com.greedystar.generator.entity.Constant;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
 import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
 import com.greedystar.generator.utils.*;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,35 +23,46 @@ public class ControllerTask extends AbstractTask {
     }
 
     @Override
-    public void run() throws IOException, TemplateException {
+    public Artifact prepareArtifact() {
         // 构造Controller填充数据
         Map<String, Object> controllerData = new HashMap<>();
-        controllerData.put("Configuration", ConfigUtil.getConfiguration());
         String serviceClassName;
         String serviceImport;
-        if (StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getInterf())) {
-            serviceClassName = ConfigUtil.getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName());
-            serviceImport = String.format("import %s.%s.%s;", ConfigUtil.getConfiguration().getPackageName(),
-                    ConfigUtil.getConfiguration().getPath().getService(), serviceClassName);
+        if (StringUtil.isEmpty(getConfiguration().getPath().getInterf())) {
+            serviceClassName = getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName());
+            serviceImport = String.format("import %s.%s.%s;", getConfiguration().getPackageName(),
+                    getConfiguration().getPath().getService(), serviceClassName);
         } else {
-            serviceClassName = ConfigUtil.getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName());
-            serviceImport = String.format("import %s.%s.%s;", ConfigUtil.getConfiguration().getPackageName(),
-                    ConfigUtil.getConfiguration().getPath().getInterf(), serviceClassName);
+            serviceClassName = getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName());
+            serviceImport = String.format("import %s.%s.%s;", getConfiguration().getPackageName(),
+                    getConfiguration().getPath().getInterf(), serviceClassName);
         }
         controllerData.put("ServiceImport", serviceImport);
         controllerData.put("ServiceClassName", serviceClassName);
         controllerData.put("ServiceEntityName", StringUtil.firstToLowerCase(serviceClassName));
-        controllerData.put("ControllerClassName", ConfigUtil.getConfiguration().getName().getController()
+        controllerData.put("ControllerClassName", getConfiguration().getName().getController()
                 .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        controllerData.put("ClassName", ConfigUtil.getConfiguration().getName().getEntity()
-                .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        controllerData.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
         controllerData.put("pkType", getPrimaryKeyType(invoker.getTableInfo().getColumnsInfo()));
-        String filePath = FileUtil.getSourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPackageName()) +
-                StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getController());
-        String fileName = ConfigUtil.getConfiguration().getName().getController().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
+        String directory = StringUtil.package2Path(getConfiguration().getPackageName()) +
+                StringUtil.package2Path(getConfiguration().getPath().getController());
+        String fileName = getConfiguration().getName().getController().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
         // 生成Controller文件
-        FileUtil.generateToJava(FreemarkerConfigUtil.TYPE_CONTROLLER, controllerData, filePath, fileName);
+        return new Artifact(FreemarkerConfigUtil.TYPE_CONTROLLER, controllerData, Artifact.Root.SOURCE, directory, fileName);
+    }
+
+    /**
+     * Controller只与类名和主键类型相关，只有主键列对应的属性类型变化时需要重新生成
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否需要重新生成
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        if (diff.isAdded()) {
+            return true;
+        }
+        return !diff.isDropped() && !getPrimaryKeyType(diff.getFrom().getColumnsInfo())
+                .equals(getPrimaryKeyType(diff.getTo().getColumnsInfo()));
     }
 
     /**
@@ -61,12 +72,12 @@ public class ControllerTask extends AbstractTask {
      * @return
      */
     private String getPrimaryKeyType(List<ColumnInfo> columnInfos) {
-        if (!ConfigUtil.getConfiguration().isJpaEnable()) {
+        if (!getConfiguration().isJpaEnable()) {
             return "Serializable";
         }
         for (ColumnInfo info : columnInfos) {
             if (info.isPrimaryKey()) {
-                return info.getPropertyType();
+                return getContext().getPropertyType(info);
             }
         }
         return "Serializable";
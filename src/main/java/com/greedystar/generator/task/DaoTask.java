@@ -1,12 +1,12 @@
 package com.greedystar.generator.task;
 
+import com.greedystar.generator.db.SchemaDiff;
 import com.greedystar.generator.entity.Constant;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
 import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
 import com.greedystar.generator.utils.*;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,17 +21,25 @@ public class DaoTask extends AbstractTask {
     }
 
     @Override
-    public void run() throws IOException, TemplateException {
+    public Artifact prepareArtifact() {
         // 构造Dao填充数据
         Map<String, Object> daoData = new HashMap<>();
-        daoData.put("Configuration", ConfigUtil.getConfiguration());
-        daoData.put("ClassName", ConfigUtil.getConfiguration().getName().getEntity().replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        daoData.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
-        daoData.put("DaoClassName", ConfigUtil.getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        String filePath = FileUtil.getSourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPackageName())
-                + StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getDao());
-        String fileName = ConfigUtil.getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
+        daoData.put("DaoClassName", getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()));
+        String directory = StringUtil.package2Path(getConfiguration().getPackageName())
+                + StringUtil.package2Path(getConfiguration().getPath().getDao());
+        String fileName = getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
         // 生成dao文件
-        FileUtil.generateToJava(FreemarkerConfigUtil.TYPE_DAO, daoData, filePath, fileName);
+        return new Artifact(FreemarkerConfigUtil.TYPE_DAO, daoData, Artifact.Root.SOURCE, directory, fileName);
+    }
+
+    /**
+     * Dao只与类名相关，列的变化不影响生成的文件
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否新增的表
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return diff.isAdded();
     }
 }
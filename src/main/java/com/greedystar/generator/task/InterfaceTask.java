@@ -1,12 +1,12 @@
 package com.greedystar.generator.task;
 
+import com.greedystar.generator.db.SchemaDiff;
 import com.greedystar.generator.entity.Constant;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
 import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
 import com.greedystar.generator.utils.*;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,19 +21,26 @@ public class InterfaceTask extends AbstractTask {
     }
 
     @Override
-    public void run() throws IOException, TemplateException {
+    public Artifact prepareArtifact() {
         // 构造Service接口填充数据
         Map<String, Object> interfaceData = new HashMap<>();
-        interfaceData.put("Configuration", ConfigUtil.getConfiguration());
-        interfaceData.put("ClassName", ConfigUtil.getConfiguration().getName().getEntity().replace(Constant.PLACEHOLDER,
-                invoker.getClassName()));
-        interfaceData.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
-        interfaceData.put("InterfaceClassName", ConfigUtil.getConfiguration().getName().getInterf()
+        interfaceData.put("InterfaceClassName", getConfiguration().getName().getInterf()
                 .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        String filePath = FileUtil.getSourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPackageName())
-                + StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getInterf());
-        String fileName = ConfigUtil.getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
+        String directory = StringUtil.package2Path(getConfiguration().getPackageName())
+                + StringUtil.package2Path(getConfiguration().getPath().getInterf());
+        String fileName = getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
         // 生成Service接口文件
-        FileUtil.generateToJava(FreemarkerConfigUtil.TYPE_INTERFACE, interfaceData, filePath, fileName);
+        return new Artifact(FreemarkerConfigUtil.TYPE_INTERFACE, interfaceData, Artifact.Root.SOURCE, directory, fileName);
+    }
+
+    /**
+     * Service接口只与类名相关，列的变化不影响生成的文件
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否新增的表
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return diff.isAdded();
     }
 }
@@ -1,14 +1,15 @@
 package com.greedystar.generator.task;
 
+import com.greedystar.generator.db.SchemaDiff;
+import com.greedystar.generator.directive.MapperSnippets;
 import com.greedystar.generator.entity.ColumnInfo;
 import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.entity.RelationInfo;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
-import com.greedystar.generator.invoker.base.TableInfo;
 import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
 import com.greedystar.generator.utils.*;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,56 +25,91 @@ public class MapperTask extends AbstractTask {
     }
 
     @Override
-    public void run() throws IOException, TemplateException {
+    public Artifact prepareArtifact() {
         // 构造Mapper填充数据
         Map<String, Object> mapperData = new HashMap<>();
-        mapperData.put("Configuration", ConfigUtil.getConfiguration());
-        mapperData.put("ClassName", ConfigUtil.getConfiguration().getName().getEntity()
+        mapperData.put("DaoClassName", getConfiguration().getName().getDao()
                 .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        mapperData.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
-        mapperData.put("DaoClassName", ConfigUtil.getConfiguration().getName().getDao()
-                .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        mapperData.put("TableName", invoker.getTableName());
         ColumnInfo pkInfo = getPrimaryKeyColumnInfo(invoker.getTableInfo().getColumnsInfo());
         mapperData.put("PrimaryKey", pkInfo.getColumnName());
         mapperData.put("WhereId", "#{" + pkInfo.getPropertyName() + "}");
         mapperData.put("PrimaryColumn", pkInfo);
-        mapperData.put("InsertProperties", insertProperties());
-        mapperData.put("ColumnMap", columnMap());
-        mapperData.put("ResultMap", resultMap());
-        mapperData.put("InsertBatchValues", insertBatchValues());
-        mapperData.put("InsertValues", insertValues());
-        mapperData.put("UpdateProperties", updateProperties());
-        mapperData.put("Joins", joins());
-        if (!StringUtil.isEmpty(invoker.getRelationalTableName())) {
-            // 多对多
-            mapperData.put("Association", "");
-            mapperData.put("Collection", collection());
-        } else if (!StringUtil.isEmpty(invoker.getParentForeignKey())) {
-            // 多对一
-            mapperData.put("Association", "");
-            mapperData.put("Collection", collection());
-        } else if (!StringUtil.isEmpty(invoker.getForeignKey())) {
-            // 一对多
-            mapperData.put("Association", association());
-            mapperData.put("Collection", "");
-        } else {
-            // 单表
-            mapperData.put("Association", "");
-            mapperData.put("Collection", "");
+        // 与列数成正比的代码段由模板中的指令直接写入输出
+        mapperData.put("Columns", invoker.getTableInfo().getColumnsInfo());
+        mapperData.put("Relations", getRelations());
+        // 同一次生成中合并的多个关系依次拼接
+        StringBuilder joins = new StringBuilder();
+        StringBuilder associations = new StringBuilder();
+        StringBuilder collections = new StringBuilder();
+        for (RelationInfo relation : getRelations()) {
+            append(joins, joins(relation));
+            if (relation.isCollection()) {
+                // 多对多 or 一对多
+                append(collections, collection(relation));
+            } else if (!StringUtil.isEmpty(relation.getForeignKey())) {
+                // 多对一
+                append(associations, association(relation));
+            }
         }
-        String filePath;
-        if (ConfigUtil.getConfiguration().isMapperUnderSource()) {
+        mapperData.put("Joins", joins.toString());
+        mapperData.put("Association", associations.toString());
+        mapperData.put("Collection", collections.toString());
+        Artifact.Root root;
+        String directory;
+        if (getConfiguration().isMapperUnderSource()) {
             // mapper-under-source = true，表示将Mapper映射文件放在源文件目录下
-            filePath = FileUtil.getSourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPackageName())
-                    + StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getMapper());
+            root = Artifact.Root.SOURCE;
+            directory = StringUtil.package2Path(getConfiguration().getPackageName())
+                    + StringUtil.package2Path(getConfiguration().getPath().getMapper());
         } else {
             // 默认情况下，将Mapper映射文件放在resources下
-            filePath = FileUtil.getResourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getMapper());
+            root = Artifact.Root.RESOURCE;
+            directory = StringUtil.package2Path(getConfiguration().getPath().getMapper());
         }
-        String fileName = ConfigUtil.getConfiguration().getName().getMapper().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".xml";
+        String fileName = getConfiguration().getName().getMapper().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".xml";
         // 生成Mapper文件
-        FileUtil.generateToJava(FreemarkerConfigUtil.TYPE_MAPPER, mapperData, filePath, fileName);
+        return new Artifact(FreemarkerConfigUtil.TYPE_MAPPER, mapperData, root, directory, fileName);
+    }
+
+    /**
+     * Mapper包含六个与主表列数成正比的代码段，关系模式下还需遍历父表的列
+     *
+     * @return 相对开销
+     */
+    @Override
+    public long getWeight() {
+        long weight = 1 + 6L * invoker.getTableInfo().getColumnsInfo().size();
+        if (invoker.getParentTableInfo() != null) {
+            weight += 2L * invoker.getParentTableInfo().getColumnsInfo().size();
+        }
+        return weight;
+    }
+
+    /**
+     * 映射文件不包含注释，只有表注释或列注释变化时不需要重新生成
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否需要重新生成
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return diff.isChanged() && !diff.isRemarksOnly();
+    }
+
+    /**
+     * 以换行和缩进分隔多个代码段
+     *
+     * @param sb      已拼接的代码段
+     * @param snippet 代码段
+     */
+    private static void append(StringBuilder sb, String snippet) {
+        if (snippet.isEmpty()) {
+            return;
+        }
+        if (sb.length() > 0) {
+            sb.append("\n").append(Constant.SPACE_8);
+        }
+        sb.append(snippet);
     }
 
     /**
@@ -97,29 +133,7 @@ public class MapperTask extends AbstractTask {
      * @return ColumnMap代码段
      */
     public String columnMap() {
-        StringBuilder sb = new StringBuilder();
-        TableInfo tableInfo = invoker.getTableInfo();
-        tableInfo.getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            if (info.getColumnName().equals(invoker.getForeignKey())) {
-                return;
-            }
-            sb.append(index == 0 ? "" : Constant.SPACE_8);
-            sb.append(String.format("`%s`.`%s`,\n", invoker.getTableName(), info.getColumnName()));
-        }));
-        TableInfo parentTableInfo = invoker.getParentTableInfo();
-        if (parentTableInfo != null && parentTableInfo.getColumnsInfo() != null) {
-            parentTableInfo.getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-                sb.append(Constant.SPACE_8);
-                if (!StringUtil.isEmpty(invoker.getRelationalTableName()) || !StringUtil.isEmpty(invoker.getParentForeignKey())) {
-                    sb.append(String.format("`%s`.`%s` AS `%ss.%s`,\n", invoker.getParentTableName(), info.getColumnName(),
-                            StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName()));
-                } else {
-                    sb.append(String.format("`%s`.`%s` AS `%s.%s`,\n", invoker.getParentTableName(), info.getColumnName(),
-                            StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName()));
-                }
-            }));
-        }
-        return sb.substring(0, sb.toString().length() - 2);
+        return snippet(out -> MapperSnippets.columnMap(out, invoker.getTableInfo().getColumnsInfo(), getRelations()));
     }
 
     /**
@@ -128,38 +142,28 @@ public class MapperTask extends AbstractTask {
      * @return ResultMap代码段
      */
     public String resultMap() {
-        StringBuilder sb = new StringBuilder();
-        invoker.getTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            if (info.getColumnName().equals(invoker.getForeignKey())) {
-                return;
-            }
-            sb.append(index == 0 ? "" : Constant.SPACE_8);
-            if (info.isPrimaryKey()) {
-                sb.append(String.format("<id column=\"%s\" property=\"%s\" />\n", info.getColumnName(), info.getPropertyName()));
-            } else {
-                sb.append(String.format("<result column=\"%s\" property=\"%s\" />\n", info.getColumnName(), info.getPropertyName()));
-            }
-        }));
-        return sb.toString();
+        return snippet(out -> MapperSnippets.resultMap(out, invoker.getTableInfo().getColumnsInfo(), getRelations()));
     }
 
     /**
      * 生成association
      *
+     * @param relation 多对一关系
      * @return association代码段
      */
-    public String association() {
+    private String association(RelationInfo relation) {
+        String parentName = StringUtil.firstToLowerCase(relation.getParentClassName());
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("<association property=\"%s\" javaType=\"%s.%s\">\n", StringUtil.firstToLowerCase(invoker.getParentClassName()),
-                ConfigUtil.getConfiguration().getPackageName() + "." + ConfigUtil.getConfiguration().getPath().getEntity(),
-                invoker.getParentClassName()));
-        invoker.getParentTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
+        sb.append(String.format("<association property=\"%s\" javaType=\"%s.%s\">\n", parentName,
+                getConfiguration().getPackageName() + "." + getConfiguration().getPath().getEntity(),
+                relation.getParentClassName()));
+        relation.getParentColumns().forEach(ForEachUtil.withIndex((info, index) -> {
             if (info.isPrimaryKey()) {
                 sb.append(Constant.SPACE_12).append(String.format("<id column=\"%s.%s\" property=\"%s\" />\n",
-                        StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName(), info.getPropertyName()));
+                        parentName, info.getColumnName(), info.getPropertyName()));
             } else {
                 sb.append(Constant.SPACE_12).append(String.format("<result column=\"%s.%s\" property=\"%s\" />\n",
-                        StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName(), info.getPropertyName()));
+                        parentName, info.getColumnName(), info.getPropertyName()));
             }
         }));
         sb.append(Constant.SPACE_8).append("</association>");
@@ -169,20 +173,22 @@ public class MapperTask extends AbstractTask {
     /**
      * 生成collection
      *
+     * @param relation 多对多或一对多关系
      * @return collection代码段
      */
-    public String collection() {
+    private String collection(RelationInfo relation) {
+        String parentName = StringUtil.firstToLowerCase(relation.getParentClassName());
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("<collection property=\"%ss\" ofType=\"%s.%s\" >\n ", StringUtil.firstToLowerCase(invoker.getParentClassName()),
-                ConfigUtil.getConfiguration().getPackageName() + "." + ConfigUtil.getConfiguration().getPath().getEntity(),
-                invoker.getParentClassName()));
-        invoker.getParentTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
+        sb.append(String.format("<collection property=\"%ss\" ofType=\"%s.%s\" >\n ", parentName,
+                getConfiguration().getPackageName() + "." + getConfiguration().getPath().getEntity(),
+                relation.getParentClassName()));
+        relation.getParentColumns().forEach(ForEachUtil.withIndex((info, index) -> {
             if (info.isPrimaryKey()) {
                 sb.append(Constant.SPACE_12).append(String.format("<id column=\"%ss.%s\" property=\"%s\" />\n",
-                        StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName(), info.getPropertyName()));
+                        parentName, info.getColumnName(), info.getPropertyName()));
             } else {
                 sb.append(Constant.SPACE_12).append(String.format("<result column=\"%ss.%s\" property=\"%s\" />\n",
-                        StringUtil.firstToLowerCase(invoker.getParentClassName()), info.getColumnName(), info.getPropertyName()));
+                        parentName, info.getColumnName(), info.getPropertyName()));
             }
         }));
         sb.append(Constant.SPACE_8).append("</collection>");
@@ -195,12 +201,7 @@ public class MapperTask extends AbstractTask {
      * @return insertProperties代码段
      */
     public String insertProperties() {
-        StringBuilder sb = new StringBuilder();
-        invoker.getTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            sb.append(index == 0 ? "" : Constant.SPACE_12);
-            sb.append(String.format("`%s`,\n", info.getColumnName()));
-        }));
-        return sb.toString().substring(0, sb.toString().length() - 2);
+        return snippet(out -> MapperSnippets.insertProperties(out, invoker.getTableInfo().getColumnsInfo()));
     }
 
     /**
@@ -209,21 +210,7 @@ public class MapperTask extends AbstractTask {
      * @return insertValues代码段
      */
     public String insertValues() {
-        StringBuilder sb = new StringBuilder();
-        invoker.getTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            sb.append(index == 0 ? "" : Constant.SPACE_12);
-            if (StringUtil.isEmpty(invoker.getRelationalTableName()) && !StringUtil.isEmpty(invoker.getForeignKey())) {
-                if (info.getColumnName().equals(invoker.getForeignKey())) {
-                    sb.append(String.format("#{%s.%s},\n", StringUtil.firstToLowerCase(invoker.getParentClassName()),
-                            getPrimaryKeyColumnInfo(invoker.getParentTableInfo().getColumnsInfo()).getPropertyName()));
-                } else {
-                    sb.append(String.format("#{%s},\n", info.getPropertyName()));
-                }
-            } else {
-                sb.append(String.format("#{%s},\n", info.getPropertyName()));
-            }
-        }));
-        return sb.toString().substring(0, sb.toString().length() - 2);
+        return snippet(out -> MapperSnippets.insertValues(out, invoker.getTableInfo().getColumnsInfo(), getRelations()));
     }
 
     /**
@@ -232,22 +219,7 @@ public class MapperTask extends AbstractTask {
      * @return insertBatchValues代码段
      */
     public String insertBatchValues() {
-        StringBuilder sb = new StringBuilder();
-        invoker.getTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            sb.append(index == 0 ? "" : Constant.SPACE_12);
-            if (StringUtil.isEmpty(invoker.getRelationalTableName()) && !StringUtil.isEmpty(invoker.getForeignKey())) {
-                if (info.getColumnName().equals(invoker.getForeignKey())) {
-                    sb.append(String.format("#{%s.%s.%s},\n", StringUtil.firstToLowerCase(invoker.getClassName()),
-                            StringUtil.firstToLowerCase(invoker.getParentClassName()),
-                            getPrimaryKeyColumnInfo(invoker.getParentTableInfo().getColumnsInfo()).getPropertyName()));
-                } else {
-                    sb.append(String.format("#{%s.%s},\n", StringUtil.firstToLowerCase(invoker.getClassName()), info.getPropertyName()));
-                }
-            } else {
-                sb.append(String.format("#{%s.%s},\n", StringUtil.firstToLowerCase(invoker.getClassName()), info.getPropertyName()));
-            }
-        }));
-        return sb.toString().substring(0, sb.toString().length() - 2);
+        return snippet(out -> MapperSnippets.insertBatchValues(out, invoker.getTableInfo().getColumnsInfo(), getRelations()));
     }
 
     /**
@@ -256,50 +228,36 @@ public class MapperTask extends AbstractTask {
      * @return updateProperties代码段
      */
     public String updateProperties() {
-        StringBuilder sb = new StringBuilder();
-        invoker.getTableInfo().getColumnsInfo().forEach(ForEachUtil.withIndex((info, index) -> {
-            sb.append(index == 0 ? "" : Constant.SPACE_8);
-            if (StringUtil.isEmpty(invoker.getRelationalTableName()) && !StringUtil.isEmpty(invoker.getForeignKey())) {
-                if (info.getColumnName().equals(invoker.getForeignKey())) {
-                    sb.append(String.format("`%s` = #{%s.%s},\n", info.getColumnName(),
-                            StringUtil.firstToLowerCase(invoker.getParentClassName()),
-                            getPrimaryKeyColumnInfo(invoker.getParentTableInfo().getColumnsInfo()).getPropertyName()));
-                } else {
-                    sb.append(String.format("`%s` = #{%s},\n", info.getColumnName(), info.getPropertyName()));
-                }
-            } else {
-                sb.append(String.format("`%s` = #{%s},\n", info.getColumnName(), info.getPropertyName()));
-            }
-        }));
-        return sb.toString().substring(0, sb.toString().length() - 2);
+        return snippet(out -> MapperSnippets.updateProperties(out, invoker.getTableInfo().getColumnsInfo(), getRelations()));
     }
 
     /**
      * 生成joins代码段
      *
-     * @return joins代码段
+     * @param relation 表关系
+     * @return joins代码段，单表时为空
      */
-    public String joins() {
+    private String joins(RelationInfo relation) {
         StringBuilder sb = new StringBuilder();
-        if (!StringUtil.isEmpty(invoker.getRelationalTableName())) {
+        if (!StringUtil.isEmpty(relation.getRelationalTableName())) {
             // 多对多
-            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", invoker.getRelationalTableName(),
-                    invoker.getRelationalTableName(), invoker.getForeignKey(), invoker.getTableName(),
+            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", relation.getRelationalTableName(),
+                    relation.getRelationalTableName(), relation.getForeignKey(), relation.getTableName(),
                     getPrimaryKeyColumnInfo(invoker.getTableInfo().getColumnsInfo()).getColumnName()));
             sb.append("\n").append(Constant.SPACE_8);
-            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", invoker.getParentTableName(),
-                    invoker.getParentTableName(), getPrimaryKeyColumnInfo(invoker.getParentTableInfo().getColumnsInfo()).getColumnName(),
-                    invoker.getRelationalTableName(), invoker.getParentForeignKey()));
-        } else if (!StringUtil.isEmpty(invoker.getParentForeignKey())) {
+            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", relation.getParentTableName(),
+                    relation.getParentTableName(), getPrimaryKeyColumnInfo(relation.getParentColumns()).getColumnName(),
+                    relation.getRelationalTableName(), relation.getParentForeignKey()));
+        } else if (!StringUtil.isEmpty(relation.getParentForeignKey())) {
             // 一对多
-            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", invoker.getParentTableName(),
-                    invoker.getParentTableName(), invoker.getParentForeignKey(), invoker.getTableName(),
+            sb.append(String.format("LEFT JOIN `%s` ON `%s`.`%s` = `%s`.`%s`", relation.getParentTableName(),
+                    relation.getParentTableName(), relation.getParentForeignKey(), relation.getTableName(),
                     getPrimaryKeyColumnInfo(invoker.getTableInfo().getColumnsInfo()).getColumnName()));
-        } else if (!StringUtil.isEmpty(invoker.getForeignKey())) {
+        } else if (!StringUtil.isEmpty(relation.getForeignKey())) {
             // 多对一
-            sb.append(String.format("LEFT JOIN `%s` ON `%s`.%s = `%s`.`%s`", invoker.getParentTableName(),
-                    invoker.getParentTableName(), getPrimaryKeyColumnInfo(invoker.getParentTableInfo().getColumnsInfo()).getColumnName(),
-                    invoker.getTableName(), invoker.getForeignKey()));
+            sb.append(String.format("LEFT JOIN `%s` ON `%s`.%s = `%s`.`%s`", relation.getParentTableName(),
+                    relation.getParentTableName(), getPrimaryKeyColumnInfo(relation.getParentColumns()).getColumnName(),
+                    relation.getTableName(), relation.getForeignKey()));
         }
         return sb.toString();
     }
@@ -1,12 +1,12 @@
 package com.greedystar.generator.task;
 
+import com.greedystar.generator.db.SchemaDiff;
 import com.greedystar.generator.entity.Constant;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
 import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
 import com.greedystar.generator.utils.*;
-import freemarker.template.TemplateException;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,41 +21,49 @@ public class ServiceTask extends AbstractTask {
     }
 
     @Override
-    public void run() throws IOException, TemplateException {
+    public Artifact prepareArtifact() {
         // 构造Service填充数据
         Map<String, Object> serviceData = new HashMap<>();
-        serviceData.put("Configuration", ConfigUtil.getConfiguration());
-        serviceData.put("ClassName", ConfigUtil.getConfiguration().getName().getEntity().replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        serviceData.put("EntityName", StringUtil.firstToLowerCase(invoker.getClassName()));
-        serviceData.put("DaoClassName", ConfigUtil.getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()));
-        serviceData.put("DaoEntityName", StringUtil.firstToLowerCase(ConfigUtil.getConfiguration().getName().getDao()
+        serviceData.put("DaoClassName", getConfiguration().getName().getDao().replace(Constant.PLACEHOLDER, invoker.getClassName()));
+        serviceData.put("DaoEntityName", StringUtil.firstToLowerCase(getConfiguration().getName().getDao()
                 .replace(Constant.PLACEHOLDER, invoker.getClassName())));
-        String filePath = FileUtil.getSourcePath() + StringUtil.package2Path(ConfigUtil.getConfiguration().getPackageName())
-                + StringUtil.package2Path(ConfigUtil.getConfiguration().getPath().getService());
+        String directory = StringUtil.package2Path(getConfiguration().getPackageName())
+                + StringUtil.package2Path(getConfiguration().getPath().getService());
         String fileName;
         /*
          * 根据用户是否配置了path节点下的interf属性来判断是否采用接口+实现类的方式
          */
-        String serviceClassName = ConfigUtil.getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName());
-        if (StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getInterf())) {
+        String serviceClassName = getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName());
+        if (StringUtil.isEmpty(getConfiguration().getPath().getInterf())) {
             serviceData.put("ServiceClassName", serviceClassName);
             serviceData.put("Implements", "");
             serviceData.put("InterfaceImport", "");
             serviceData.put("Override", "");
-            fileName = ConfigUtil.getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
+            fileName = getConfiguration().getName().getService().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ".java";
         } else {
             // Service接口实现类默认由Impl结尾
             serviceClassName = serviceClassName.contains("Impl") ? serviceClassName : serviceClassName + "Impl";
             serviceData.put("ServiceClassName", serviceClassName);
-            serviceData.put("Implements", "implements " + ConfigUtil.getConfiguration().getName().getInterf()
+            serviceData.put("Implements", "implements " + getConfiguration().getName().getInterf()
                     .replace(Constant.PLACEHOLDER, invoker.getClassName()));
-            serviceData.put("InterfaceImport", "import " + ConfigUtil.getConfiguration().getPackageName() + "."
-                    + ConfigUtil.getConfiguration().getPath().getInterf() + "."
-                    + ConfigUtil.getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ";");
+            serviceData.put("InterfaceImport", "import " + getConfiguration().getPackageName() + "."
+                    + getConfiguration().getPath().getInterf() + "."
+                    + getConfiguration().getName().getInterf().replace(Constant.PLACEHOLDER, invoker.getClassName()) + ";");
             serviceData.put("Override", "\n    @Override");
             fileName = serviceClassName + ".java";
         }
         // 生成Service文件
-        FileUtil.generateToJava(FreemarkerConfigUtil.TYPE_SERVICE, serviceData, filePath, fileName);
+        return new Artifact(FreemarkerConfigUtil.TYPE_SERVICE, serviceData, Artifact.Root.SOURCE, directory, fileName);
+    }
+
+    /**
+     * Service只与类名相关，列的变化不影响生成的文件
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否新增的表
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return diff.isAdded();
     }
 }
@@ -0,0 +1,162 @@
+package com.greedystar.generator.task;
+
+import com.greedystar.generator.db.SchemaDiff;
+import com.greedystar.generator.directive.ColumnsDirective;
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.entity.TemplateScope;
+import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.invoker.base.TableInfo;
+import com.greedystar.generator.task.base.AbstractTask;
+import com.greedystar.generator.task.base.Artifact;
+import com.greedystar.generator.utils.StringUtil;
+
+import java.util.*;
+
+/**
+ * 按generator.yaml中配置的额外模板生成文件，见{@link Configuration#getTemplates()}
+ * <p>
+ * 每张表的任务与内置模板的任务一起由生成引擎并行执行；作用范围为{@link TemplateScope#SCHEMA}时各表的任务生成同一个文件，
+ * 由引擎合并为一个任务，该任务汇总所有合并的表后只渲染一次
+ * <p>
+ * 填充数据：Package（源码文件所在的包）、Columns（列，作用范围为表时）、Remarks（表注释，作用范围为表时）、
+ * Tables（各表的TableName、ClassName、Remarks和Columns，作用范围为schema时）；
+ * 每列包含columnName、propertyName、propertyType、columnType、remarks和primaryKey，以及ClassName、Configuration等共享数据
+ *
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class TemplateTask extends AbstractTask {
+    /**
+     * 模板配置
+     */
+    private final Configuration.Template template;
+    /**
+     * 作用范围为schema时合并到本任务的执行器，包括本任务的执行器
+     */
+    private final List<AbstractInvoker> invokers = new ArrayList<>();
+
+    public TemplateTask(AbstractInvoker invoker, Configuration.Template template) {
+        this.invoker = invoker;
+        this.template = template;
+        this.invokers.add(invoker);
+    }
+
+    @Override
+    public Artifact prepareArtifact() {
+        Map<String, Object> data = new HashMap<>();
+        if (!template.isResource()) {
+            String packageName = getConfiguration().getPackageName();
+            data.put("Package", StringUtil.isEmpty(template.getPath()) ? packageName : packageName + "." + template.getPath());
+        }
+        if (template.getScope() == TemplateScope.SCHEMA) {
+            // 同一张表可能由多个执行器（如多个关系）提供，只保留一次
+            Map<String, Map<String, Object>> tables = new TreeMap<>();
+            for (AbstractInvoker merged : invokers) {
+                TableInfo info = merged.getTableInfo();
+                if (info == null || tables.containsKey(info.getTableName())) {
+                    continue;
+                }
+                Map<String, Object> table = new HashMap<>();
+                table.put("TableName", info.getTableName());
+                table.put("ClassName", getConfiguration().getName().getEntity().replace(Constant.PLACEHOLDER, merged.getClassName()));
+                table.put("Remarks", info.getTableRemark());
+                table.put("Columns", columns(info.getColumnsInfo()));
+                tables.put(info.getTableName(), table);
+            }
+            data.put("Tables", new ArrayList<>(tables.values()));
+        } else {
+            data.put("Columns", columns(invoker.getTableInfo().getColumnsInfo()));
+            data.put("Remarks", invoker.getTableInfo().getTableRemark());
+        }
+        return new Artifact(template.getTemplate(), data, getRoot(), getDirectory(), getFileName());
+    }
+
+    /**
+     * 由模板和输出路径组成，作用范围为schema时各表的任务输出路径相同，生成同一个文件
+     *
+     * @return 文件标识
+     */
+    @Override
+    public String getArtifactKey() {
+        return getClass().getName() + ":" + template.getTemplate() + ":" + getRoot() + ":" + getDirectory() + getFileName();
+    }
+
+    /**
+     * 作用范围为schema时汇总生成同一文件的各表
+     *
+     * @param task 生成同一文件的任务
+     */
+    @Override
+    public void merge(AbstractTask task) {
+        super.merge(task);
+        if (template.getScope() == TemplateScope.SCHEMA) {
+            invokers.add(task.getInvoker());
+        }
+    }
+
+    /**
+     * 与表的列数成正比，作用范围为schema时为所有表的列数之和
+     *
+     * @return 相对开销
+     */
+    @Override
+    public long getWeight() {
+        long weight = 1;
+        for (AbstractInvoker merged : invokers) {
+            if (merged.getTableInfo() != null) {
+                weight += merged.getTableInfo().getColumnsInfo().size();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 作用范围为schema时文件汇总所有表，只按差异中的部分表重新生成会丢失其他表，因此只在完整生成时输出
+     *
+     * @param diff 任务所属表的差异，表未发生变化时为null
+     * @return 是否需要重新生成
+     */
+    @Override
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return template.getScope() == TemplateScope.TABLE && super.isAffectedBy(diff);
+    }
+
+    public Configuration.Template getTemplate() {
+        return template;
+    }
+
+    private Artifact.Root getRoot() {
+        return template.isResource() ? Artifact.Root.RESOURCE : Artifact.Root.SOURCE;
+    }
+
+    private String getDirectory() {
+        if (template.isResource()) {
+            return StringUtil.package2Path(template.getPath());
+        }
+        return StringUtil.package2Path(getConfiguration().getPackageName()) + StringUtil.package2Path(template.getPath());
+    }
+
+    private String getFileName() {
+        if (template.getScope() == TemplateScope.SCHEMA) {
+            return template.getName();
+        }
+        return template.getName().replace(Constant.PLACEHOLDER, invoker.getClassName());
+    }
+
+    /**
+     * 将列信息转换为模板数据，属性类型由上下文的类型转换器确定
+     *
+     * @param columnInfos 列信息
+     * @return 列数据
+     */
+    private List<Map<String, Object>> columns(List<ColumnInfo> columnInfos) {
+        List<Map<String, Object>> columns = new ArrayList<>();
+        for (ColumnInfo info : columnInfos) {
+            columns.add(ColumnsDirective.toMap(getContext(), info));
+        }
+        return columns;
+    }
+
+}
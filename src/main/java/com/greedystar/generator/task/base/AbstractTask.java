@@ -1,10 +1,21 @@
 package com.greedystar.generator.task.base;
 
+import com.greedystar.generator.db.SchemaDiff;
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.entity.Configuration;
+import com.greedystar.generator.entity.RelationInfo;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
+import com.greedystar.generator.output.FileSink;
+import com.greedystar.generator.output.OutputSink;
+import com.greedystar.generator.utils.FileUtil;
 import freemarker.template.TemplateException;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
 
 /**
  * @author GreedyStar
@@ -12,16 +23,165 @@ import java.io.Serializable;
  */
 public abstract class AbstractTask implements Serializable {
     protected AbstractInvoker invoker;
+    /**
+     * 合并到本任务的其他执行器，见{@link #merge(AbstractTask)}
+     */
+    private final List<AbstractInvoker> mergedInvokers = new ArrayList<>();
+    /**
+     * 本任务涉及的表关系，首次使用时计算
+     */
+    private transient List<RelationInfo> relations;
 
     public AbstractTask() {
     }
 
+    /**
+     * 构造填充数据，确定使用的模板、输出路径和文件名，模板方法，由子类实现
+     * <p>
+     * 配置信息以及类名、表名等同一张表共享的数据由{@link GenerationContext}提供，无需放入填充数据
+     *
+     * @return 待生成的文件
+     */
+    public abstract Artifact prepareArtifact();
+
     /**
      * 执行任务
      *
      * @throws IOException 文件读写异常
      * @throws TemplateException 模板异常
      */
-    public abstract void run() throws IOException, TemplateException;
+    public void run() throws IOException, TemplateException {
+        Artifact artifact = prepareArtifact();
+        GenerationContext context = getContext();
+        FileUtil.render(artifact, context.getDataModel(invoker, artifact.getData()));
+        OutputSink sink = context.getOutputSink();
+        if (null == sink) {
+            sink = new FileSink(FileUtil.getSourcePath(), FileUtil.getResourcePath(), context.getConfiguration().isFileOverride());
+        }
+        sink.write(artifact);
+    }
+
+    /**
+     * 任务的相对开销，用于调度时优先执行开销大的任务，默认与表结构无关
+     *
+     * @return 相对开销
+     */
+    public long getWeight() {
+        return 1;
+    }
+
+    /**
+     * 表结构变化是否影响任务生成的文件，差异模式下只执行受影响的任务，默认任何变化都影响
+     *
+     * @param diff 任务所属表的差异
+     * @return 是否需要重新生成
+     */
+    public boolean isAffectedBy(SchemaDiff.TableDiff diff) {
+        return diff.isChanged();
+    }
+
+    public AbstractInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * 获取执行器所在的生成上下文
+     *
+     * @return 上下文
+     */
+    protected GenerationContext getContext() {
+        return invoker.getContext();
+    }
+
+    /**
+     * 获取生成上下文的配置信息
+     *
+     * @return 配置信息
+     */
+    protected Configuration getConfiguration() {
+        return invoker.getContext().getConfiguration();
+    }
+
+    /**
+     * 任务生成的文件的标识，同一次生成中标识相同的任务生成的是同一个文件，只会渲染和写入一次，默认由任务类型和类名组成
+     *
+     * @return 文件标识
+     */
+    public String getArtifactKey() {
+        return getClass().getName() + ":" + invoker.getClassName();
+    }
+
+    /**
+     * 任务是否只生成文件的部分内容（如不含表关系的父表实体），生成同一文件的任务中优先保留完整的任务
+     *
+     * @return 是否部分内容
+     */
+    public boolean isPartial() {
+        return false;
+    }
+
+    /**
+     * 合并生成同一文件的另一个任务，该任务不再执行，其执行器的表关系合并到本任务中；部分内容的任务不贡献表关系
+     *
+     * @param task 生成同一文件的任务
+     */
+    public void merge(AbstractTask task) {
+        if (!task.isPartial() && task.getInvoker() != invoker) {
+            mergedInvokers.add(task.getInvoker());
+            relations = null;
+        }
+    }
+
+    /**
+     * 获取本任务涉及的表关系，第一个为本任务执行器的关系，其余为合并的执行器的关系，实体属性名重复的关系只保留第一个
+     *
+     * @return 表关系
+     */
+    protected List<RelationInfo> getRelations() {
+        if (relations == null) {
+            List<RelationInfo> list = new ArrayList<>();
+            list.add(new RelationInfo(invoker));
+            Set<String> propertyNames = new HashSet<>();
+            propertyNames.add(list.get(0).getPropertyName());
+            for (AbstractInvoker merged : mergedInvokers) {
+                RelationInfo relation = new RelationInfo(merged);
+                if (relation.getPropertyName() == null) { // 单表执行器，没有表关系
+                    continue;
+                }
+                if (propertyNames.add(relation.getPropertyName())) {
+                    list.add(relation);
+                } else {
+                    System.out.printf("Relationship %s of %s conflicts with an existing property, skipped. \n",
+                            relation.getPropertyName(), relation.getClassName());
+                }
+            }
+            relations = list;
+        }
+        return relations;
+    }
+
+    /**
+     * 将直接写入输出的代码段转换为字符串
+     *
+     * @param snippet 代码段的写入逻辑
+     * @return 代码段
+     */
+    protected static String snippet(SnippetWriter snippet) {
+        StringWriter out = new StringWriter();
+        try {
+            snippet.write(out);
+        } catch (IOException e) { // StringWriter不会抛出IOException
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 代码段的写入逻辑
+     */
+    @FunctionalInterface
+    protected interface SnippetWriter {
+        void write(Writer out) throws IOException;
+    }
 
 }
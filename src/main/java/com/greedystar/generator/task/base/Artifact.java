@@ -0,0 +1,155 @@
+package com.greedystar.generator.task.base;
+
+import com.greedystar.generator.utils.FreemarkerConfigUtil;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * 待生成的文件，包含使用的模板、填充数据、输出路径以及渲染后的内容
+ *
+ * @author GreedyStar
+ * @since 2021/5/13
+ */
+public class Artifact {
+    /**
+     * 模板类型，使用额外模板时为-1
+     */
+    private final int type;
+    /**
+     * 模板文件名
+     */
+    private final String template;
+    /**
+     * 填充数据
+     */
+    private final Map<String, Object> data;
+    /**
+     * 输出根目录
+     */
+    private final Root root;
+    /**
+     * 相对于输出根目录的目录，如 com/greedystar/entity/
+     */
+    private final String directory;
+    /**
+     * 文件名
+     */
+    private final String fileName;
+    /**
+     * 渲染后的内容
+     */
+    private byte[] content;
+    /**
+     * 是否从生成缓存中恢复
+     */
+    private boolean cacheHit;
+    /**
+     * 是否写入了文件，内容未发生变化时不写入
+     */
+    private boolean written;
+
+    public Artifact(int type, Map<String, Object> data, Root root, String directory, String fileName) {
+        this(type, FreemarkerConfigUtil.getTemplateName(type), data, root, directory, fileName);
+    }
+
+    /**
+     * 使用额外模板生成的文件，见{@link com.greedystar.generator.entity.Configuration#getTemplates()}
+     *
+     * @param template  模板文件名
+     * @param data      填充数据
+     * @param root      输出根目录
+     * @param directory 相对于输出根目录的目录
+     * @param fileName  文件名
+     */
+    public Artifact(String template, Map<String, Object> data, Root root, String directory, String fileName) {
+        this(-1, template, data, root, directory, fileName);
+    }
+
+    private Artifact(int type, String template, Map<String, Object> data, Root root, String directory, String fileName) {
+        this.type = type;
+        this.template = template;
+        this.data = data;
+        this.root = root;
+        this.directory = directory;
+        this.fileName = fileName;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public Root getRoot() {
+        return root;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * 获取相对于输出根目录的路径，以/分隔，如 com/greedystar/entity/User.java
+     *
+     * @return 相对路径
+     */
+    public String getPath() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : directory.replace(File.separatorChar, '/').split("/")) {
+            if (!name.isEmpty()) {
+                sb.append(name).append('/');
+            }
+        }
+        return sb.append(fileName).toString();
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public boolean isWritten() {
+        return written;
+    }
+
+    public void setWritten(boolean written) {
+        this.written = written;
+    }
+
+    /**
+     * 输出根目录
+     */
+    public enum Root {
+        /**
+         * 源码目录，即src/main/java
+         */
+        SOURCE,
+        /**
+         * 资源目录，即src/main/resources
+         */
+        RESOURCE
+    }
+
+}
@@ -2,11 +2,17 @@ package com.greedystar.generator.utils;
 
 import com.greedystar.generator.entity.Configuration;
 import com.greedystar.generator.entity.Constant;
+import com.greedystar.generator.entity.TemplateScope;
 import org.yaml.snakeyaml.Yaml;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 
 /**
  * 代码生成器的配置工具
@@ -44,7 +50,36 @@ public class ConfigUtil {
      */
     public static void setConfiguration(Configuration configuration) {
         ConfigUtil.configuration = configuration;
-        checkConfiguration();
+        try {
+            checkConfiguration(configuration);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(0);
+        }
+    }
+
+    /**
+     * 检查并设置配置信息，配置信息有误时抛出异常而不是退出JVM，供构建插件等运行在宿主JVM中的调用方使用
+     *
+     * @param configuration 配置对象
+     * @throws Exception 配置信息不完整或相互冲突，此时不修改当前的配置信息
+     */
+    public static void setCheckedConfiguration(Configuration configuration) throws Exception {
+        checkConfiguration(configuration);
+        ConfigUtil.configuration = configuration;
+    }
+
+    /**
+     * 从指定的配置文件读取配置，不检查配置项，供构建插件等外部调用方调整后再通过{@link #setCheckedConfiguration(Configuration)}设置
+     *
+     * @param file 配置文件，格式与generator.yaml相同
+     * @return 配置对象
+     * @throws IOException 文件读写异常
+     */
+    public static Configuration loadConfiguration(File file) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            return new Yaml().loadAs(is, Configuration.class);
+        }
     }
 
     /**
@@ -64,46 +99,74 @@ public class ConfigUtil {
     }
 
     /**
-     * 检查配置信息，用户可通过geneartor.yaml进行配置，或通过代码手动进行配置
+     * 检查配置信息并补全默认值，用户可通过geneartor.yaml进行配置，或通过代码手动进行配置
+     *
+     * @param configuration 配置对象
+     * @throws Exception 配置信息不完整或相互冲突
      */
-    private static void checkConfiguration() {
-        try {
-            // 用户未配置类名后缀，那么添加一个默认的空对象，这里是为了保证在用户不配置name属性时，程序能够取得默认值
-            if (null == ConfigUtil.configuration.getName()) {
-                Configuration.Name nameConfig = new Configuration.Name();
-                if (ConfigUtil.configuration.isJpaEnable()) {
-                    nameConfig.setDao(Constant.PLACEHOLDER + "Repository");
-                } else if (ConfigUtil.configuration.isMybatisPlusEnable()) {
-                    nameConfig.setDao(Constant.PLACEHOLDER + "Mapper");
-                }
-                ConfigUtil.configuration.setName(nameConfig);
+    public static void checkConfiguration(Configuration configuration) throws Exception {
+        // 用户未配置类名后缀，那么添加一个默认的空对象，这里是为了保证在用户不配置name属性时，程序能够取得默认值
+        if (null == configuration.getName()) {
+            Configuration.Name nameConfig = new Configuration.Name();
+            if (configuration.isJpaEnable()) {
+                nameConfig.setDao(Constant.PLACEHOLDER + "Repository");
+            } else if (configuration.isMybatisPlusEnable()) {
+                nameConfig.setDao(Constant.PLACEHOLDER + "Mapper");
             }
-            // 检查db属性
-            if (null == ConfigUtil.configuration.getDb()) {
-                throw new Exception("Can not find configuration attribute named 'db', please make sure that you have configured that attribute.");
-            }
-            // 检查path属性
-            if (null == ConfigUtil.configuration.getPath()) {
-                throw new Exception("Can not find configuration attribute named 'path', please make sure that you have configured that attribute.");
+            configuration.setName(nameConfig);
+        }
+        // 检查db属性，配置了元数据快照或DDL脚本时可以不连接数据库
+        boolean offline = !StringUtil.isEmpty(configuration.getSnapshot()) || !StringUtil.isEmpty(configuration.getDdl());
+        if (null == configuration.getDb() && !offline) {
+            throw new Exception("Can not find configuration attribute named 'db', please make sure that you have configured that attribute.");
+        }
+        // 检查path属性
+        if (null == configuration.getPath()) {
+            throw new Exception("Can not find configuration attribute named 'path', please make sure that you have configured that attribute.");
+        }
+        // 检查db属性是否配置
+        if (!offline && (StringUtil.isEmpty(configuration.getDb().getUrl())
+                || StringUtil.isEmpty(configuration.getDb().getUsername()))) {
+            throw new Exception("Please configure the correct db connection parameters, i.e. url, username and password.");
+        }
+        // 检查额外模板
+        if (null == configuration.getTemplates()) {
+            configuration.setTemplates(new ArrayList<>());
+        }
+        for (Configuration.Template template : configuration.getTemplates()) {
+            if (StringUtil.isEmpty(template.getTemplate()) || StringUtil.isEmpty(template.getName())) {
+                throw new Exception("Each entry of attribute 'templates' must configure 'template' and 'name'.");
             }
-            // 检查db属性是否配置
-            if (StringUtil.isEmpty(ConfigUtil.configuration.getDb().getUrl()) || StringUtil.isEmpty(ConfigUtil.configuration.getDb().getUsername())) {
-                throw new Exception("Please configure the correct db connection parameters, i.e. url, username and password.");
+            if (null == template.getPath()) {
+                template.setPath("");
             }
-            // 检查顶级包名是否配置
-            if (StringUtil.isEmpty(ConfigUtil.configuration.getPackageName())) {
-                throw new Exception("Please configure the correct attribute named 'package-name' or 'packageName'.");
+            if (null == template.getScope()) {
+                template.setScope(TemplateScope.TABLE);
             }
-            // 检查是否同时启用了jpa和mybatis-plus模式
-            if (ConfigUtil.configuration.isMybatisPlusEnable() && ConfigUtil.configuration.isJpaEnable()) {
-                throw new Exception("Can not enable JPA mode and MyBatis-Plus mode at the same time.");
-            } else if (ConfigUtil.configuration.isMybatisPlusEnable() || ConfigUtil.configuration.isJpaEnable()) {
-                // 禁止生成mapper.xml
-                ConfigUtil.configuration.getPath().setMapper(null);
+        }
+        // 检查date属性格式
+        if (!StringUtil.isEmpty(configuration.getDate())) {
+            try {
+                LocalDate.parse(configuration.getDate());
+            } catch (DateTimeParseException e) {
+                throw new Exception("Attribute 'date' must be in the format yyyy-MM-dd, but was " + configuration.getDate());
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(0);
+        }
+        // 可重现模式下需要确定的日期
+        if (configuration.isReproducible() && StringUtil.isEmpty(configuration.getDate())
+                && StringUtil.isEmpty(configuration.getSnapshot()) && StringUtil.isEmpty(System.getenv("SOURCE_DATE_EPOCH"))) {
+            throw new Exception("Reproducible mode requires attribute 'date', a metadata snapshot or environment variable SOURCE_DATE_EPOCH.");
+        }
+        // 检查顶级包名是否配置
+        if (StringUtil.isEmpty(configuration.getPackageName())) {
+            throw new Exception("Please configure the correct attribute named 'package-name' or 'packageName'.");
+        }
+        // 检查是否同时启用了jpa和mybatis-plus模式
+        if (configuration.isMybatisPlusEnable() && configuration.isJpaEnable()) {
+            throw new Exception("Can not enable JPA mode and MyBatis-Plus mode at the same time.");
+        } else if (configuration.isMybatisPlusEnable() || configuration.isJpaEnable()) {
+            // 禁止生成mapper.xml
+            configuration.getPath().setMapper(null);
         }
     }
 
@@ -2,6 +2,7 @@ package com.greedystar.generator.utils;
 
 import com.greedystar.generator.convertor.DefaultConvertor;
 import com.greedystar.generator.convertor.TypeConvertor;
+import com.greedystar.generator.entity.Configuration;
 
 import java.sql.JDBCType;
 
@@ -24,6 +25,15 @@ public class ConvertorUtil {
      * @return java类型
      */
     public static String parseTypeFormSqlType(JDBCType type) {
+        return getConvertor().convertType(type);
+    }
+
+    /**
+     * 获取按全局配置创建的类型转换器
+     *
+     * @return 类型转换器
+     */
+    public static TypeConvertor getConvertor() {
         /*
          * 用户配置了错误的TypeConvertor会导致convertor为null
          * 在生成多表关系代码时，会有两个EntityTask并发执行，防止创建多个实例，采用double-check的单例模式
@@ -31,23 +41,28 @@ public class ConvertorUtil {
         if (convertor == null) {
             synchronized (ConvertorUtil.class) {
                 if (convertor == null) {
-                    convertor = newInstance();
+                    convertor = newInstance(ConfigUtil.getConfiguration());
                 }
             }
         }
-        return convertor.convertType(type);
+        return convertor;
     }
 
-    private static TypeConvertor newInstance() {
+    /**
+     * 按配置创建类型转换器，每个{@link com.greedystar.generator.engine.GenerationContext}持有各自的实例
+     *
+     * @param configuration 配置信息
+     * @return 类型转换器，未配置或配置的类无法加载时返回默认转换器
+     */
+    public static TypeConvertor newInstance(Configuration configuration) {
         TypeConvertor convertor;
-        String convertorClass = ConfigUtil.getConfiguration().getConvertor();
+        String convertorClass = configuration.getConvertor();
         if (StringUtil.isEmpty(convertorClass)) { // 用户未配置类型转换器，使用默认转换器
             convertor = new DefaultConvertor();
         } else {
             // 加载用户定义的类型转换器
             try {
-                Class clazz = Class.forName(ConfigUtil.getConfiguration().getConvertor());
-                convertor = (TypeConvertor) clazz.newInstance();
+                convertor = Class.forName(convertorClass).asSubclass(TypeConvertor.class).getDeclaredConstructor().newInstance();
             } catch (Exception e) {
                 System.err.println(String.format("Can not find %s, DefaultConvertor will be used.", convertorClass));
                 convertor = new DefaultConvertor();
@@ -1,9 +1,16 @@
 package com.greedystar.generator.utils;
 
+import com.greedystar.generator.engine.GenerationContext;
+import com.greedystar.generator.task.base.Artifact;
+import freemarker.core.Environment;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
 import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * @author GreedyStar
@@ -11,6 +18,11 @@ import java.io.*;
  */
 public class FileUtil {
 
+    /**
+     * 渲染缓冲区，每个线程复用一个，避免为每个文件重复分配内存
+     */
+    private static final ThreadLocal<ByteArrayOutputStream> RENDER_BUFFER = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(8192));
+
     /**
      * @param type     使用模板类型
      * @param data     填充数据
@@ -20,12 +32,135 @@ public class FileUtil {
      * @throws TemplateException 模板异常
      */
     public static void generateToJava(int type, Object data, String filePath, String fileName) throws IOException, TemplateException {
+        writeToFile(render(type, data), filePath, fileName, getContext(data).getConfiguration().isFileOverride());
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param type 使用模板类型
+     * @param data 填充数据
+     * @return 渲染后的文件内容
+     * @throws IOException       文件读写异常
+     * @throws TemplateException 模板异常
+     */
+    public static byte[] render(int type, Object data) throws IOException, TemplateException {
+        ByteArrayOutputStream buffer = RENDER_BUFFER.get();
+        render(FreemarkerConfigUtil.getTemplateName(type), data, buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 渲染模板，并记录是否从生成缓存中恢复
+     *
+     * @param artifact 待生成的文件
+     * @param data     填充数据
+     * @throws IOException       文件读写异常
+     * @throws TemplateException 模板异常
+     */
+    public static void render(Artifact artifact, Object data) throws IOException, TemplateException {
+        ByteArrayOutputStream buffer = RENDER_BUFFER.get();
+        artifact.setCacheHit(render(artifact.getTemplate(), data, buffer));
+        artifact.setContent(buffer.toByteArray());
+    }
+
+    /**
+     * 渲染模板到缓冲区，模板和配置取自填充数据所属的上下文，上下文同时提供给模板中的代码段指令
+     *
+     * @param template 模板文件名
+     * @param data     填充数据
+     * @param buffer   缓冲区
+     * @return 是否命中生成缓存
+     * @throws IOException       文件读写异常
+     * @throws TemplateException 模板异常
+     */
+    private static boolean render(String template, Object data, ByteArrayOutputStream buffer) throws IOException, TemplateException {
+        GenerationContext context = getContext(data);
+        Template tpl = context.getTemplateConfiguration().getTemplate(template); // 获取模板文件，已编译的模板由FreeMarker缓存
+        buffer.reset();
+        // 启用生成缓存时，模板、配置和表结构均未变化的文件直接从缓存中恢复，无需再次渲染
+        String cacheKey = null;
+        if (context.getConfiguration().isCacheEnable()) {
+            // 共享的配置信息和表数据只以预先计算的指纹参与计算
+            cacheKey = GenerationCache.key(tpl, data instanceof GenerationContext.DataModel ?
+                    ((GenerationContext.DataModel) data).getCacheKeyData() : data, context.getConvertor());
+            if (cacheKey != null && GenerationCache.restore(cacheKey, buffer)) {
+                return true;
+            }
+        }
+        // 填充数据，只渲染一次
+        buffer.reset();
+        // 代码段指令逐列写入大量短字符串，先在字符层缓冲再统一编码
+        Writer writer = new BufferedWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8), 8192);
+        boolean reproducible = context.getConfiguration().isReproducible();
+        if (reproducible) {
+            // 模板或表注释中的\r\n和\r统一为\n，生成结果不受模板文件的换行符和运行平台影响
+            writer = new LineFeedWriter(writer);
+        }
+        Environment env = tpl.createProcessingEnvironment(data, writer);
+        env.setCustomAttribute(GenerationContext.class.getName(), context);
+        if (reproducible) { // 日期格式不随运行环境的时区和语言变化
+            env.setTimeZone(GenerationContext.REPRODUCIBLE_TIME_ZONE);
+            env.setLocale(GenerationContext.REPRODUCIBLE_LOCALE);
+            env.setDateFormat(GenerationContext.REPRODUCIBLE_DATE_FORMAT);
+        }
+        env.process();
+        writer.flush();
+        if (cacheKey != null) {
+            GenerationCache.store(cacheKey, buffer);
+        }
+        return false;
+    }
+
+    /**
+     * 获取填充数据所属的上下文
+     *
+     * @param data 填充数据
+     * @return 上下文，不是{@link GenerationContext.DataModel}时返回按全局配置创建的上下文
+     */
+    private static GenerationContext getContext(Object data) {
+        return data instanceof GenerationContext.DataModel ? ((GenerationContext.DataModel) data).getContext() : GenerationContext.getDefault();
+    }
+
+    /**
+     * 将渲染后的内容写入文件
+     *
+     * @param content  文件内容
+     * @param filePath 输出文件
+     * @param fileName 文件名
+     * @return 是否写入了文件，内容未发生变化时返回false
+     * @throws IOException 文件读写异常
+     */
+    public static boolean writeToFile(byte[] content, String filePath, String fileName) throws IOException {
+        return writeToFile(content, filePath, fileName, ConfigUtil.getConfiguration().isFileOverride());
+    }
+
+    /**
+     * 将渲染后的内容写入文件
+     *
+     * @param content      文件内容
+     * @param filePath     输出文件
+     * @param fileName     文件名
+     * @param fileOverride 是否覆盖已存在的文件
+     * @return 是否写入了文件，内容未发生变化时返回false
+     * @throws IOException 文件读写异常
+     */
+    public static boolean writeToFile(byte[] content, String filePath, String fileName, boolean fileOverride) throws IOException {
         String path = filePath + fileName; // 待生成的代码文件路径
-        // 已存在的文件不予覆盖
         File file = new File(path);
-        if (file.exists() && !ConfigUtil.getConfiguration().isFileOverride()) {
+        // 内容未发生变化的文件不再写入，保留其修改时间，避免触发增量编译
+        if (isSameContent(content, file)) {
+            System.out.printf("%s is up to date \n", path);
+            return false;
+        }
+        // 已存在的文件不予覆盖
+        if (file.exists() && !fileOverride) {
             path += ".generated";
+            file = new File(path);
             System.err.printf("%s already exit. Generating %s \n", fileName, path);
+            if (isSameContent(content, file)) {
+                return false;
+            }
         } else {
             System.out.printf("Generating %s \n", path);
         }
@@ -33,59 +168,74 @@ public class FileUtil {
         if (!file.getParentFile().exists()) {
             file.getParentFile().mkdirs();
         }
-        Template tpl = getTemplate(type); // 获取模板文件
-        // 填充数据
-        StringWriter writer = new StringWriter();
-        tpl.process(data, writer);
-        writer.flush();
         // 写入文件
-        FileOutputStream fos = new FileOutputStream(path);
-        OutputStreamWriter osw = new OutputStreamWriter(fos, "UTF-8");
-        BufferedWriter bw = new BufferedWriter(osw, 1024);
-        tpl.process(data, bw);
-        writer.close();
-        bw.close();
+        try (OutputStream os = new FileOutputStream(file)) {
+            os.write(content);
+        }
+        return true;
     }
 
     /**
-     * 获取模板
+     * 文件内容是否与给定内容一致，先比较长度，长度一致时再比较摘要
      *
-     * @param type 模板类型
-     * @return
-     * @throws IOException
+     * @param content 文件内容
+     * @param file    文件
+     * @return 是否一致
+     * @throws IOException 文件读写异常
      */
-    private static Template getTemplate(int type) throws IOException {
-        switch (type) {
-            case FreemarkerConfigUtil.TYPE_ENTITY:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Entity.ftl");
-            case FreemarkerConfigUtil.TYPE_DAO:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Dao.ftl");
-            case FreemarkerConfigUtil.TYPE_SERVICE:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Service.ftl");
-            case FreemarkerConfigUtil.TYPE_CONTROLLER:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Controller.ftl");
-            case FreemarkerConfigUtil.TYPE_MAPPER:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Mapper.ftl");
-            case FreemarkerConfigUtil.TYPE_INTERFACE:
-                return FreemarkerConfigUtil.getInstance().getTemplate("Interface.ftl");
-            default:
-                return null;
+    private static boolean isSameContent(byte[] content, File file) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        MessageDigest contentDigest = newDigest();
+        contentDigest.update(content);
+        MessageDigest fileDigest = newDigest();
+        try (InputStream is = new FileInputStream(file)) {
+            byte[] bytes = new byte[8192];
+            int len;
+            while ((len = is.read(bytes)) != -1) {
+                fileDigest.update(bytes, 0, len);
+            }
+        }
+        return MessageDigest.isEqual(contentDigest.digest(), fileDigest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
     /**
-     * 获取项目主目录
+     * 获取项目根目录
      *
      * @return 项目根路径
      */
-    private static String getBasicProjectPath() {
+    public static String getProjectPath() {
         StringBuilder sb = new StringBuilder();
-        String path = FileUtil.class.getClassLoader().getResource("").getPath().replace("/", File.separator);
+        URL url = FileUtil.class.getClassLoader().getResource("");
+        if (url == null) { // 从jar包中运行时没有classpath根目录，使用工作目录
+            return System.getProperty("user.dir") + File.separator;
+        }
+        String path = url.getPath().replace("/", File.separator);
         if (path.contains("target")) {
             sb.append(path, 0, path.indexOf("target"));
         } else if (path.contains("build")) {
             sb.append(path, 0, path.indexOf("build"));
         }
+        return sb.toString();
+    }
+
+    /**
+     * 获取项目主目录
+     *
+     * @return 项目根路径
+     */
+    private static String getBasicProjectPath() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getProjectPath());
         sb.append("src").append(File.separator).append("main").append(File.separator);
         return sb.toString();
     }
@@ -117,4 +267,55 @@ public class FileUtil {
         System.out.println(getSourcePath());
     }
 
+    /**
+     * 将\r\n和单独的\r转换为\n的Writer
+     */
+    private static class LineFeedWriter extends FilterWriter {
+        /**
+         * 上一个字符是否为\r
+         */
+        private boolean carriageReturn;
+
+        LineFeedWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (c == '\r') {
+                out.write('\n');
+            } else if (c != '\n' || !carriageReturn) {
+                out.write(c);
+            }
+            carriageReturn = c == '\r';
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                if (c != '\r' && (c != '\n' || !carriageReturn)) {
+                    carriageReturn = false;
+                    continue;
+                }
+                out.write(cbuf, start, i - start);
+                if (c == '\r') {
+                    out.write('\n');
+                }
+                carriageReturn = c == '\r';
+                start = i + 1;
+            }
+            out.write(cbuf, start, end - start);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            char[] chars = new char[len];
+            str.getChars(off, off + len, chars, 0);
+            write(chars, 0, len);
+        }
+    }
+
 }
@@ -1,10 +1,20 @@
 package com.greedystar.generator.utils;
 
+import com.greedystar.generator.directive.Directives;
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.MultiTemplateLoader;
+import freemarker.cache.TemplateLoader;
 import freemarker.template.Configuration;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author GreedyStar
@@ -19,12 +29,49 @@ public class FreemarkerConfigUtil {
      * freemarker配置
      */
     private static volatile Configuration configuration;
+    /**
+     * 自定义模板目录 -> freemarker配置，同一目录的配置在各次生成之间共享已编译的模板
+     */
+    private final static Map<File, Configuration> CONFIGURATIONS = new ConcurrentHashMap<>();
     public final static int TYPE_ENTITY = 0;
     public final static int TYPE_DAO = 1;
     public final static int TYPE_SERVICE = 2;
     public final static int TYPE_CONTROLLER = 3;
     public final static int TYPE_MAPPER = 4;
     public final static int TYPE_INTERFACE = 5;
+    /**
+     * 内置模板，下标为模板类型
+     */
+    private final static List<String> TEMPLATES = Collections.unmodifiableList(Arrays.asList(
+            "Entity.ftl", "Dao.ftl", "Service.ftl", "Controller.ftl", "Mapper.ftl", "Interface.ftl"));
+
+    /**
+     * 获取内置模板的文件名
+     *
+     * @param type 模板类型
+     * @return 模板文件名，未知的模板类型返回null
+     */
+    public static String getTemplateName(int type) {
+        return type >= 0 && type < TEMPLATES.size() ? TEMPLATES.get(type) : null;
+    }
+
+    /**
+     * 获取所有内置模板的文件名
+     *
+     * @return 模板文件名
+     */
+    public static List<String> getTemplateNames() {
+        return TEMPLATES;
+    }
+
+    /**
+     * 获取模板目录，从jar包中加载模板时返回null
+     *
+     * @return 模板目录
+     */
+    public static File getTemplateDirectory() {
+        return path.contains("jar") ? null : new File(path);
+    }
 
     public static Configuration getInstance() {
         if (null == configuration) {
@@ -41,9 +88,32 @@ public class FreemarkerConfigUtil {
                         e.printStackTrace();
                     }
                     configuration.setEncoding(Locale.CHINA, "utf-8");
+                    Directives.register(configuration);
                 }
             }
         }
         return configuration;
     }
+
+    /**
+     * 获取优先从自定义模板目录加载模板的配置，找不到的模板从内置模板目录加载
+     *
+     * @param templateDirectory 自定义模板目录
+     * @return freemarker配置
+     */
+    public static Configuration getInstance(File templateDirectory) {
+        return CONFIGURATIONS.computeIfAbsent(templateDirectory.getAbsoluteFile(), directory -> {
+            Configuration configuration = new Configuration(Configuration.VERSION_2_3_23);
+            try {
+                TemplateLoader builtin = path.contains("jar") ? new ClassTemplateLoader(FreemarkerConfigUtil.class, "/ftls")
+                        : new FileTemplateLoader(new File(path));
+                configuration.setTemplateLoader(new MultiTemplateLoader(new TemplateLoader[]{new FileTemplateLoader(directory), builtin}));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can not load templates from " + directory.getPath(), e);
+            }
+            configuration.setEncoding(Locale.CHINA, "utf-8");
+            Directives.register(configuration);
+            return configuration;
+        });
+    }
 }
@@ -0,0 +1,324 @@
+package com.greedystar.generator.utils;
+
+import com.greedystar.generator.convertor.TypeConvertor;
+import com.greedystar.generator.entity.ColumnInfo;
+import freemarker.template.Template;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于内容寻址的生成缓存，缓存项以模板内容、配置信息和表结构数据的摘要作为键，保存渲染后的文件内容
+ *
+ * @author GreedyStar
+ * @since 2021/5/9
+ */
+public class GenerationCache {
+    /**
+     * 缓存目录名
+     */
+    public final static String CACHE_DIR = ".generator-cache";
+    /**
+     * 缓存键版本，模板指令等不体现在模板内容和填充数据中的生成逻辑发生变化时递增
+     */
+    private final static int KEY_VERSION = 3;
+    /**
+     * 模板内容摘要，FreeMarker会缓存已加载的模板，模板文件修改后会得到新的Template对象
+     */
+    private final static Map<Template, TemplateDigest> TEMPLATE_DIGESTS = Collections.synchronizedMap(new WeakHashMap<>());
+    /**
+     * 引用其他模板的指令
+     */
+    private final static Pattern INCLUDE = Pattern.compile("[<\\[]#(?:include|import)\\b");
+    /**
+     * 以字符串常量引用其他模板的指令，引用的模板名为第一个分组
+     */
+    private final static Pattern LITERAL_INCLUDE = Pattern.compile("[<\\[]#(?:include|import)\\s+[\"']([^\"'$]+)[\"']");
+
+    /**
+     * 计算缓存键
+     *
+     * @param template  模板
+     * @param data      填充数据，包含配置信息和由表结构计算出的代码段
+     * @param convertor 生成使用的类型转换器，列的Java类型由其确定
+     * @return 缓存键，模板引用的模板无法确定时返回null，此时不使用缓存
+     */
+    public static String key(Template template, Object data, TypeConvertor convertor) {
+        TemplateDigest templateDigest = TEMPLATE_DIGESTS.get(template);
+        if (templateDigest == null || !templateDigest.isCurrent()) {
+            templateDigest = new TemplateDigest(template);
+            TEMPLATE_DIGESTS.put(template, templateDigest);
+        }
+        if (templateDigest.digest == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder().append(KEY_VERSION).append('\n').append(templateDigest).append('\n');
+        appendFingerprint(sb, data, convertor);
+        return digest(sb.toString());
+    }
+
+    /**
+     * 计算数据的指纹，可预先计算多次渲染共享的数据的指纹，再以字符串形式参与缓存键的计算；列只以自身的字段参与计算，不包括转换后的Java类型
+     *
+     * @param data 数据
+     * @return 指纹
+     */
+    public static String fingerprint(Object data) {
+        return fingerprint(data, null);
+    }
+
+    /**
+     * 计算数据的指纹
+     *
+     * @param data      数据
+     * @param convertor 类型转换器，列的Java类型由其确定，为null时只使用显式指定的Java类型
+     * @return 指纹
+     */
+    public static String fingerprint(Object data, TypeConvertor convertor) {
+        StringBuilder sb = new StringBuilder();
+        appendFingerprint(sb, data, convertor);
+        return digest(sb.toString());
+    }
+
+    /**
+     * 将填充数据序列化为确定的文本形式，Map按键排序，JavaBean按属性名排序，字符串带长度前缀以避免歧义
+     *
+     * @param sb        StringBuilder对象
+     * @param value     填充数据
+     * @param convertor 类型转换器
+     */
+    private static void appendFingerprint(StringBuilder sb, Object value, TypeConvertor convertor) {
+        if (value == null) {
+            sb.append("null;");
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum) {
+            String string = value.toString();
+            sb.append(string.length()).append(':').append(string).append(';');
+        } else if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+            sb.append('{');
+            sorted.forEach((k, v) -> {
+                appendFingerprint(sb, k, convertor);
+                appendFingerprint(sb, v, convertor);
+            });
+            sb.append('}');
+        } else if (value instanceof Collection) {
+            sb.append('[');
+            ((Collection<?>) value).forEach(item -> appendFingerprint(sb, item, convertor));
+            sb.append(']');
+        } else if (value instanceof ColumnInfo) {
+            appendColumnFingerprint(sb, (ColumnInfo) value, convertor);
+        } else {
+            appendBeanFingerprint(sb, value, convertor);
+        }
+    }
+
+    /**
+     * 序列化列的字段，不能通过getPropertyType()获取Java类型：该方法使用全局配置的类型转换器，未配置generator.yaml时会退出JVM
+     *
+     * @param sb        StringBuilder对象
+     * @param info      列
+     * @param convertor 类型转换器，为null时只使用显式指定的Java类型
+     */
+    private static void appendColumnFingerprint(StringBuilder sb, ColumnInfo info, TypeConvertor convertor) {
+        sb.append(ColumnInfo.class.getName()).append('(');
+        appendFingerprint(sb, info.getColumnName(), null);
+        appendFingerprint(sb, info.getPropertyName(), null);
+        appendFingerprint(sb, info.getColumnType(), null);
+        appendFingerprint(sb, info.getRemarks(), null);
+        appendFingerprint(sb, info.isPrimaryKey(), null);
+        appendFingerprint(sb, info.getPropertyType(convertor == null ? type -> null : convertor), null);
+        sb.append(')');
+    }
+
+    /**
+     * 序列化JavaBean的所有可读属性
+     *
+     * @param sb        StringBuilder对象
+     * @param bean      JavaBean
+     * @param convertor 类型转换器
+     */
+    private static void appendBeanFingerprint(StringBuilder sb, Object bean, TypeConvertor convertor) {
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(bean.getClass(), Object.class);
+            PropertyDescriptor[] descriptors = beanInfo.getPropertyDescriptors();
+            Arrays.sort(descriptors, Comparator.comparing(PropertyDescriptor::getName));
+            sb.append(bean.getClass().getName()).append('(');
+            for (PropertyDescriptor descriptor : descriptors) {
+                if (descriptor.getReadMethod() == null) {
+                    continue;
+                }
+                appendFingerprint(sb, descriptor.getName(), convertor);
+                appendFingerprint(sb, descriptor.getReadMethod().invoke(bean), convertor);
+            }
+            sb.append(')');
+        } catch (Exception e) {
+            throw new IllegalStateException("Can not compute cache key for " + bean.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * 从缓存中恢复文件内容
+     *
+     * @param key 缓存键
+     * @param out 输出流
+     * @return 是否命中缓存
+     */
+    public static boolean restore(String key, OutputStream out) {
+        File file = getCacheFile(key);
+        if (!file.isFile()) {
+            return false;
+        }
+        try {
+            Files.copy(file.toPath(), out);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 保存文件内容到缓存
+     *
+     * @param key     缓存键
+     * @param content 渲染后的文件内容
+     */
+    public static void store(String key, ByteArrayOutputStream content) {
+        File file = getCacheFile(key);
+        try {
+            if (!file.getParentFile().exists()) {
+                file.getParentFile().mkdirs();
+            }
+            // 先写入临时文件再重命名，避免并发任务读到不完整的缓存项
+            File tmp = File.createTempFile(key, ".tmp", file.getParentFile());
+            try (OutputStream os = new FileOutputStream(tmp)) {
+                content.writeTo(os);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 获取缓存文件，以键的前两位作为子目录，避免单个目录下文件过多
+     *
+     * @param key 缓存键
+     * @return 缓存文件
+     */
+    private static File getCacheFile(String key) {
+        return new File(FileUtil.getProjectPath() + CACHE_DIR + File.separator + key.substring(0, 2), key);
+    }
+
+    /**
+     * 模板及其通过include、import引用的所有模板的摘要，引用的模板修改后FreeMarker会加载新的Template对象，据此判断摘要是否过期
+     */
+    private static class TemplateDigest {
+        /**
+         * 模板名 -> 模板，包括模板自身
+         */
+        private final Map<String, Template> templates = new LinkedHashMap<>();
+        /**
+         * 摘要，引用的模板名不是字符串常量或模板无法加载时为null
+         */
+        private final String digest;
+
+        TemplateDigest(Template template) {
+            String digest = null;
+            try {
+                if (collect(template)) {
+                    StringBuilder sb = new StringBuilder();
+                    templates.values().forEach(t -> sb.append(t.getName()).append('\n').append(t.toString()).append('\n'));
+                    digest = digest(sb.toString());
+                }
+            } catch (IOException e) {
+                // 引用的模板无法加载时渲染会失败，不使用缓存
+            }
+            this.digest = digest;
+        }
+
+        /**
+         * 收集模板引用的所有模板
+         *
+         * @param template 模板
+         * @return 所有引用的模板名都是字符串常量时返回true
+         * @throws IOException 模板加载失败
+         */
+        private boolean collect(Template template) throws IOException {
+            if (templates.putIfAbsent(template.getName(), template) != null) {
+                return true;
+            }
+            String source = template.toString();
+            int includes = 0;
+            Matcher matcher = INCLUDE.matcher(source);
+            while (matcher.find()) {
+                includes++;
+            }
+            matcher = LITERAL_INCLUDE.matcher(source);
+            while (matcher.find()) {
+                includes--;
+                String name = matcher.group(1);
+                // 以/开头的模板名相对于模板根目录，其他相对于当前模板所在的目录
+                int slash = template.getName().lastIndexOf('/');
+                name = name.startsWith("/") ? name.substring(1) : template.getName().substring(0, slash + 1) + name;
+                if (!collect(template.getConfiguration().getTemplate(name))) {
+                    return false;
+                }
+            }
+            return includes == 0;
+        }
+
+        /**
+         * 引用的模板是否都未发生变化，模板自身变化时会得到新的Template对象，不会使用过期的摘要
+         *
+         * @return 是否仍然有效
+         */
+        boolean isCurrent() {
+            try {
+                Iterator<Template> iterator = templates.values().iterator();
+                iterator.next(); // 跳过模板自身
+                while (iterator.hasNext()) {
+                    Template template = iterator.next();
+                    if (template.getConfiguration().getTemplate(template.getName()) != template) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 计算SHA-256摘要
+     *
+     * @param content 内容
+     * @return 十六进制摘要
+     */
+    private static String digest(String content) {
+        try {
+            byte[] bytes = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
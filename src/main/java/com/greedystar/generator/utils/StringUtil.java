@@ -134,7 +134,10 @@ public class StringUtil {
                 .replace("mybatis-plus-enable", "mybatisPlusEnable")
                 .replace("jpa-enable", "jpaEnable")
                 .replace("id-strategy", "idStrategy")
-                .replace("file-override", "fileOverride");
+                .replace("file-override", "fileOverride")
+                .replace("cache-enable", "cacheEnable")
+                .replace("virtual-thread-enable", "virtualThreadEnable")
+                .replace("max-connections", "maxConnections");
     }
 
 }
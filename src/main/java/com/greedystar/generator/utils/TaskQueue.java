@@ -1,5 +1,6 @@
 package com.greedystar.generator.utils;
 
+import com.greedystar.generator.entity.Configuration;
 import com.greedystar.generator.entity.Mode;
 import com.greedystar.generator.invoker.base.AbstractInvoker;
 import com.greedystar.generator.task.*;
@@ -19,26 +20,29 @@ public class TaskQueue {
     private LinkedList<AbstractTask> taskQueue = new LinkedList<>();
 
     /**
-     * 初始化共性任务，包括Controller、ServiceImpl、Service、Dao、Mapper任务
+     * 初始化共性任务，包括Controller、ServiceImpl、Service、Dao、Mapper任务，以及配置的额外模板的任务
      *
      * @param invoker 执行器
      */
     private void initCommonTasks(AbstractInvoker invoker) {
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getController())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getController())) {
             taskQueue.add(new ControllerTask(invoker));
         }
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getService())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getService())) {
             taskQueue.add(new ServiceTask(invoker));
         }
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getInterf())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getInterf())) {
             taskQueue.add(new InterfaceTask(invoker));
         }
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getDao())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getDao())) {
             taskQueue.add(new DaoTask(invoker));
         }
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getMapper())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getMapper())) {
             taskQueue.add(new MapperTask(invoker));
         }
+        for (Configuration.Template template : invoker.getContext().getConfiguration().getTemplates()) {
+            taskQueue.add(new TemplateTask(invoker, template));
+        }
     }
 
     /**
@@ -48,7 +52,7 @@ public class TaskQueue {
      */
     public void initSingleTasks(AbstractInvoker invoker) {
         initCommonTasks(invoker);
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getEntity())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getEntity())) {
             taskQueue.add(new EntityTask(Mode.ENTITY_MAIN, invoker));
         }
     }
@@ -60,7 +64,7 @@ public class TaskQueue {
      */
     public void initMany2OneTasks(AbstractInvoker invoker) {
         initCommonTasks(invoker);
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getEntity())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getEntity())) {
             taskQueue.add(new EntityTask(Mode.ENTITY_MAIN, invoker));
             taskQueue.add(new EntityTask(Mode.ENTITY_PARENT, invoker));
         }
@@ -73,7 +77,7 @@ public class TaskQueue {
      */
     public void initOne2ManyTasks(AbstractInvoker invoker) {
         initCommonTasks(invoker);
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getEntity())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getEntity())) {
             taskQueue.add(new EntityTask(Mode.ENTITY_MAIN, invoker));
             taskQueue.add(new EntityTask(Mode.ENTITY_PARENT, invoker));
         }
@@ -86,7 +90,7 @@ public class TaskQueue {
      */
     public void initMany2ManyTasks(AbstractInvoker invoker) {
         initCommonTasks(invoker);
-        if (!StringUtil.isEmpty(ConfigUtil.getConfiguration().getPath().getEntity())) {
+        if (!StringUtil.isEmpty(invoker.getContext().getConfiguration().getPath().getEntity())) {
             taskQueue.add(new EntityTask(Mode.ENTITY_MAIN, invoker));
             taskQueue.add(new EntityTask(Mode.ENTITY_PARENT, invoker));
         }
@@ -16,7 +16,7 @@ import java.util.Map;
 
 /**
  * @author ${Configuration.author}
- * @date ${.now?date}
+ * @date ${(Date!.now)?date}
  */
 <#if Configuration.swaggerEnable>
 @Api(value = "/${EntityName}", tags = "${EntityName}管理接口")
@@ -16,7 +16,7 @@ import java.util.Date;
  * ${Remarks}
  * table: ${TableName}
  * @author ${Configuration.author}
- * @date ${.now?date}
+ * @date ${(Date!.now)?date}
  */
 <#if Configuration.lombokEnable>
 @Data
@@ -28,7 +28,7 @@ import java.util.Date;
 @Table(name = "${TableName}")
 </#if>
 public class ${ClassName} implements Serializable {
-    ${Properties}
+    <@entityProperties/><#nt>
 
-    ${Methods}
+    <@entityMethods/><#nt>
 }
\ No newline at end of file
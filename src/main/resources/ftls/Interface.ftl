@@ -11,7 +11,7 @@ import java.util.List;
 
 /**
  * @author ${Configuration.author}
- * @date ${.now?date}
+ * @date ${(Date!.now)?date}
  */
 <#if Configuration.mybatisPlusEnable><#-- mybatis-plus模式 -->
 public interface ${InterfaceClassName} extends IService<${ClassName}> {
@@ -3,13 +3,13 @@
 <mapper namespace="${Configuration.packageName}.${Configuration.path.dao}.${DaoClassName}">
 
     <resultMap id="${EntityName}ResultMap" type="${Configuration.packageName}.${Configuration.path.entity}.${ClassName}">
-        ${ResultMap}
+        <@resultMap/><#nt>
         ${Association}
         ${Collection}
     </resultMap>
 
     <sql id="${EntityName}Columns">
-        ${ColumnMap}
+        <@columnMap/><#nt>
     </sql>
 
     <sql id="${EntityName}Joins">
@@ -35,28 +35,28 @@
 
     <insert id="insert">
         INSERT INTO `${TableName}`(
-            ${InsertProperties}
+            <@insertProperties/><#nt>
         )
         VALUES (
-            ${InsertValues}
+            <@insertValues/><#nt>
         )
     </insert>
 
     <insert id="insertBatch">
         INSERT INTO ${TableName}(
-            ${InsertProperties}
+            <@insertProperties/><#nt>
         )
         VALUES
         <foreach collection ="list" item="${EntityName}" separator =",">
         (
-            ${InsertBatchValues}
+            <@insertBatchValues/><#nt>
         )
         </foreach>
     </insert>
 
     <update id="update">
         UPDATE `${TableName}` SET
-        ${UpdateProperties}
+        <@updateProperties/><#nt>
         WHERE `${PrimaryColumn.columnName}` = ${r"#{"}${PrimaryColumn.propertyName}${r"}"}
     </update>
 
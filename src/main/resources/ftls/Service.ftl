@@ -16,7 +16,7 @@ import java.util.List;
 
 /**
  * @author ${Configuration.author}
- * @date ${.now?date}
+ * @date ${(Date!.now)?date}
  */
 @Service
 <#if Configuration.mybatisPlusEnable><#-- mybatis-plus模式 -->
@@ -0,0 +1,250 @@
+package com.greedystar.generator.db;
+
+import com.greedystar.generator.entity.ColumnInfo;
+import com.greedystar.generator.entity.ForeignKeyInfo;
+import com.greedystar.generator.invoker.base.TableInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.JDBCType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author GreedyStar
+ * @since 2021/5/19
+ */
+public class MySqlDdlParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parseCreateTable() {
+        TableInfo user = parse("CREATE TABLE IF NOT EXISTS `db`.`user` (\n" +
+                "  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT 'ID',\n" +
+                "  name VARCHAR(20) DEFAULT ('x') COMMENT 'n', -- 行注释\n" +
+                "  enabled TINYINT(1),\n" +
+                "  price DECIMAL(10, 2),\n" +
+                "  KEY idx_name (name),\n" +
+                "  PRIMARY KEY (`id`)\n" +
+                ") ENGINE=InnoDB COMMENT='用户';").get("user");
+        assertEquals("用户", user.getTableRemark());
+        assertEquals(names("id", "name", "enabled", "price"), names(user));
+        assertColumn(user, "id", JDBCType.BIGINT, "ID", true);
+        assertColumn(user, "name", JDBCType.VARCHAR, "n", false);
+        assertColumn(user, "enabled", JDBCType.BIT, "enabled", false);
+        assertColumn(user, "price", JDBCType.DECIMAL, "price", false);
+    }
+
+    @Test
+    public void compositePrimaryKeyMarksFirstColumnByName() {
+        TableInfo role = parse("CREATE TABLE user_role (user_id INT, role_id INT, PRIMARY KEY (user_id, role_id));").get("user_role");
+        assertColumn(role, "role_id", JDBCType.INTEGER, "role_id", true);
+        assertColumn(role, "user_id", JDBCType.INTEGER, "user_id", false);
+        assertEquals("Unknown", role.getTableRemark());
+    }
+
+    @Test
+    public void delimiterAndCommentsAreSkipped() {
+        Map<String, TableInfo> tables = parse("/* 注释; */\n" +
+                "# 注释;\n" +
+                "DELIMITER $$\n" +
+                "CREATE TABLE a (id INT PRIMARY KEY)$$\n" +
+                "DELIMITER ;\n" +
+                "INSERT INTO a VALUES (1);\n" +
+                "CREATE TABLE b (id INT KEY);");
+        assertEquals(2, tables.size());
+        assertTrue(tables.get("b").getColumnsInfo().get(0).isPrimaryKey());
+    }
+
+    @Test
+    public void delimiterDirectlyAfterWord() {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse("CREATE TABLE a (id INT PRIMARY KEY, $name VARCHAR(20));\n" +
+                "DELIMITER $$\n" +
+                "CREATE TRIGGER a_bi BEFORE INSERT ON a FOR EACH ROW\n" +
+                "BEGIN\n" +
+                "  SET NEW.id = 1;\n" +
+                "END$$\n" +
+                "DELIMITER ;\n" +
+                "CREATE TABLE b (id INT PRIMARY KEY);\n" +
+                "ALTER TABLE b ADD COLUMN code INT;\n" +
+                "RENAME TABLE b TO c;");
+        assertEquals(names("id", "$name"), names(parser.getTables().get("a")));
+        assertNull(parser.getTables().get("b"));
+        assertEquals(names("id", "code"), names(parser.getTables().get("c")));
+    }
+
+    @Test
+    public void createTableLikeCopiesColumnsButNotForeignKeys() {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse("CREATE TABLE dept (id INT PRIMARY KEY);\n" +
+                "CREATE TABLE emp (id INT, dept_id INT, PRIMARY KEY (id), FOREIGN KEY (dept_id) REFERENCES dept (id));\n" +
+                "CREATE TABLE emp_copy LIKE emp;\n" +
+                "ALTER TABLE emp_copy ADD COLUMN a INT;");
+        TableInfo copy = parser.getTables().get("emp_copy");
+        assertEquals(names("id", "dept_id", "a"), names(copy));
+        assertColumn(copy, "id", JDBCType.INTEGER, "id", true);
+        assertEquals(1, parser.getForeignKeys().get("emp").size());
+        assertNull(parser.getForeignKeys().get("emp_copy"));
+    }
+
+    @Test
+    public void dropTable() {
+        assertTrue(parse("CREATE TABLE a (id INT); DROP TABLE IF EXISTS a;").isEmpty());
+    }
+
+    @Test
+    public void alterAddColumn() {
+        TableInfo user = parse("CREATE TABLE user (id BIGINT PRIMARY KEY, name VARCHAR(20));\n" +
+                "ALTER TABLE user ADD COLUMN age INT COMMENT '年龄', ADD created DATETIME FIRST;\n" +
+                "ALTER TABLE user ADD COLUMN (a INT, b INT) , ADD COLUMN email VARCHAR(50) AFTER id;").get("user");
+        assertEquals(names("created", "id", "email", "name", "age", "a", "b"), names(user));
+        assertColumn(user, "age", JDBCType.INTEGER, "年龄", false);
+        assertColumn(user, "created", JDBCType.TIMESTAMP, "created", false);
+        assertColumn(user, "id", JDBCType.BIGINT, "id", true);
+    }
+
+    @Test
+    public void alterModifyAndChangeColumn() {
+        TableInfo user = parse("CREATE TABLE user (id BIGINT PRIMARY KEY, name VARCHAR(20) COMMENT 'n', age INT COMMENT 'a');\n" +
+                "ALTER TABLE user MODIFY name VARCHAR(50) COMMENT 'new';\n" +
+                "ALTER TABLE user MODIFY COLUMN age BIGINT;\n" +
+                "ALTER TABLE user CHANGE COLUMN name full_name TEXT COMMENT 'full' FIRST;").get("user");
+        assertEquals(names("full_name", "id", "age"), names(user));
+        assertColumn(user, "full_name", JDBCType.LONGVARCHAR, "full", false);
+        assertEquals("fullName", column(user, "full_name").getPropertyName());
+        // MODIFY以新的定义替换整列，未指定注释时使用列名
+        assertColumn(user, "age", JDBCType.BIGINT, "age", false);
+        assertColumn(user, "id", JDBCType.BIGINT, "id", true);
+    }
+
+    @Test
+    public void alterRenameAndDropColumn() {
+        TableInfo user = parse("CREATE TABLE user (id BIGINT, name VARCHAR(20) COMMENT 'n', nick VARCHAR(20), age INT);\n" +
+                "ALTER TABLE user RENAME COLUMN name TO user_name, RENAME COLUMN nick TO nickname, DROP COLUMN age;").get("user");
+        assertEquals(names("id", "user_name", "nickname"), names(user));
+        assertColumn(user, "user_name", JDBCType.VARCHAR, "n", false);
+        assertColumn(user, "nickname", JDBCType.VARCHAR, "nickname", false);
+        assertEquals("userName", column(user, "user_name").getPropertyName());
+    }
+
+    @Test
+    public void alterPrimaryKey() {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse("CREATE TABLE a (id INT PRIMARY KEY, code INT);\n" +
+                "ALTER TABLE a DROP PRIMARY KEY;");
+        assertFalse(column(parser.getTables().get("a"), "id").isPrimaryKey());
+        parser.parse("ALTER TABLE a ADD CONSTRAINT pk_a PRIMARY KEY (code);");
+        assertTrue(column(parser.getTables().get("a"), "code").isPrimaryKey());
+        assertFalse(column(parser.getTables().get("a"), "id").isPrimaryKey());
+        parser.parse("ALTER TABLE a CHANGE code a_code INT;");
+        assertTrue(column(parser.getTables().get("a"), "a_code").isPrimaryKey());
+        parser.parse("ALTER TABLE a DROP COLUMN a_code;");
+        assertFalse(column(parser.getTables().get("a"), "id").isPrimaryKey());
+    }
+
+    @Test
+    public void alterTableCommentAndIgnoredClauses() {
+        TableInfo a = parse("CREATE TABLE a (id INT) COMMENT 'old';\n" +
+                "ALTER TABLE a COMMENT = 'new', ENGINE = InnoDB, ADD INDEX idx_id (id), ALTER COLUMN id SET DEFAULT 1,\n" +
+                "  DROP INDEX idx_id, ALGORITHM = INSTANT;\n" +
+                "ALTER TABLE a PARTITION BY HASH (id);").get("a");
+        assertEquals("new", a.getTableRemark());
+        assertEquals(names("id"), names(a));
+    }
+
+    @Test
+    public void alterForeignKeys() {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse("CREATE TABLE dept (id INT PRIMARY KEY);\n" +
+                "CREATE TABLE emp (id INT PRIMARY KEY, dept_id INT);\n" +
+                "ALTER TABLE emp ADD CONSTRAINT fk_dept FOREIGN KEY (dept_id) REFERENCES dept (id) ON DELETE CASCADE;\n" +
+                "ALTER TABLE emp ADD FOREIGN KEY (id) REFERENCES dept (id);");
+        List<ForeignKeyInfo> foreignKeys = parser.getForeignKeys().get("emp");
+        assertEquals(2, foreignKeys.size());
+        assertEquals("fk_dept", foreignKeys.get(0).getName());
+        assertEquals("emp_ibfk_2", foreignKeys.get(1).getName());
+        parser.parse("ALTER TABLE emp DROP FOREIGN KEY fk_dept, DROP CONSTRAINT emp_ibfk_2;");
+        assertNull(parser.getForeignKeys().get("emp"));
+    }
+
+    @Test
+    public void renameUpdatesForeignKeys() {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse("CREATE TABLE dept (id INT PRIMARY KEY);\n" +
+                "CREATE TABLE emp (id INT PRIMARY KEY, dept_id INT, CONSTRAINT fk_dept FOREIGN KEY (dept_id) REFERENCES dept (id));\n" +
+                "RENAME TABLE dept TO department;\n" +
+                "ALTER TABLE emp RENAME TO employee, CHANGE dept_id department_id INT;\n" +
+                "ALTER TABLE department RENAME COLUMN id TO department_id;");
+        assertNull(parser.getTables().get("emp"));
+        assertEquals("employee", parser.getTables().get("employee").getTableName());
+        assertTrue(column(parser.getTables().get("employee"), "id").isPrimaryKey());
+        ForeignKeyInfo foreignKey = parser.getForeignKeys().get("employee").get(0);
+        assertEquals("employee", foreignKey.getTableName());
+        assertEquals("department_id", foreignKey.getColumnName());
+        assertEquals("department", foreignKey.getReferencedTableName());
+        assertEquals("department_id", foreignKey.getReferencedColumnName());
+    }
+
+    @Test
+    public void migrationDirectory() throws Exception {
+        File directory = folder.newFolder("migration");
+        write(new File(directory, "V1__init.sql"), "CREATE TABLE user(id BIGINT PRIMARY KEY, name VARCHAR(20) COMMENT 'n');");
+        write(new File(directory, "V2__alter.sql"), "ALTER TABLE user ADD COLUMN age INT; ALTER TABLE user MODIFY name VARCHAR(50) COMMENT 'new';");
+        write(new File(directory, "V10__rename.sql"), "ALTER TABLE user RENAME COLUMN age TO user_age;");
+        TableInfo user = new DdlMetadataSource(directory).getTableInfo("user");
+        assertEquals(names("id", "name", "user_age"), names(user));
+        assertColumn(user, "name", JDBCType.VARCHAR, "new", false);
+        assertColumn(user, "user_age", JDBCType.INTEGER, "user_age", false);
+    }
+
+    private static Map<String, TableInfo> parse(String sql) {
+        MySqlDdlParser parser = new MySqlDdlParser();
+        parser.parse(sql);
+        return parser.getTables();
+    }
+
+    private static void write(File file, String sql) throws Exception {
+        Files.write(file.toPath(), sql.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> names(String... names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    private static List<String> names(TableInfo tableInfo) {
+        List<String> names = new ArrayList<>();
+        tableInfo.getColumnsInfo().forEach(info -> names.add(info.getColumnName()));
+        return names;
+    }
+
+    private static ColumnInfo column(TableInfo tableInfo, String columnName) {
+        for (ColumnInfo info : tableInfo.getColumnsInfo()) {
+            if (info.getColumnName().equals(columnName)) {
+                return info;
+            }
+        }
+        throw new AssertionError("Missing column " + columnName);
+    }
+
+    private static void assertColumn(TableInfo tableInfo, String columnName, JDBCType type, String remarks, boolean primaryKey) {
+        ColumnInfo info = column(tableInfo, columnName);
+        assertEquals(type, info.getColumnType());
+        assertEquals(remarks, info.getRemarks());
+        assertEquals(primaryKey, info.isPrimaryKey());
+    }
+
+}